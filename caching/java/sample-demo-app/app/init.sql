@@ -17,4 +17,53 @@ CREATE TABLE IF NOT EXISTS items (
     name TEXT NOT NULL,
     description TEXT NOT NULL,
     price DOUBLE PRECISION NOT NULL
-);
\ No newline at end of file
+);
+
+-- Notify listeners of every change to items, so cached entries can be
+-- invalidated even when the change doesn't go through the application.
+-- Sessions that set app.skip_item_notify, like the sample data loader, skip
+-- the per-row notifications and send a single REBUILD when they're done.
+CREATE OR REPLACE FUNCTION notify_item_change() RETURNS trigger AS $$
+BEGIN
+    IF current_setting('app.skip_item_notify', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('item_changes', TG_OP || ':' || OLD.id);
+    ELSE
+        PERFORM pg_notify('item_changes', TG_OP || ':' || NEW.id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS item_changes ON items;
+CREATE TRIGGER item_changes
+    AFTER INSERT OR UPDATE OR DELETE ON items
+    FOR EACH ROW EXECUTE FUNCTION notify_item_change();
+
+-- Incremented on every update, so cache writes of an older row can be
+-- rejected
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 1;
+
+-- Bump the version in the database rather than in the application's UPDATE,
+-- so changes made with plain SQL are versioned too and racing cache writes of
+-- the old row are still rejected
+CREATE OR REPLACE FUNCTION bump_item_version() RETURNS trigger AS $$
+BEGIN
+    NEW.version := OLD.version + 1;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS item_version ON items;
+CREATE TRIGGER item_version
+    BEFORE UPDATE ON items
+    FOR EACH ROW EXECUTE FUNCTION bump_item_version();
+
+-- Full-text search over names and descriptions, kept up to date by Postgres
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search tsvector
+    GENERATED ALWAYS AS (
+        to_tsvector('english', name || ' ' || description)
+    ) STORED;
+CREATE INDEX IF NOT EXISTS items_search_idx ON items USING GIN (search);
@@ -0,0 +1,76 @@
+#!/usr/bin/env bash
+# Copyright 2025 Google LLC
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#      http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+# Compares the JSON and hash cache layouts on list views. Start one instance
+# with ITEM_CACHE_LAYOUT=json and another with ITEM_CACHE_LAYOUT=hash (e.g.
+# SERVER_PORT=8082); the layouts use different keys, so both can share the same
+# Valkey and Postgres. For each layout this warms the first pages, then load
+# tests GET /api/item?limit=100 and prints the response size, throughput and
+# latency. If valkey-cli is installed and VALKEY_HOST is set, it also prints
+# how many bytes Valkey sent while each load test ran, and the memory used by
+# one cached item. Requires https://github.com/rakyll/hey.
+#
+# Usage: ./layout-benchmark.sh [json-url] [hash-url]
+
+set -euo pipefail
+
+JSON_URL="${1:-http://localhost:8080}"
+HASH_URL="${2:-http://localhost:8082}"
+REQUESTS="${REQUESTS:-20000}"
+CONCURRENCY="${CONCURRENCY:-100}"
+PAGE_SIZE="${PAGE_SIZE:-100}"
+PAGES="${PAGES:-10}"
+
+valkey() {
+  valkey-cli -h "$VALKEY_HOST" -p "${VALKEY_PORT:-6379}" "$@"
+}
+
+valkey_output_bytes() {
+  valkey INFO stats | tr -d '\r' | awk -F: '/^total_net_output_bytes/ { print $2 }'
+}
+
+benchmark() {
+  local layout="$1" base_url="$2" after=0 before_bytes
+
+  echo "== $layout layout ($base_url)"
+
+  # Warm up the JIT, the cached pages and the cached items on them
+  for _ in $(seq "$PAGES"); do
+    after=$(curl -fsS "$base_url/api/item?after=$after&limit=$PAGE_SIZE" \
+      | sed -n 's/.*"next":\([0-9]*\).*/\1/p')
+    [ -n "$after" ] || break
+  done
+  hey -n 1000 -c 50 "$base_url/api/item?limit=$PAGE_SIZE" > /dev/null
+
+  if [ -n "${VALKEY_HOST:-}" ]; then
+    before_bytes=$(valkey_output_bytes)
+  fi
+
+  hey -n "$REQUESTS" -c "$CONCURRENCY" "$base_url/api/item?limit=$PAGE_SIZE" \
+    | grep -E "Requests/sec|Size/request|Average|99% in"
+
+  if [ -n "${VALKEY_HOST:-}" ]; then
+    echo "  Valkey bytes sent/request: $(( ($(valkey_output_bytes) - before_bytes) / REQUESTS ))"
+  fi
+}
+
+benchmark json "$JSON_URL"
+benchmark hash "$HASH_URL"
+
+if [ -n "${VALKEY_HOST:-}" ]; then
+  echo "== Memory used by item 1"
+  echo "  json: $(valkey MEMORY USAGE 1) bytes"
+  echo "  hash: $(valkey MEMORY USAGE "item:{1}") bytes"
+fi
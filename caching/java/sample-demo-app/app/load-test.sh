@@ -0,0 +1,32 @@
+#!/usr/bin/env bash
+# Copyright 2025 Google LLC
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#      http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+# Load test for GET /api/item/{id}. Run it once against the app started normally
+# and once with SPRING_PROFILES_ACTIVE=virtual-threads, then compare the
+# "Requests/sec" and "99% in" lines. Requires https://github.com/rakyll/hey.
+#
+# Usage: ./load-test.sh [base-url] [item-id]
+
+set -euo pipefail
+
+BASE_URL="${1:-http://localhost:8080}"
+ITEM_ID="${2:-1}"
+REQUESTS="${REQUESTS:-20000}"
+CONCURRENCY="${CONCURRENCY:-400}"
+
+# Warm up the JIT, the connection pools and the cache entry
+hey -n 1000 -c 50 "$BASE_URL/api/item/$ITEM_ID" > /dev/null
+
+hey -n "$REQUESTS" -c "$CONCURRENCY" "$BASE_URL/api/item/$ITEM_ID"
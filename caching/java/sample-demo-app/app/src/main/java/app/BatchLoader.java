@@ -0,0 +1,167 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Collects concurrent single-key loads into batches, DataLoader style. A batch
+ * is dispatched when it reaches the maximum size, or when the window after its
+ * first load closes, and every caller's future is completed from the one
+ * batch result.
+ *
+ * Batch sizes and the time each load waited for its batch to be dispatched
+ * are published as <name>.size and <name>.wait metrics.
+ */
+
+package app;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+final class BatchLoader<K, V> implements AutoCloseable {
+
+  private final Function<List<K>, Map<K, V>> batchFunction;
+  private final long windowNanos;
+  private final int maxBatchSize;
+  private final DistributionSummary batchSizes;
+  private final Timer waits;
+
+  // Closes windows, and runs the batches they dispatch
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService dispatcher;
+
+  // Loads waiting for the current batch, and a counter so a window timer
+  // doesn't dispatch a later batch after its own was dispatched when full
+  private List<PendingLoad<K, V>> pending = new ArrayList<>();
+  private long batchNumber;
+
+  BatchLoader(
+      String name,
+      Function<List<K>, Map<K, V>> batchFunction,
+      long windowMicros,
+      int maxBatchSize) {
+    this.batchFunction = batchFunction;
+    this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+    this.maxBatchSize = maxBatchSize;
+    this.batchSizes = DistributionSummary.builder(name + ".size")
+        .description("Keys per dispatched batch")
+        .register(Metrics.globalRegistry);
+    this.waits = Timer.builder(name + ".wait")
+        .description("Time a load waited for its batch to be dispatched")
+        .register(Metrics.globalRegistry);
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        runnable -> daemonThread(runnable, name + "-window"));
+    this.dispatcher = Executors.newCachedThreadPool(
+        runnable -> daemonThread(runnable, name + "-dispatch"));
+  }
+
+  CompletableFuture<V> load(K key) {
+    PendingLoad<K, V> load = new PendingLoad<>(key, System.nanoTime());
+
+    List<PendingLoad<K, V>> fullBatch = null;
+    synchronized (this) {
+      pending.add(load);
+      if (pending.size() >= maxBatchSize) {
+        fullBatch = takePending();
+      } else if (pending.size() == 1) {
+        long windowBatchNumber = batchNumber;
+        scheduler.schedule(
+            () -> dispatchWindow(windowBatchNumber),
+            windowNanos,
+            TimeUnit.NANOSECONDS);
+      }
+    }
+
+    // Full batches are dispatched on the thread that filled them
+    if (fullBatch != null) {
+      dispatch(fullBatch);
+    }
+    return load.future;
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+    dispatcher.shutdownNow();
+  }
+
+  private void dispatchWindow(long windowBatchNumber) {
+    List<PendingLoad<K, V>> batch;
+    synchronized (this) {
+      if (windowBatchNumber != batchNumber || pending.isEmpty()) {
+        return;
+      }
+      batch = takePending();
+    }
+    dispatcher.execute(() -> dispatch(batch));
+  }
+
+  private List<PendingLoad<K, V>> takePending() {
+    List<PendingLoad<K, V>> batch = pending;
+    pending = new ArrayList<>();
+    batchNumber++;
+    return batch;
+  }
+
+  private void dispatch(List<PendingLoad<K, V>> batch) {
+    long dispatchedAt = System.nanoTime();
+    Set<K> keys = new LinkedHashSet<>();
+    for (PendingLoad<K, V> load : batch) {
+      waits.record(dispatchedAt - load.enqueuedAt, TimeUnit.NANOSECONDS);
+      keys.add(load.key);
+    }
+    batchSizes.record(keys.size());
+
+    try {
+      Map<K, V> values = batchFunction.apply(new ArrayList<>(keys));
+      for (PendingLoad<K, V> load : batch) {
+        load.future.complete(values.get(load.key));
+      }
+    } catch (Exception e) {
+      for (PendingLoad<K, V> load : batch) {
+        load.future.completeExceptionally(e);
+      }
+    }
+  }
+
+  private static Thread daemonThread(Runnable runnable, String name) {
+    Thread thread = new Thread(runnable, name);
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private static final class PendingLoad<K, V> {
+
+    private final K key;
+    private final long enqueuedAt;
+    private final CompletableFuture<V> future = new CompletableFuture<>();
+
+    PendingLoad(K key, long enqueuedAt) {
+      this.key = key;
+      this.enqueuedAt = enqueuedAt;
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/**
+ * Optionally fills the cache on startup, so after a deploy or a Valkey flush
+ * the database doesn't take the full read load while the cache warms up.
+ *
+ * The newest items, which are usually the most read, are streamed from the
+ * database through a cursor and cached in pipelined batches. Items cached in
+ * the meantime are left alone, and TTLs are spread over a jitter so the warmed
+ * items don't all expire and reach the database at the same moment. Progress
+ * and throughput are logged as it goes.
+ *
+ * Warming runs before the application reports itself ready, so with
+ * /actuator/health/readiness as the readiness probe, traffic only arrives once
+ * the cache is warm. If the cache or the database fails, warming stops and the
+ * application starts with what was cached so far.
+ */
+
+package app;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CacheWarmer {
+
+  private final ItemsRepository itemsRepository;
+  private final DataController dataController;
+
+  @Value("${CACHE_WARMUP_ENABLED:false}")
+  private boolean enabled;
+
+  // Number of items to cache, newest first
+  @Value("${CACHE_WARMUP_ITEMS:10000}")
+  private int maxItems;
+
+  // Items cached per pipeline, also the rows fetched per round trip
+  @Value("${CACHE_WARMUP_BATCH_SIZE:500}")
+  private int batchSize;
+
+  // Up to this many seconds are added to each warmed item's TTL
+  @Value("${CACHE_WARMUP_TTL_JITTER:30}")
+  private long ttlJitter;
+
+  // How often progress is logged, in items
+  @Value("${CACHE_WARMUP_LOG_EVERY:10000}")
+  private long logEvery;
+
+  public CacheWarmer(
+      ItemsRepository itemsRepository, DataController dataController) {
+    this.itemsRepository = itemsRepository;
+    this.dataController = dataController;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warm() {
+    if (!enabled) {
+      return;
+    }
+    if (maxItems <= 0 || batchSize <= 0 || ttlJitter < 0) {
+      throw new IllegalArgumentException(
+          "CACHE_WARMUP_ITEMS and CACHE_WARMUP_BATCH_SIZE must be positive "
+              + "and CACHE_WARMUP_TTL_JITTER must not be negative");
+    }
+
+    System.out.println("Warming the cache with up to " + maxItems + " items");
+    long start = System.nanoTime();
+    List<Item> batch = new ArrayList<>(batchSize);
+    long[] warmed = { 0 };
+    try {
+      itemsRepository.forEachNewestItem(maxItems, batchSize, item -> {
+        batch.add(item);
+        if (batch.size() == batchSize) {
+          warmed[0] = flush(batch, warmed[0], start);
+        }
+      });
+      warmed[0] = flush(batch, warmed[0], start);
+    } catch (Exception e) {
+      // Start with what was cached so far rather than failing startup
+      System.err.println("Error warming the cache: " + e.getMessage());
+    }
+
+    System.out.println("Warmed the cache with " + warmed[0] + " items in "
+        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms ("
+        + rate(warmed[0], start) + " rows/s)");
+  }
+
+  private long flush(List<Item> batch, long warmed, long start) {
+    if (batch.isEmpty()) {
+      return warmed;
+    }
+    dataController.warm(batch, ttlJitter);
+
+    // Log whenever another logEvery items have been cached
+    long total = warmed + batch.size();
+    if (logEvery > 0 && total / logEvery > warmed / logEvery) {
+      System.out.println("Warmed " + total + " of up to " + maxItems
+          + " items (" + rate(total, start) + " rows/s)");
+    }
+    batch.clear();
+    return total;
+  }
+
+  private static long rate(long items, long start) {
+    long nanos = Math.max(1, System.nanoTime() - start);
+    return items * TimeUnit.SECONDS.toNanos(1) / nanos;
+  }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Connection pool that puts a circuit breaker in front of every Valkey call.
+ * Commands, pipelines and transactions all borrow a connection from here, so
+ * while the breaker is open they fail immediately instead of waiting for a
+ * socket timeout. They fail with a JedisConnectionException, like an
+ * unreachable server, so the callers' existing error handling skips the
+ * cache.
+ *
+ * Once the breaker's open wait has passed, a few calls are let through
+ * half-open to probe Valkey, and their results decide whether it closes
+ * again. A pipeline or transaction counts as one call. Only connection
+ * failures and timeouts count as failures; error replies from the server
+ * mean Valkey is up.
+ *
+ * The latency of every call is published as valkey.command, tagged with the
+ * node and its role, so the share of reads served by replicas is visible.
+ */
+
+package app;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.CommandObject;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.ConnectionFactory;
+import redis.clients.jedis.DefaultJedisSocketFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisClientConfig;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.providers.PooledConnectionProvider;
+
+final class CircuitBreakingConnectionProvider
+    extends PooledConnectionProvider {
+
+  private final CircuitBreaker circuitBreaker;
+  private final String node;
+
+  CircuitBreakingConnectionProvider(
+      HostAndPort hostAndPort,
+      JedisClientConfig clientConfig,
+      GenericObjectPoolConfig<Connection> poolConfig,
+      CircuitBreaker circuitBreaker,
+      String role) {
+    super(
+        new BreakerConnectionFactory(
+            hostAndPort,
+            clientConfig,
+            circuitBreaker,
+            Timer.builder("valkey.command")
+                .description("Latency of Valkey commands and pipelines")
+                .tag("node", hostAndPort.toString())
+                .tag("role", role)
+                .register(Metrics.globalRegistry)),
+        poolConfig);
+    this.circuitBreaker = circuitBreaker;
+    this.node = hostAndPort.toString();
+  }
+
+  // The node's host:port, as tagged on its metrics
+  String getNode() {
+    return node;
+  }
+
+  @Override
+  public Connection getConnection() {
+    // Don't even borrow a connection while the breaker is open
+    CircuitBreaker.State state = circuitBreaker.getState();
+    if (state == CircuitBreaker.State.OPEN
+        || state == CircuitBreaker.State.FORCED_OPEN) {
+      throw notPermitted(circuitBreaker);
+    }
+
+    long start = System.nanoTime();
+    try {
+      Connection connection = super.getConnection();
+      ((BreakerConnection) connection).borrow();
+      return connection;
+    } catch (JedisException e) {
+      // Failing to open a new connection counts against the breaker too
+      circuitBreaker.onError(
+          System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+      throw e;
+    }
+  }
+
+  @Override
+  public Connection getConnection(CommandArguments args) {
+    return getConnection();
+  }
+
+  private static JedisConnectionException notPermitted(
+      CircuitBreaker circuitBreaker) {
+    CallNotPermittedException e =
+        CallNotPermittedException.createCallNotPermittedException(
+            circuitBreaker);
+    return new JedisConnectionException(e.getMessage(), e);
+  }
+
+  private static final class BreakerConnectionFactory
+      extends ConnectionFactory {
+
+    private final HostAndPort hostAndPort;
+    private final JedisClientConfig clientConfig;
+    private final CircuitBreaker circuitBreaker;
+    private final Timer latency;
+
+    BreakerConnectionFactory(
+        HostAndPort hostAndPort,
+        JedisClientConfig clientConfig,
+        CircuitBreaker circuitBreaker,
+        Timer latency) {
+      super(hostAndPort, clientConfig);
+      this.hostAndPort = hostAndPort;
+      this.clientConfig = clientConfig;
+      this.circuitBreaker = circuitBreaker;
+      this.latency = latency;
+    }
+
+    @Override
+    public PooledObject<Connection> makeObject() {
+      return new DefaultPooledObject<>(
+          new BreakerConnection(
+              new DefaultJedisSocketFactory(hostAndPort, clientConfig),
+              clientConfig,
+              circuitBreaker,
+              latency));
+    }
+  }
+
+  private static final class BreakerConnection extends Connection {
+
+    private final CircuitBreaker circuitBreaker;
+    private final Timer latency;
+
+    // Only calls made by whoever borrowed the connection go through the
+    // breaker. The handshake and the pool's validation pings don't.
+    private boolean borrowed;
+
+    // A permission has been taken and its outcome not yet recorded
+    private boolean permitted;
+
+    BreakerConnection(
+        DefaultJedisSocketFactory socketFactory,
+        JedisClientConfig clientConfig,
+        CircuitBreaker circuitBreaker,
+        Timer latency) {
+      super(socketFactory, clientConfig);
+      this.circuitBreaker = circuitBreaker;
+      this.latency = latency;
+    }
+
+    void borrow() {
+      borrowed = true;
+    }
+
+    @Override
+    public <T> T executeCommand(CommandObject<T> commandObject) {
+      if (!borrowed) {
+        return super.executeCommand(commandObject);
+      }
+      acquirePermission();
+      long start = System.nanoTime();
+      try {
+        T result = super.executeCommand(commandObject);
+        record(System.nanoTime() - start, null);
+        return result;
+      } catch (RuntimeException e) {
+        record(System.nanoTime() - start, e);
+        throw e;
+      }
+    }
+
+    @Override
+    public void sendCommand(CommandArguments args) {
+      // Pipelines and transactions send their commands here. The first one
+      // of each batch takes a permission, just like a single command, so
+      // while half-open they only get through as one of the probes.
+      if (borrowed && !permitted) {
+        acquirePermission();
+      }
+      super.sendCommand(args);
+    }
+
+    @Override
+    public List<Object> getMany(int count) {
+      // Pipelines and transactions read all their replies here, which
+      // settles the batch's permission
+      if (!borrowed) {
+        return super.getMany(count);
+      }
+      long start = System.nanoTime();
+      try {
+        List<Object> replies = super.getMany(count);
+        record(System.nanoTime() - start, null);
+        return replies;
+      } catch (RuntimeException e) {
+        record(System.nanoTime() - start, e);
+        throw e;
+      }
+    }
+
+    @Override
+    public void close() {
+      // A permission whose replies were never read, like a transaction's
+      // EXEC, is handed back rather than left to hold a half-open probe
+      if (permitted) {
+        permitted = false;
+        circuitBreaker.releasePermission();
+      }
+      borrowed = false;
+      super.close();
+    }
+
+    private void acquirePermission() {
+      // Half-open, only the permitted number of probes get through
+      if (!circuitBreaker.tryAcquirePermission()) {
+        throw notPermitted(circuitBreaker);
+      }
+      permitted = true;
+    }
+
+    private void record(long nanos, RuntimeException error) {
+      latency.record(nanos, TimeUnit.NANOSECONDS);
+      if (!permitted) {
+        return;
+      }
+      permitted = false;
+      if (error == null) {
+        circuitBreaker.onSuccess(nanos, TimeUnit.NANOSECONDS);
+      } else {
+        circuitBreaker.onError(nanos, TimeUnit.NANOSECONDS, error);
+      }
+    }
+  }
+}
@@ -21,10 +21,36 @@
 
 package app;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.stereotype.Controller;
-import redis.clients.jedis.Jedis;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.JedisClusterCRC16;
 
 @Controller
 public class DataController {
@@ -32,51 +58,393 @@ public class DataController {
   // Default TTL for cached data is 60 seconds (1 minute)
   public static final Long DEFAULT_TTL = 60L;
 
+  // IDs found missing on a read are cached as tombstones for 10 seconds, so
+  // repeated lookups of missing IDs don't reach the database. Tombstones of
+  // deleted items are kept longer, see cacheTombstone
+  public static final Long NEGATIVE_TTL = 10L;
+  public static final String TOMBSTONE = "";
+
+  // Pages of item IDs are cached as lists under this prefix, keyed by cursor
+  // and page size
+  public static final String PAGE_KEY_PREFIX = "items:page:";
+
+  // Search results are cached as lists of item IDs under this prefix, keyed
+  // by limit and normalized query
+  public static final String SEARCH_KEY_PREFIX = "items:search:";
+
+  // Replaces a cached list of IDs, where ARGV[1] is the TTL and the rest are
+  // the IDs
+  private static final String REPLACE_LIST_SCRIPT =
+      "redis.call('DEL', KEYS[1]) "
+          + "redis.call('RPUSH', KEYS[1], unpack(ARGV, 2)) "
+          + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+          + "return 1";
+
+  // Caches an item only if the cached copy isn't newer, so a slow reader
+  // can't overwrite the result of a later update or delete with its older row
+  private static final String CACHE_IF_NEWER_SCRIPT =
+      "local cached = redis.call('GET', KEYS[1]) "
+          + "if cached == '' then return 0 end "
+          + "if cached then "
+          + "  local ok, item = pcall(cjson.decode, cached) "
+          + "  if ok and type(item.version) == 'number' "
+          + "      and item.version > tonumber(ARGV[1]) then "
+          + "    return 0 "
+          + "  end "
+          + "end "
+          + "redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3]) "
+          + "return 1";
+
+  // Items cached as hashes are stored under this prefix, with the ID as a hash
+  // tag. Tombstones stay strings under the plain ID in both layouts, which
+  // hashes to the same cluster slot, so scripts can use both keys.
+  public static final String HASH_KEY_PREFIX = "item:";
+  public static final String HASH_LAYOUT = "hash";
+
+  // Same as CACHE_IF_NEWER_SCRIPT for the hash layout, where KEYS[1] is the
+  // tombstone key and KEYS[2] the hash
+  private static final String CACHE_HASH_IF_NEWER_SCRIPT =
+      "if redis.call('GET', KEYS[1]) == '' then return 0 end "
+          + "local cached = tonumber(redis.call('HGET', KEYS[2], 'version')) "
+          + "if cached and cached > tonumber(ARGV[1]) then return 0 end "
+          + "redis.call('HSET', KEYS[2], unpack(ARGV, 3)) "
+          + "redis.call('EXPIRE', KEYS[2], ARGV[2]) "
+          + "return 1";
+
+  // When stale reads are enabled, cached items record when they logically
+  // expire, and are kept for longer so they can be served if the database
+  // fails
+  public static final String EXPIRES_AT_FIELD = "expiresAt";
+
+  // Fields read for list views in the hash layout
+  static final String[] CACHED_SUMMARY_FIELDS = {
+      "id", "name", "price", "version", EXPIRES_AT_FIELD };
+
   private final ItemsRepository itemsRepository;
-  private final Jedis jedis;
+  private final UnifiedJedis jedis;
+  private final UnifiedJedis readJedis;
+  private final ItemBloomFilter itemBloomFilter;
+  private final ItemSearchIndex itemSearchIndex;
+  private final HotKeyDetector hotKeyDetector;
+  private final HedgedReader hedgedReader;
 
-  public DataController(ItemsRepository cacheRepository, Jedis jedis) {
+  public DataController(
+      ItemsRepository cacheRepository,
+      UnifiedJedis jedis,
+      @Qualifier("readJedis") UnifiedJedis readJedis,
+      ItemBloomFilter itemBloomFilter,
+      ItemSearchIndex itemSearchIndex,
+      HotKeyDetector hotKeyDetector,
+      HedgedReader hedgedReader) {
     this.itemsRepository = cacheRepository;
     this.jedis = jedis;
+    // Item reads tolerate replication lag, so they can go to read replicas
+    this.readJedis = readJedis;
+    this.itemBloomFilter = itemBloomFilter;
+    this.itemSearchIndex = itemSearchIndex;
+    this.hotKeyDetector = hotKeyDetector;
+    // Single-item reads can be hedged against a slow primary
+    this.hedgedReader = hedgedReader;
+  }
+
+  // Cache items as JSON strings ("json"), or as hashes ("hash") so list views
+  // can read only the fields they show
+  @Value("${ITEM_CACHE_LAYOUT:json}")
+  private String cacheLayout;
+
+  private boolean isHashLayout() {
+    return HASH_LAYOUT.equals(cacheLayout);
+  }
+
+  // In cluster mode, multi-key commands only run on keys in the same slot
+  @Value("${VALKEY_CLUSTER_ENABLED:false}")
+  private boolean clusterEnabled;
+
+  static String hashKey(String idString) {
+    return HASH_KEY_PREFIX + "{" + idString + "}";
+  }
+
+  // Groups keys by the cluster slot they hash to, keeping their order
+  static Collection<List<String>> groupBySlot(String... keys) {
+    Map<Integer, List<String>> slots = new LinkedHashMap<>();
+    for (String key : keys) {
+      slots.computeIfAbsent(JedisClusterCRC16.getSlot(key),
+          slot -> new ArrayList<>()).add(key);
+    }
+    return slots.values();
+  }
+
+  // Collect concurrent reads into one MGET, and one query for the misses
+  @Value("${ITEM_BATCHING_ENABLED:false}")
+  private boolean batchingEnabled;
+
+  // How long the first read of a batch waits for others to join it
+  @Value("${ITEM_BATCH_WINDOW_US:500}")
+  private long batchWindowMicros;
+
+  @Value("${ITEM_BATCH_MAX_SIZE:64}")
+  private int maxBatchSize;
+
+  private BatchLoader<Long, Item> batchLoader;
+
+  // Seconds items are kept in the cache past DEFAULT_TTL, to be served
+  // (flagged as stale) if the database fails. 0 disables stale reads.
+  @Value("${ITEM_STALE_TTL:0}")
+  private long staleTtl;
+
+  // How long a read of an expired item waits for the database before serving
+  // the stale copy, in milliseconds. 0 waits for the database.
+  @Value("${ITEM_DB_LATENCY_BUDGET_MS:0}")
+  private long dbLatencyBudgetMillis;
+
+  private ExecutorService dbExecutor;
+
+  @PostConstruct
+  void start() {
+    if (batchingEnabled) {
+      batchLoader = new BatchLoader<>(
+          "item.batch", this::getBatch, batchWindowMicros, maxBatchSize);
+    }
+    if (staleTtl > 0 && dbLatencyBudgetMillis > 0) {
+      dbExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "item-db-read");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  @PreDestroy
+  void stop() {
+    if (batchLoader != null) {
+      batchLoader.close();
+    }
+    if (dbExecutor != null) {
+      dbExecutor.shutdownNow();
+    }
   }
 
   public Item get(long id) {
+    // Skip both the cache and the database for IDs that definitely don't exist
+    if (!itemBloomFilter.mightContain(id)) {
+      return null;
+    }
+
+    // Serve hot items from the local replica, without reaching Valkey
+    Item localItem = hotKeyDetector.get(id);
+    if (localItem != null) {
+      return localItem;
+    }
+    hotKeyDetector.record(id);
+
+    if (batchLoader != null) {
+      return getBatched(id);
+    }
+
+    return getThrough(id, null);
+  }
+
+  public ItemBody getBody(long id) {
+    // Only items cached as plain JSON are wire-ready. Hashes, items with a
+    // logical expiry, batched reads and local copies of hot items are served
+    // by get().
+    if (isHashLayout()
+        || staleTtl > 0
+        || batchLoader != null
+        || hotKeyDetector.isHot(id)) {
+      return ItemBody.fromItem(get(id));
+    }
+
+    // Skip both the cache and the database for IDs that definitely don't exist
+    if (!itemBloomFilter.mightContain(id)) {
+      return null;
+    }
+    hotKeyDetector.record(id);
+
+    // Use try-catch to avoid missing the database if there's an error with the
+    // cache
+    byte[] cached;
+    try {
+      byte[] key = Long.toString(id).getBytes(StandardCharsets.UTF_8);
+      cached = hedgedReader.read(client -> client.get(key));
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error with cache: " + e.getMessage());
+      return ItemBody.fromItem(getFromDatabase(id, null));
+    }
+
+    // Misses and tombstones are answered from this read, rather than reading
+    // the key again in get()
+    if (cached == null) {
+      return ItemBody.fromItem(getFromDatabase(id, null));
+    }
+    if (cached.length == 0) {
+      // The item is known not to exist
+      return null;
+    }
+
+    ItemBody body = ItemBody.fromCached(cached);
+    if (body != null) {
+      return body;
+    }
+
+    // Items cached with a logical expiry have to be checked against it, which
+    // the full read path does with the bytes already read
+    return ItemBody.fromItem(getThrough(id, cached));
+  }
+
+  private Item getThrough(long id, byte[] prefetched) {
     String idString = Long.toString(id);
 
     // Use try-catch to avoid missing the database if there's an error with the
     // cache
+    Item staleItem = null;
     try {
       // Check if the data exists in the cache first
-      String cachedValue = jedis.get(idString);
-      if (cachedValue != null) {
-        // Return the cached data
-        Item cachedItem = Item.fromJsonString(cachedValue);
+      Item cachedItem = null;
+      String expiresAt = null;
+      if (isHashLayout()) {
+        Map<String, String> fields =
+            hedgedReader.read(client -> client.hgetAll(hashKey(idString)));
+        cachedItem = Item.fromMap(fields);
+        expiresAt = cachedItem != null ? fields.get(EXPIRES_AT_FIELD) : null;
+      }
+
+      if (cachedItem == null) {
+        // Reuse the value getBody already read, if any
+        String cachedValue = prefetched != null
+            ? new String(prefetched, StandardCharsets.UTF_8)
+            : hedgedReader.read(client -> client.get(idString));
+        if (TOMBSTONE.equals(cachedValue)) {
+          // The item is known not to exist
+          return null;
+        }
+        if (cachedValue != null && !isHashLayout()) {
+          JSONObject cachedJson = new JSONObject(cachedValue);
+          cachedItem = Item.fromJsonObject(cachedJson);
+          expiresAt = cachedJson.optString(EXPIRES_AT_FIELD, null);
+        }
+      }
+
+      if (cachedItem != null) {
         cachedItem.setFromCache(true);
-        return cachedItem;
+        if (!isExpired(expiresAt)) {
+          // Return the cached data
+          hotKeyDetector.put(cachedItem);
+          return cachedItem;
+        }
+
+        // Keep the expired copy in case the database can't be reached
+        staleItem = cachedItem;
       }
     } catch (Exception e) {
       // If there's an error with the cache, log the error and continue
       System.err.println("Error with cache: " + e.getMessage());
     }
 
-    Optional<Item> item = itemsRepository.get(id);
+    return getFromDatabase(id, staleItem);
+  }
+
+  private Item getFromDatabase(long id, Item staleItem) {
+    Optional<Item> item;
+    try {
+      item = staleItem == null ? itemsRepository.get(id) : getWithinBudget(id);
+    } catch (RuntimeException e) {
+      if (staleItem == null) {
+        throw e;
+      }
+
+      // Serve the expired copy rather than failing the read
+      System.err.println("Error with database, serving stale item: "
+          + e.getMessage());
+      staleItem.setStale(true);
+      return staleItem;
+    }
 
     if (item.isEmpty()) {
-      // If the data doesn't exist in the database, return null
+      // If the data doesn't exist in the database, cache a tombstone and
+      // return null
+      cacheMissing(Long.toString(id));
       return null;
     }
 
-    // Use try-catch to avoid missing returning the data if there's an error with
-    // the cache
+    // Cache result from the database with the default TTL, unless a newer
+    // version was cached in the meantime
+    cacheIfNewer(item.get());
+
+    return item.get();
+  }
+
+  private Optional<Item> getWithinBudget(long id) {
+    if (dbExecutor == null) {
+      return itemsRepository.get(id);
+    }
+
+    CompletableFuture<Optional<Item>> read = CompletableFuture.supplyAsync(
+        () -> itemsRepository.get(id), dbExecutor);
+    try {
+      return read.get(dbLatencyBudgetMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      // Cache the result once it arrives, so later reads are fresh again
+      read.thenAccept(result -> result.ifPresent(this::cacheIfNewer));
+      throw new QueryTimeoutException(
+          "Database read exceeded " + dbLatencyBudgetMillis + " ms");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private Item getBatched(long id) {
+    try {
+      return batchLoader.load(id).join();
+    } catch (CompletionException e) {
+      // Rethrow database errors as if the read hadn't been batched
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  Map<Long, Item> getBatch(List<Long> ids) {
+    // Same as get, for many IDs: one round trip to the cache, and one query
+    // for the items that weren't cached
+    Map<Long, Item> items = new HashMap<>();
+    Map<Long, Item> staleItems = new HashMap<>();
+    List<Long> missingIds = new ArrayList<>();
     try {
-      // Cache result from the database with the default TTL
-      jedis.setex(idString, DEFAULT_TTL, item.get().toJsonObject().toString());
+      if (isHashLayout()) {
+        getCachedHashes(ids, items, missingIds, staleItems);
+      } else {
+        getCachedItems(ids, items, missingIds, staleItems);
+      }
+      items.values().forEach(hotKeyDetector::put);
     } catch (Exception e) {
       // If there's an error with the cache, log the error and continue
       System.err.println("Error with cache: " + e.getMessage());
+      missingIds = ids;
     }
 
-    return item.get();
+    if (!missingIds.isEmpty()) {
+      for (Item item : getByIds(missingIds, staleItems)) {
+        items.put(item.getId(), item);
+      }
+
+      // Remember the items that don't exist
+      for (Long id : missingIds) {
+        if (!items.containsKey(id)) {
+          cacheMissing(Long.toString(id));
+        }
+      }
+    }
+
+    return items;
   }
 
   public List<Item> getMultiple(int amount) {
@@ -84,22 +452,59 @@ public class DataController {
     return itemsRepository.getMultiple(amount);
   }
 
+  public ItemPage getPage(long afterId, int limit) {
+    List<Long> ids = getCachedIds(
+        PAGE_KEY_PREFIX + afterId + ":" + limit,
+        () -> itemsRepository.getIdsAfter(afterId, limit));
+
+    // The next page starts after the last ID of this one, even if that item
+    // was deleted, and a short page means there are no more items
+    Long next = ids.size() == limit ? ids.get(ids.size() - 1) : null;
+    return new ItemPage(getItems(ids), next);
+  }
+
+  public List<Item> search(String query, int limit) {
+    // Normalize the query so equivalent queries share cached results
+    List<String> terms = ItemSearchIndex.terms(query);
+    if (terms.isEmpty()) {
+      return List.of();
+    }
+
+    List<Long> ids = getCachedIds(
+        SEARCH_KEY_PREFIX + limit + ":" + String.join(" ", terms),
+        () -> itemSearchIndex.search(terms, limit));
+    return getItems(ids);
+  }
+
   public long create(Item item) {
     // Create the data in the database
     long itemId = itemsRepository.create(item);
 
-    // Clone the item with the generated ID
+    // Clone the item with the generated ID and initial version
     Item createdItem = new Item(
         itemId,
         item.getName(),
         item.getDescription(),
-        item.getPrice());
+        item.getPrice(),
+        1L);
+
+    // Add the new ID to the filter before caching it
+    itemBloomFilter.add(itemId);
+    itemSearchIndex.add(createdItem);
 
     // Use try-catch to avoid returning the data if there's an error with the cache
     try {
-      // Cache the data with the default TTL
+      // Cache the data with the default TTL, replacing any tombstone
       String idString = Long.toString(itemId);
-      jedis.setex(idString, DEFAULT_TTL, createdItem.toJsonObject().toString());
+      if (isHashLayout()) {
+        jedis.del(idString);
+        cacheIfNewer(createdItem);
+      } else {
+        jedis.setex(
+            idString,
+            cacheTtl(DEFAULT_TTL),
+            toCachedJson(createdItem, DEFAULT_TTL));
+      }
     } catch (Exception e) {
       // If there's an error with the cache, log the error and continue
       System.err.println("Error with cache: " + e.getMessage());
@@ -108,40 +513,532 @@ public class DataController {
     return itemId;
   }
 
+  public List<Long> createAll(List<Item> items) {
+    // Create the items in the database with a single insert. The IDs come
+    // back in the order of the items they were generated for.
+    List<Long> ids = itemsRepository.createAll(items);
+
+    // Clone the items with the generated IDs and initial version
+    List<Item> createdItems = new ArrayList<>(items.size());
+    for (int i = 0; i < items.size(); i++) {
+      Item item = items.get(i);
+      createdItems.add(new Item(
+          ids.get(i),
+          item.getName(),
+          item.getDescription(),
+          item.getPrice(),
+          1L));
+    }
+
+    // Add the new IDs to the filter before caching them
+    itemBloomFilter.addAll(ids);
+    createdItems.forEach(itemSearchIndex::add);
+
+    // Cache every new item in a single round trip, replacing any tombstones
+    try (AbstractPipeline pipeline = jedis.pipelined()) {
+      for (Item item : createdItems) {
+        String idString = Long.toString(item.getId());
+        if (isHashLayout()) {
+          pipeline.del(idString);
+          pipeline.eval(
+              CACHE_HASH_IF_NEWER_SCRIPT,
+              cacheIfNewerKeys(item),
+              cacheIfNewerArgs(item, DEFAULT_TTL));
+        } else {
+          pipeline.setex(
+              idString,
+              cacheTtl(DEFAULT_TTL),
+              toCachedJson(item, DEFAULT_TTL));
+        }
+      }
+      pipeline.sync();
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error with cache: " + e.getMessage());
+    }
+
+    return ids;
+  }
+
+  public Long update(long id, Item item) {
+    // Update the data in the database, which returns the new version
+    Optional<Long> version = itemsRepository.update(id, item);
+    if (version.isEmpty()) {
+      return null;
+    }
+    hotKeyDetector.invalidate(id);
+
+    // Cache the new version, unless an even newer one is already cached
+    Item updatedItem = new Item(
+        id,
+        item.getName(),
+        item.getDescription(),
+        item.getPrice(),
+        version.get());
+    itemSearchIndex.add(updatedItem);
+    cacheIfNewer(updatedItem);
+
+    return version.get();
+  }
+
   public void delete(long id) {
     // Delete the data from database
     itemsRepository.delete(id);
+    itemSearchIndex.remove(id);
+
+    // Replace the cached data with a tombstone, since the item is now known not
+    // to exist
+    cacheTombstone(Long.toString(id));
+  }
+
+  public boolean exists(long id) {
+    String idString = Long.toString(id);
+
+    // Skip both the cache and the database for IDs that definitely don't exist
+    if (!itemBloomFilter.mightContain(id)) {
+      return false;
+    }
+
+    // Use try-catch to avoid missing the database if there's an error with the
+    // cache
+    try {
+      // Check if the data or a tombstone exists in the cache
+      if (isHashLayout() && jedis.exists(hashKey(idString))) {
+        return true;
+      }
+
+      String cachedValue = jedis.get(idString);
+      if (TOMBSTONE.equals(cachedValue)) {
+        return false;
+      }
+      if (cachedValue != null && !isHashLayout()) {
+        return true;
+      }
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error with cache: " + e.getMessage());
+    }
+
+    // Check the database, and remember if the item doesn't exist
+    boolean exists = itemsRepository.exists(id);
+    if (!exists) {
+      cacheMissing(idString);
+    }
+    return exists;
+  }
+
+  void refresh(Collection<Long> ids) {
+    ids.forEach(hotKeyDetector::invalidate);
 
-    // Use try-catch to avoid missing the cache if there's an error with the cache
+    // Re-read changed items and cache them, unless a newer version is cached.
+    // Items deleted in the meantime are skipped.
+    cacheIfNewer(itemsRepository.getByIds(ids));
+  }
+
+  void cacheIfNewer(Item item) {
+    // Use try-catch to avoid failing the request if there's an error with the
+    // cache
     try {
-      // Also, delete the data from the cache if it exists
-      String idString = Long.toString(id);
-      long totalDeleted = jedis.del(idString);
+      jedis.eval(
+          cacheIfNewerScript(),
+          cacheIfNewerKeys(item),
+          cacheIfNewerArgs(item, DEFAULT_TTL));
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error with cache: " + e.getMessage());
+    }
+  }
 
-      if (totalDeleted == 0) {
-        throw new Exception("Item not found in cache");
+  void cacheIfNewer(List<Item> items) {
+    if (items.isEmpty()) {
+      return;
+    }
+
+    // Pipeline the writes so caching many items takes a single round trip
+    try (AbstractPipeline pipeline = jedis.pipelined()) {
+      for (Item item : items) {
+        pipeline.eval(
+            cacheIfNewerScript(),
+            cacheIfNewerKeys(item),
+            cacheIfNewerArgs(item, DEFAULT_TTL));
       }
+      pipeline.sync();
     } catch (Exception e) {
       // If there's an error with the cache, log the error and continue
       System.err.println("Error with cache: " + e.getMessage());
     }
   }
 
-  public boolean exists(long id) {
-    String idString = Long.toString(id);
+  void warm(List<Item> items, long ttlJitter) {
+    // Cache the items in a single round trip, each with up to ttlJitter
+    // seconds added to its TTL so they don't all expire at the same moment.
+    // Items cached since the cache was emptied are left alone. Errors are
+    // thrown, so warming stops rather than retrying an unreachable cache.
+    try (AbstractPipeline pipeline = jedis.pipelined()) {
+      for (Item item : items) {
+        long ttl = DEFAULT_TTL
+            + ThreadLocalRandom.current().nextLong(ttlJitter + 1);
+        if (isHashLayout()) {
+          pipeline.eval(
+              CACHE_HASH_IF_NEWER_SCRIPT,
+              cacheIfNewerKeys(item),
+              cacheIfNewerArgs(item, ttl));
+        } else {
+          pipeline.set(
+              Long.toString(item.getId()),
+              toCachedJson(item, ttl),
+              SetParams.setParams().nx().ex(cacheTtl(ttl)));
+        }
+      }
+      pipeline.sync();
+    }
+  }
+
+  private String cacheIfNewerScript() {
+    return isHashLayout() ? CACHE_HASH_IF_NEWER_SCRIPT : CACHE_IF_NEWER_SCRIPT;
+  }
+
+  private List<String> cacheIfNewerKeys(Item item) {
+    String idString = Long.toString(item.getId());
+    return isHashLayout()
+        ? List.of(idString, hashKey(idString))
+        : List.of(idString);
+  }
+
+  private List<String> cacheIfNewerArgs(Item item, long ttl) {
+    if (!isHashLayout()) {
+      return List.of(
+          Long.toString(item.getVersion()),
+          toCachedJson(item, ttl),
+          Long.toString(cacheTtl(ttl)));
+    }
 
+    // The hash fields follow as field, value pairs
+    List<String> args = new ArrayList<>();
+    args.add(Long.toString(item.getVersion()));
+    args.add(Long.toString(cacheTtl(ttl)));
+    item.toMap().forEach((field, value) -> {
+      args.add(field);
+      args.add(value);
+    });
+    if (staleTtl > 0) {
+      args.add(EXPIRES_AT_FIELD);
+      args.add(Long.toString(expiresAt(ttl)));
+    }
+    return args;
+  }
+
+  private long cacheTtl(long ttl) {
+    // Items are kept past their logical expiry when stale reads are enabled
+    return ttl + staleTtl;
+  }
+
+  private long expiresAt(long ttl) {
+    return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttl);
+  }
+
+  private String toCachedJson(Item item, long ttl) {
+    JSONObject json = item.toJsonObject();
+    if (staleTtl > 0) {
+      json.put(EXPIRES_AT_FIELD, expiresAt(ttl));
+    }
+    return json.toString();
+  }
+
+  private static boolean isExpired(String expiresAt) {
+    // Items cached without an expiry are only removed by their TTL
+    return expiresAt != null
+        && Long.parseLong(expiresAt) < System.currentTimeMillis();
+  }
+
+  private List<Long> getCachedIds(String key, Supplier<List<Long>> loader) {
     // Use try-catch to avoid missing the database if there's an error with the
     // cache
-    boolean cacheExists = false;
     try {
-      // Check if the data exists in the cache
-      cacheExists = jedis.exists(idString);
+      List<String> cachedIds = jedis.lrange(key, 0, -1);
+      if (List.of(TOMBSTONE).equals(cachedIds)) {
+        // The cached list is known to be empty
+        return List.of();
+      }
+      if (cachedIds != null && !cachedIds.isEmpty()) {
+        return cachedIds.stream().map(Long::valueOf).toList();
+      }
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error with cache: " + e.getMessage());
+    }
+
+    List<Long> ids = loader.get();
+
+    // Replace the list in a script, so concurrent requests caching the same
+    // list can't interleave their pushes. Unlike a transaction, it also runs on
+    // a cluster. Lists can't be empty, so empty results are cached as a single
+    // tombstone.
+    List<String> args = new ArrayList<>();
+    args.add(Long.toString(DEFAULT_TTL));
+    if (ids.isEmpty()) {
+      args.add(TOMBSTONE);
+    } else {
+      args.addAll(Arrays.asList(toStrings(ids)));
+    }
+    try {
+      jedis.eval(REPLACE_LIST_SCRIPT, List.of(key), args);
     } catch (Exception e) {
       // If there's an error with the cache, log the error and continue
       System.err.println("Error with cache: " + e.getMessage());
     }
 
-    // Check if the data exists in the cache or the database (check the cache first)
-    return cacheExists || itemsRepository.exists(id);
+    return ids;
+  }
+
+  private List<Item> getItems(List<Long> ids) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+
+    // Fetch the cached items in a single MGET, and load the rest from the
+    // database in a single query
+    Map<Long, Item> items = new HashMap<>();
+    Map<Long, Item> staleItems = new HashMap<>();
+    List<Long> missingIds = new ArrayList<>();
+    try {
+      if (isHashLayout()) {
+        getCachedSummaries(ids, items, missingIds, staleItems);
+      } else {
+        getCachedItems(ids, items, missingIds, staleItems);
+      }
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error with cache: " + e.getMessage());
+      missingIds = ids;
+    }
+
+    if (!missingIds.isEmpty()) {
+      for (Item item : getByIds(missingIds, staleItems)) {
+        // List views only show summaries in the hash layout
+        items.put(item.getId(), isHashLayout() ? item.toSummary() : item);
+      }
+    }
+
+    // Return the items in the order of the IDs
+    List<Item> orderedItems = new ArrayList<>();
+    for (Long id : ids) {
+      Item item = items.get(id);
+      if (item != null) {
+        orderedItems.add(item);
+      }
+    }
+    return orderedItems;
+  }
+
+  private List<Item> getByIds(List<Long> ids, Map<Long, Item> staleItems) {
+    try {
+      List<Item> loadedItems = itemsRepository.getByIds(ids);
+      cacheIfNewer(loadedItems);
+      return loadedItems;
+    } catch (RuntimeException e) {
+      // Serve the expired copies rather than failing, if there is one for
+      // every item that had to be read from the database
+      if (!staleItems.keySet().containsAll(ids)) {
+        throw e;
+      }
+      System.err.println("Error with database, serving stale items: "
+          + e.getMessage());
+      staleItems.values().forEach(item -> item.setStale(true));
+      return new ArrayList<>(staleItems.values());
+    }
+  }
+
+  private void getCachedItems(
+      List<Long> ids,
+      Map<Long, Item> items,
+      List<Long> missingIds,
+      Map<Long, Item> staleItems) {
+    List<String> cachedValues = clusterEnabled
+        ? mgetBySlot(toStrings(ids))
+        : readJedis.mget(toStrings(ids));
+    for (int i = 0; i < ids.size(); i++) {
+      String cachedValue = cachedValues.get(i);
+      if (cachedValue == null) {
+        missingIds.add(ids.get(i));
+      } else if (!TOMBSTONE.equals(cachedValue)) {
+        // Items with tombstones were deleted after the list was cached
+        JSONObject cachedJson = new JSONObject(cachedValue);
+        Item cachedItem = Item.fromJsonObject(cachedJson);
+        cachedItem.setFromCache(true);
+        addCached(
+            cachedItem,
+            cachedJson.optString(EXPIRES_AT_FIELD, null),
+            items,
+            missingIds,
+            staleItems);
+      }
+    }
+  }
+
+  private List<String> mgetBySlot(String[] keys) {
+    // Send one MGET per slot, pipelined so each node takes a single round trip
+    List<List<String>> groups = new ArrayList<>(groupBySlot(keys));
+    List<Response<List<String>>> responses = new ArrayList<>();
+    try (AbstractPipeline pipeline = readJedis.pipelined()) {
+      for (List<String> group : groups) {
+        responses.add(pipeline.mget(group.toArray(new String[0])));
+      }
+      pipeline.sync();
+    }
+
+    Map<String, String> values = new HashMap<>();
+    for (int i = 0; i < groups.size(); i++) {
+      List<String> groupValues = responses.get(i).get();
+      for (int j = 0; j < groups.get(i).size(); j++) {
+        values.put(groups.get(i).get(j), groupValues.get(j));
+      }
+    }
+    return Arrays.stream(keys).map(values::get).toList();
+  }
+
+  private void addCached(
+      Item cachedItem,
+      String expiresAt,
+      Map<Long, Item> items,
+      List<Long> missingIds,
+      Map<Long, Item> staleItems) {
+    // Expired items are read from the database again, and kept in case it
+    // can't be reached
+    if (isExpired(expiresAt)) {
+      missingIds.add(cachedItem.getId());
+      staleItems.put(cachedItem.getId(), cachedItem);
+    } else {
+      items.put(cachedItem.getId(), cachedItem);
+    }
+  }
+
+  private void getCachedHashes(
+      List<Long> ids,
+      Map<Long, Item> items,
+      List<Long> missingIds,
+      Map<Long, Item> staleItems) {
+    // Read each hash and its tombstone key in a single round trip
+    List<Response<Map<String, String>>> hashes = new ArrayList<>();
+    List<Response<String>> tombstones = new ArrayList<>();
+    try (AbstractPipeline pipeline = readJedis.pipelined()) {
+      for (Long id : ids) {
+        hashes.add(pipeline.hgetAll(hashKey(Long.toString(id))));
+        tombstones.add(pipeline.get(Long.toString(id)));
+      }
+      pipeline.sync();
+    }
+
+    for (int i = 0; i < ids.size(); i++) {
+      Map<String, String> fields = hashes.get(i).get();
+      Item cachedItem = Item.fromMap(fields);
+      if (cachedItem != null) {
+        cachedItem.setFromCache(true);
+        addCached(
+            cachedItem,
+            fields.get(EXPIRES_AT_FIELD),
+            items,
+            missingIds,
+            staleItems);
+      } else if (!TOMBSTONE.equals(tombstones.get(i).get())) {
+        missingIds.add(ids.get(i));
+      }
+    }
+  }
+
+  private void getCachedSummaries(
+      List<Long> ids,
+      Map<Long, Item> items,
+      List<Long> missingIds,
+      Map<Long, Item> staleItems) {
+    // Read only the summary fields of each hash, in a single round trip.
+    // Deleted items have no hash, and are skipped when loading from the
+    // database.
+    List<Response<List<String>>> responses = new ArrayList<>();
+    try (AbstractPipeline pipeline = readJedis.pipelined()) {
+      for (Long id : ids) {
+        responses.add(
+            pipeline.hmget(hashKey(Long.toString(id)), CACHED_SUMMARY_FIELDS));
+      }
+      pipeline.sync();
+    }
+
+    for (int i = 0; i < ids.size(); i++) {
+      List<String> values = responses.get(i).get();
+      Item cachedItem = Item.fromSummaryFields(values);
+      if (cachedItem == null) {
+        missingIds.add(ids.get(i));
+      } else {
+        cachedItem.setFromCache(true);
+        addCached(cachedItem, values.get(4), items, missingIds, staleItems);
+      }
+    }
+  }
+
+  private void cacheMissing(String idString) {
+    // Only cache the tombstone if nothing is cached, so a miss read before a
+    // concurrent create can't hide the new item
+    try {
+      jedis.set(
+          idString, TOMBSTONE, SetParams.setParams().nx().ex(NEGATIVE_TTL));
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error with cache: " + e.getMessage());
+    }
+  }
+
+  void cacheTombstones(List<String> idStrings) {
+    idStrings.forEach(idString ->
+        hotKeyDetector.invalidate(Long.parseLong(idString)));
+
+    // Pipeline the writes so tombstoning many items takes a single round trip.
+    // Each item's tombstone and hash hash to the same slot, so in cluster mode
+    // the hashes are deleted with one DEL per slot.
+    Collection<List<String>> groups = clusterEnabled
+        ? groupBySlot(idStrings.toArray(new String[0]))
+        : List.of(idStrings);
+    try (AbstractPipeline pipeline = jedis.pipelined()) {
+      for (List<String> group : groups) {
+        for (String idString : group) {
+          pipeline.setex(idString, cacheTtl(DEFAULT_TTL), TOMBSTONE);
+        }
+        // As in cacheTombstone, the hashes are removed after the tombstones
+        if (isHashLayout()) {
+          pipeline.del(group.stream()
+              .map(DataController::hashKey)
+              .toArray(String[]::new));
+        }
+      }
+      pipeline.sync();
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error with cache: " + e.getMessage());
+    }
+  }
+
+  void cacheTombstone(String idString) {
+    hotKeyDetector.invalidate(Long.parseLong(idString));
+
+    // Use try-catch to avoid failing the request if there's an error with the
+    // cache
+    try {
+      // Keep the tombstone for as long as a cached copy of the deleted item
+      // could live, so a racing cache write of the old row is rejected for
+      // the whole of its TTL rather than only the first few seconds
+      jedis.setex(idString, cacheTtl(DEFAULT_TTL), TOMBSTONE);
+
+      // Remove the hash after the tombstone is set, so a concurrent cache
+      // write of the old row is rejected rather than recreating it
+      if (isHashLayout()) {
+        jedis.del(hashKey(idString));
+      }
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error with cache: " + e.getMessage());
+    }
+  }
+
+  private static String[] toStrings(List<Long> ids) {
+    return ids.stream().map(id -> Long.toString(id)).toArray(String[]::new);
   }
 }
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Hedges cache reads against occasional slow Valkey responses, e.g. while the
+ * primary forks for a snapshot. When enabled, a read goes to the primary
+ * first. If it hasn't answered within the p95 latency of recent primary reads,
+ * the same read is sent to the read client, which spreads reads across the
+ * replicas, and whichever answers first wins. The slower read still completes
+ * in the background, and its result is dropped.
+ *
+ * Hedges are capped by a budget, a percentage of all reads, so a primary that
+ * is slow for every read can't double the load on Valkey. Hedges sent and won
+ * are published as valkey.hedge.sent and valkey.hedge.won.
+ *
+ * Reads run on a pool of at most as many threads as there are pooled
+ * connections. Until the hedge delay is known, and whenever every thread is
+ * busy, the primary is read on the calling thread without a hedge, and a hedge
+ * that finds every thread busy isn't sent.
+ *
+ * When disabled, reads go straight to the read client. So do they when the
+ * read client is the primary itself, as a hedge would only be another read
+ * from the node that is already slow.
+ */
+
+package app;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import redis.clients.jedis.UnifiedJedis;
+
+final class HedgedReader implements AutoCloseable {
+
+  // Number of recent primary read latencies the p95 is taken over
+  private static final int SAMPLES = 1000;
+
+  // Reads aren't hedged until this many primary reads have been timed
+  private static final int MIN_SAMPLES = 100;
+
+  // How often the p95 is recomputed
+  private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  // Unused budget is kept for at most this many hedges, so a quiet period
+  // can't save up for a burst
+  private static final double MAX_TOKENS = 10;
+
+  // Result of whichever read answered first
+  private record Answer<T>(T result, boolean hedged) {}
+
+  private final UnifiedJedis primary;
+  private final UnifiedJedis readClient;
+  private final double budgetRatio;
+  private final long minDelayNanos;
+  private final ThreadPoolExecutor executor;
+  private final Counter sent;
+  private final Counter won;
+
+  // Ring of recent primary read latencies, in nanoseconds
+  private final long[] samples = new long[SAMPLES];
+  private int sampleCount;
+  private int nextSample;
+
+  // Hedges the budget currently allows
+  private double tokens;
+
+  private volatile long delayNanos = Long.MAX_VALUE;
+  private volatile long refreshedAt = System.nanoTime();
+
+  HedgedReader(
+      UnifiedJedis primary,
+      UnifiedJedis readClient,
+      boolean enabled,
+      double budgetPercent,
+      long minDelayMillis,
+      int maxThreads) {
+    this.primary = primary;
+    this.readClient = readClient;
+    this.budgetRatio = budgetPercent / 100;
+    this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+
+    if (!enabled || readClient == primary) {
+      executor = null;
+      sent = null;
+      won = null;
+      return;
+    }
+    // Reads are handed straight to an idle thread, and rejected rather than
+    // queued when every thread is busy
+    executor = new ThreadPoolExecutor(
+        maxThreads, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(runnable, "valkey-hedged-read");
+          thread.setDaemon(true);
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut(true);
+    sent = Counter.builder("valkey.hedge.sent")
+        .description("Reads duplicated to a replica after a slow primary")
+        .register(Metrics.globalRegistry);
+    won = Counter.builder("valkey.hedge.won")
+        .description("Hedged reads answered by the replica first")
+        .register(Metrics.globalRegistry);
+  }
+
+  <T> T read(Function<UnifiedJedis, T> command) {
+    if (executor == null) {
+      return command.apply(readClient);
+    }
+
+    long start = System.nanoTime();
+    earnToken();
+    if (start - refreshedAt > REFRESH_NANOS) {
+      refreshDelay();
+    }
+
+    // Reads can't be hedged until enough of them have been timed
+    if (delayNanos == Long.MAX_VALUE) {
+      return readPrimary(command, start);
+    }
+
+    CompletableFuture<T> primaryRead;
+    try {
+      primaryRead = CompletableFuture.supplyAsync(
+          () -> command.apply(primary), executor);
+    } catch (RejectedExecutionException e) {
+      // Every thread is busy, so read on this one without a hedge
+      return readPrimary(command, start);
+    }
+    // Slow reads are timed too, even when a hedge wins
+    primaryRead.thenRun(() -> record(System.nanoTime() - start));
+
+    try {
+      return primaryRead.get(delayNanos, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      if (!spendToken()) {
+        return join(primaryRead);
+      }
+    } catch (ExecutionException e) {
+      throw unwrap(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+
+    CompletableFuture<T> hedgeRead;
+    try {
+      hedgeRead = CompletableFuture.supplyAsync(
+          () -> command.apply(readClient), executor);
+    } catch (RejectedExecutionException e) {
+      // Every thread is busy, so wait for the primary
+      return join(primaryRead);
+    }
+    sent.increment();
+
+    // The first successful read wins. If both fail, the primary's error is
+    // thrown.
+    CompletableFuture<Answer<T>> first = new CompletableFuture<>();
+    primaryRead.thenAccept(
+        result -> first.complete(new Answer<>(result, false)));
+    hedgeRead.thenAccept(
+        result -> first.complete(new Answer<>(result, true)));
+    primaryRead.exceptionally(error -> {
+      hedgeRead.whenComplete((result, hedgeError) -> {
+        if (hedgeError != null) {
+          first.completeExceptionally(error);
+        }
+      });
+      return null;
+    });
+    Answer<T> answer = join(first);
+    if (answer.hedged()) {
+      won.increment();
+    }
+    return answer.result();
+  }
+
+  private <T> T readPrimary(Function<UnifiedJedis, T> command, long start) {
+    T result = command.apply(primary);
+    record(System.nanoTime() - start);
+    return result;
+  }
+
+  // Current hedge delay in nanoseconds, Long.MAX_VALUE until enough reads
+  // have been timed
+  long getDelayNanos() {
+    return delayNanos;
+  }
+
+  @Override
+  public void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  private synchronized void record(long nanos) {
+    samples[nextSample] = nanos;
+    nextSample = (nextSample + 1) % SAMPLES;
+    sampleCount = Math.min(sampleCount + 1, SAMPLES);
+  }
+
+  // Recomputes the hedge delay from the recent primary read latencies
+  synchronized void refreshDelay() {
+    refreshedAt = System.nanoTime();
+    if (sampleCount < MIN_SAMPLES) {
+      return;
+    }
+    long[] sorted = Arrays.copyOf(samples, sampleCount);
+    Arrays.sort(sorted);
+    long p95 = sorted[(int) Math.ceil(sampleCount * 0.95) - 1];
+    delayNanos = Math.max(minDelayNanos, p95);
+  }
+
+  private synchronized void earnToken() {
+    tokens = Math.min(MAX_TOKENS, tokens + budgetRatio);
+  }
+
+  private synchronized boolean spendToken() {
+    if (tokens < 1) {
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      throw unwrap(e.getCause());
+    }
+  }
+
+  private static RuntimeException unwrap(Throwable error) {
+    // Rethrow Valkey errors as if the read hadn't been hedged
+    if (error instanceof RuntimeException cause) {
+      return cause;
+    }
+    return new IllegalStateException(error);
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Finds the item IDs that take most of the reads and keeps an in-process copy
+ * of them, so skewed traffic doesn't all land on the Valkey node that owns
+ * those keys.
+ *
+ * A sample of reads is counted in a count-min sketch. IDs whose estimated
+ * count reaches the threshold within a window are promoted, and are then
+ * served from a local copy that expires after a short TTL. At the end of each
+ * window the counts are halved, and IDs whose estimate has fallen below half
+ * the threshold are demoted. Local copies are dropped when this instance
+ * updates or deletes the item; changes made elsewhere are seen once the copy
+ * expires.
+ */
+
+package app;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class HotKeyDetector {
+
+  // Rows and columns of the count-min sketch. Estimates only overcount, by
+  // about 2 / WIDTH of all sampled reads with high probability.
+  private static final int DEPTH = 4;
+  private static final int WIDTH = 4096;
+
+  @Value("${HOT_KEYS_ENABLED:false}")
+  private boolean enabled;
+
+  // Fraction of reads counted in the sketch
+  @Value("${HOT_KEYS_SAMPLE_RATE:0.1}")
+  private double sampleRate;
+
+  // Sampled reads within a window needed to promote an ID
+  @Value("${HOT_KEYS_THRESHOLD:100}")
+  private long threshold;
+
+  // Maximum number of IDs kept in the local replica
+  @Value("${HOT_KEYS_MAX:100}")
+  private int maxHotKeys;
+
+  // How long a local copy is served before it is read from Valkey again
+  @Value("${HOT_KEYS_LOCAL_TTL_MS:1000}")
+  private long localTtlMillis;
+
+  private final AtomicLongArray counts = new AtomicLongArray(DEPTH * WIDTH);
+  private final Map<Long, Boolean> hotKeys = new ConcurrentHashMap<>();
+  private final Map<Long, LocalCopy> localCopies = new ConcurrentHashMap<>();
+
+  public boolean isHot(long id) {
+    return hotKeys.containsKey(id);
+  }
+
+  public void record(long id) {
+    if (!enabled || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return;
+    }
+
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < DEPTH; row++) {
+      estimate = Math.min(estimate, counts.incrementAndGet(index(id, row)));
+    }
+
+    if (estimate >= threshold && hotKeys.size() < maxHotKeys) {
+      hotKeys.putIfAbsent(id, Boolean.TRUE);
+    }
+  }
+
+  public Item get(long id) {
+    if (!enabled) {
+      return null;
+    }
+
+    LocalCopy copy = localCopies.get(id);
+    if (copy == null) {
+      return null;
+    }
+    if (copy.expiresAt < System.currentTimeMillis()) {
+      localCopies.remove(id, copy);
+      return null;
+    }
+    return copy.item;
+  }
+
+  public void put(Item item) {
+    // Only hot IDs are copied locally
+    if (enabled && isHot(item.getId())) {
+      localCopies.put(
+          item.getId(),
+          new LocalCopy(item, System.currentTimeMillis() + localTtlMillis));
+    }
+  }
+
+  public void invalidate(long id) {
+    localCopies.remove(id);
+  }
+
+  @Scheduled(fixedDelayString = "${HOT_KEYS_WINDOW_MS:10000}")
+  public void decay() {
+    if (!enabled) {
+      return;
+    }
+
+    // Halve every count, so reads in older windows weigh less and less
+    for (int i = 0; i < counts.length(); i++) {
+      counts.getAndUpdate(i, count -> count >> 1);
+    }
+
+    // Demote IDs that have cooled down. Using half the threshold keeps IDs
+    // near it from being promoted and demoted every window.
+    for (Long id : hotKeys.keySet()) {
+      if (estimate(id) < threshold / 2) {
+        hotKeys.remove(id);
+        localCopies.remove(id);
+      }
+    }
+  }
+
+  private long estimate(long id) {
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < DEPTH; row++) {
+      estimate = Math.min(estimate, counts.get(index(id, row)));
+    }
+    return estimate;
+  }
+
+  private static int index(long id, int row) {
+    // Each row uses a different seed, so IDs colliding in one row rarely
+    // collide in the others
+    long hash = ItemBloomFilter.mix(id ^ (0x9E3779B97F4A7C15L * (row + 1)));
+    return row * WIDTH + (int) Math.floorMod(hash, (long) WIDTH);
+  }
+
+  private static final class LocalCopy {
+
+    private final Item item;
+    private final long expiresAt;
+
+    LocalCopy(Item item, long expiresAt) {
+      this.item = item;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
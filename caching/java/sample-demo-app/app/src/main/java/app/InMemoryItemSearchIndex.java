@@ -0,0 +1,121 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/**
+ * In-process inverted index from terms to item IDs, for running search
+ * locally without the Postgres index. It is built from the database on
+ * startup and then updated as items are created, updated and deleted through
+ * this instance, so changes made by other instances or directly in the
+ * database aren't seen until the next restart.
+ *
+ * Matches are returned in ID order rather than by relevance.
+ */
+
+package app;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "ITEM_SEARCH_INDEX", havingValue = "memory")
+public class InMemoryItemSearchIndex implements ItemSearchIndex {
+
+  private final ItemsRepository itemsRepository;
+
+  // Term to the IDs of items containing it, in ID order
+  private final Map<String, NavigableSet<Long>> postings =
+      new ConcurrentHashMap<>();
+
+  // Item ID to its indexed terms, so they can be removed again
+  private final Map<Long, List<String>> itemTerms = new ConcurrentHashMap<>();
+
+  public InMemoryItemSearchIndex(ItemsRepository itemsRepository) {
+    this.itemsRepository = itemsRepository;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void build() {
+    itemsRepository.forEachItem(this::add);
+  }
+
+  @Override
+  public List<Long> search(List<String> terms, int limit) {
+    List<NavigableSet<Long>> sets = new ArrayList<>();
+    for (String term : terms) {
+      NavigableSet<Long> ids = postings.get(term);
+      if (ids == null) {
+        return List.of();
+      }
+      sets.add(ids);
+    }
+    if (sets.isEmpty()) {
+      return List.of();
+    }
+
+    // Walk the rarest term's IDs and keep those every other term contains
+    sets.sort(Comparator.comparingInt(NavigableSet::size));
+    List<Long> matches = new ArrayList<>();
+    for (Long id : sets.get(0)) {
+      if (sets.stream().allMatch(ids -> ids.contains(id))) {
+        matches.add(id);
+        if (matches.size() == limit) {
+          break;
+        }
+      }
+    }
+    return matches;
+  }
+
+  @Override
+  public synchronized void add(Item item) {
+    remove(item.getId());
+
+    List<String> terms = ItemSearchIndex.terms(
+        item.getName() + " " + item.getDescription());
+    for (String term : terms) {
+      postings
+          .computeIfAbsent(term, key -> new ConcurrentSkipListSet<>())
+          .add(item.getId());
+    }
+    itemTerms.put(item.getId(), terms);
+  }
+
+  @Override
+  public synchronized void remove(long id) {
+    List<String> terms = itemTerms.remove(id);
+    if (terms == null) {
+      return;
+    }
+
+    for (String term : terms) {
+      NavigableSet<Long> ids = postings.get(term);
+      if (ids != null) {
+        ids.remove(id);
+        if (ids.isEmpty()) {
+          postings.remove(term);
+        }
+      }
+    }
+  }
+}
@@ -22,6 +22,9 @@ package app;
 
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.json.JSONObject;
 
 public class Item {
@@ -38,17 +41,27 @@ public class Item {
   @Positive
   private final Double price;
 
+  private final Long version;
+
   private boolean fromCache;
 
+  private boolean stale;
+
   public Item() {
     this(null, "", "", null);
   }
 
   public Item(Long id, String name, String description, Double price) {
+    this(id, name, description, price, null);
+  }
+
+  public Item(
+      Long id, String name, String description, Double price, Long version) {
     this.id = id;
     this.name = name;
     this.description = description;
     this.price = price;
+    this.version = version;
     this.fromCache = false;
   }
 
@@ -72,6 +85,10 @@ public class Item {
     return this.price;
   }
 
+  public Long getVersion() {
+    return this.version;
+  }
+
   public boolean isFromCache() {
     return this.fromCache;
   }
@@ -80,23 +97,85 @@ public class Item {
     this.fromCache = fromCache;
   }
 
+  public boolean isStale() {
+    return this.stale;
+  }
+
+  public void setStale(boolean stale) {
+    this.stale = stale;
+  }
+
   public JSONObject toJsonObject() {
     JSONObject obj = new JSONObject();
     obj.put("id", this.id);
     obj.put("name", this.name);
     obj.put("description", this.description);
     obj.put("price", this.price);
+    obj.put("version", this.version);
     obj.put("fromCache", this.fromCache);
+    obj.put("stale", this.stale);
 
     return obj;
   }
 
   public static Item fromJsonString(String obj) {
-    JSONObject jsonObject = new JSONObject(obj);
+    return fromJsonObject(new JSONObject(obj));
+  }
+
+  public static Item fromJsonObject(JSONObject jsonObject) {
     return new Item(
         jsonObject.getLong("id"),
         jsonObject.getString("name"),
         jsonObject.getString("description"),
-        jsonObject.getDouble("price"));
+        jsonObject.getDouble("price"),
+        jsonObject.has("version") ? jsonObject.getLong("version") : null);
+  }
+
+  public Map<String, String> toMap() {
+    Map<String, String> map = new HashMap<>();
+    map.put("id", Long.toString(this.id));
+    map.put("name", this.name);
+    map.put("description", this.description);
+    map.put("price", Double.toString(this.price));
+    if (this.version != null) {
+      map.put("version", Long.toString(this.version));
+    }
+    return map;
+  }
+
+  public Item toSummary() {
+    // Same item without the description, for list views
+    Item summary = new Item(this.id, this.name, null, this.price, this.version);
+    summary.fromCache = this.fromCache;
+    summary.stale = this.stale;
+    return summary;
+  }
+
+  public static Item fromMap(Map<String, String> map) {
+    // An empty hash means the item isn't cached
+    if (map == null || map.isEmpty()) {
+      return null;
+    }
+
+    return new Item(
+        Long.parseLong(map.get("id")),
+        map.get("name"),
+        map.get("description"),
+        Double.parseDouble(map.get("price")),
+        map.containsKey("version") ? Long.parseLong(map.get("version")) : null);
+  }
+
+  public static Item fromSummaryFields(List<String> values) {
+    // HMGET of id, name, price and version, all null if not cached
+    if (values == null || values.get(0) == null) {
+      return null;
+    }
+
+    return new Item(
+        Long.parseLong(values.get(0)),
+        values.get(1),
+        null,
+        Double.parseDouble(values.get(2)),
+        values.get(3) != null ? Long.parseLong(values.get(3)) : null);
   }
 }
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/**
+ * Optional Bloom filter of valid item IDs, stored in Valkey as a bitmap so
+ * every app instance shares it. A negative answer means the item definitely
+ * doesn't exist, so lookups for unknown IDs can skip both the cache and the
+ * database.
+ *
+ * The filter is rebuilt from the database on startup and periodically, and
+ * new IDs are added on create. Each instance keeps a local copy of the bits,
+ * with the IDs it has added since, so IDs it knows of are answered without a
+ * round trip to Valkey. Only IDs missing from the local copy are checked
+ * against the shared filter, which also has the IDs other instances added.
+ * Deleted IDs can't be removed from a Bloom filter; they are covered by cache
+ * tombstones until the next rebuild. If the filter is disabled, missing or
+ * unreachable, every ID is treated as possibly existing.
+ */
+
+package app;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.UnifiedJedis;
+
+@Component
+public class ItemBloomFilter {
+
+  // The hash tag keeps the filter and its build key in the same cluster slot,
+  // so one can be renamed to the other
+  public static final String FILTER_KEY = "items:{bloom}";
+
+  // Returns 1 if every bit is set or the filter doesn't exist yet, 0 otherwise
+  private static final String MIGHT_CONTAIN_SCRIPT =
+      "if redis.call('EXISTS', KEYS[1]) == 0 then return 1 end "
+          + "for i = 1, #ARGV do "
+          + "if redis.call('GETBIT', KEYS[1], ARGV[i]) == 0 then return 0 end "
+          + "end "
+          + "return 1";
+
+  // Only sets bits on an existing filter, so a filter that was evicted isn't
+  // recreated with just a few IDs in it
+  private static final String ADD_SCRIPT =
+      "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end "
+          + "for i = 1, #ARGV do redis.call('SETBIT', KEYS[1], ARGV[i], 1) end "
+          + "return 1";
+
+  private final ItemsRepository itemsRepository;
+  private final UnifiedJedis jedis;
+
+  // Local copy of the filter, null until it's first built
+  private volatile byte[] localBits;
+
+  @Value("${ITEM_BLOOM_FILTER_ENABLED:false}")
+  private boolean enabled;
+
+  // 2^24 bits (2 MiB) keeps false positives around 1% for ~1.7M items
+  @Value("${ITEM_BLOOM_FILTER_BITS:16777216}")
+  private long totalBits;
+
+  @Value("${ITEM_BLOOM_FILTER_HASHES:7}")
+  private int totalHashes;
+
+  public ItemBloomFilter(ItemsRepository itemsRepository, UnifiedJedis jedis) {
+    this.itemsRepository = itemsRepository;
+    this.jedis = jedis;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public boolean mightContain(long id) {
+    if (!enabled) {
+      return true;
+    }
+
+    // A negative local answer may only mean the ID was added elsewhere, so
+    // it's checked against the shared filter
+    byte[] bits = localBits;
+    if (bits != null && isSet(bits, id)) {
+      return true;
+    }
+
+    try {
+      Object result = jedis.eval(
+          MIGHT_CONTAIN_SCRIPT, List.of(FILTER_KEY), getOffsets(id));
+      return !Long.valueOf(0).equals(result);
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error with cache: " + e.getMessage());
+      return true;
+    }
+  }
+
+  public void add(long id) {
+    if (!enabled) {
+      return;
+    }
+
+    setLocal(id);
+    try {
+      jedis.eval(ADD_SCRIPT, List.of(FILTER_KEY), getOffsets(id));
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error with cache: " + e.getMessage());
+    }
+  }
+
+  public void addAll(Collection<Long> ids) {
+    if (!enabled || ids.isEmpty()) {
+      return;
+    }
+
+    ids.forEach(this::setLocal);
+
+    // Pipeline the scripts so adding many IDs takes a single round trip
+    try (AbstractPipeline pipeline = jedis.pipelined()) {
+      for (long id : ids) {
+        pipeline.eval(ADD_SCRIPT, List.of(FILTER_KEY), getOffsets(id));
+      }
+      pipeline.sync();
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error with cache: " + e.getMessage());
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      initialDelayString = "${ITEM_BLOOM_FILTER_REBUILD_MS:3600000}",
+      fixedDelayString = "${ITEM_BLOOM_FILTER_REBUILD_MS:3600000}")
+  public void rebuild() {
+    if (!enabled) {
+      return;
+    }
+    if (totalBits <= 0 || totalBits % 8 != 0 || totalHashes <= 0) {
+      throw new IllegalArgumentException(
+          "Bloom filter size (ITEM_BLOOM_FILTER_BITS) must be a positive "
+              + "multiple of 8 and ITEM_BLOOM_FILTER_HASHES must be positive");
+    }
+
+    try {
+      // Build the bitmap locally
+      byte[] bitmap = new byte[(int) (totalBits / 8)];
+      long maxId = itemsRepository.forEachId(0, id -> set(bitmap, id));
+
+      // Swap the new filter in atomically
+      String buildKey = FILTER_KEY + ":build";
+      jedis.set(buildKey.getBytes(), bitmap);
+      jedis.rename(buildKey, FILTER_KEY);
+      localBits = bitmap;
+
+      // Add items created while the filter was being built
+      itemsRepository.forEachId(maxId, this::add);
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error rebuilding item filter: " + e.getMessage());
+    }
+  }
+
+  private void setLocal(long id) {
+    // Concurrent adds may lose a bit, which only costs a check of the shared
+    // filter
+    byte[] bits = localBits;
+    if (bits != null) {
+      set(bits, id);
+    }
+  }
+
+  private void set(byte[] bits, long id) {
+    // Most significant bit first, like SETBIT
+    for (long offset : getOffsetValues(id)) {
+      bits[(int) (offset / 8)] |= (byte) (0x80 >>> (offset % 8));
+    }
+  }
+
+  private boolean isSet(byte[] bits, long id) {
+    for (long offset : getOffsetValues(id)) {
+      if ((bits[(int) (offset / 8)] & (0x80 >>> (offset % 8))) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private List<String> getOffsets(long id) {
+    List<String> offsets = new ArrayList<>(totalHashes);
+    for (long offset : getOffsetValues(id)) {
+      offsets.add(Long.toString(offset));
+    }
+    return offsets;
+  }
+
+  private long[] getOffsetValues(long id) {
+    // Double hashing derives every bit position from two 64-bit hashes
+    long hash1 = mix(id);
+    long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+
+    long[] offsets = new long[totalHashes];
+    for (int i = 0; i < totalHashes; i++) {
+      offsets[i] = Math.floorMod(hash1 + i * hash2, totalBits);
+    }
+    return offsets;
+  }
+
+  static long mix(long value) {
+    // MurmurHash3 64-bit finalizer
+    value ^= value >>> 33;
+    value *= 0xFF51AFD7ED558CCDL;
+    value ^= value >>> 33;
+    value *= 0xC4CEB9FE1A85EC53L;
+    value ^= value >>> 33;
+    return value;
+  }
+}
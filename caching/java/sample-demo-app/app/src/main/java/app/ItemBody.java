@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Wire-ready response body of an item. Items are cached as the JSON that
+ * GET /item/{id} returns, with the fromCache flag false, so
+ * a cache hit only has to flip the flag rather than parse the item and encode
+ * it again.
+ */
+
+package app;
+
+import java.nio.charset.StandardCharsets;
+
+public class ItemBody {
+
+  // Quotes inside JSON strings are escaped, so these can only match the
+  // fields themselves
+  private static final byte[] NOT_FROM_CACHE =
+      "\"fromCache\":false".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] FROM_CACHE =
+      "\"fromCache\":true".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] VERSION =
+      "\"version\":".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] EXPIRES_AT =
+      ("\"" + DataController.EXPIRES_AT_FIELD + "\":")
+          .getBytes(StandardCharsets.UTF_8);
+
+  private final byte[] bytes;
+  private final Long version;
+
+  private ItemBody(byte[] bytes, Long version) {
+    this.bytes = bytes;
+    this.version = version;
+  }
+
+  public byte[] getBytes() {
+    return this.bytes;
+  }
+
+  public Long getVersion() {
+    return this.version;
+  }
+
+  public static ItemBody fromItem(Item item) {
+    if (item == null) {
+      return null;
+    }
+    return new ItemBody(
+        item.toJsonObject().toString().getBytes(StandardCharsets.UTF_8),
+        item.getVersion());
+  }
+
+  public static ItemBody fromCached(byte[] cached) {
+    // Tombstones have no flag, and items cached with a logical expiry have to
+    // be checked against it, so neither is wire-ready
+    int flag = indexOf(cached, NOT_FROM_CACHE);
+    if (flag < 0 || indexOf(cached, EXPIRES_AT) >= 0) {
+      return null;
+    }
+
+    // Splice the flag in, keeping the rest of the bytes as they were cached
+    int rest = flag + NOT_FROM_CACHE.length;
+    byte[] bytes = new byte[flag + FROM_CACHE.length + cached.length - rest];
+    System.arraycopy(cached, 0, bytes, 0, flag);
+    System.arraycopy(FROM_CACHE, 0, bytes, flag, FROM_CACHE.length);
+    System.arraycopy(
+        cached, rest, bytes, flag + FROM_CACHE.length, cached.length - rest);
+
+    return new ItemBody(bytes, parseVersion(cached));
+  }
+
+  private static Long parseVersion(byte[] cached) {
+    // Items cached before versions existed have no version field
+    int start = indexOf(cached, VERSION);
+    if (start < 0) {
+      return null;
+    }
+
+    long version = 0;
+    int digits = 0;
+    for (int i = start + VERSION.length;
+        i < cached.length && cached[i] >= '0' && cached[i] <= '9'; i++) {
+      version = version * 10 + (cached[i] - '0');
+      digits++;
+    }
+    return digits > 0 ? version : null;
+  }
+
+  private static int indexOf(byte[] bytes, byte[] pattern) {
+    for (int i = 0; i <= bytes.length - pattern.length; i++) {
+      int j = 0;
+      while (j < pattern.length && bytes[i + j] == pattern[j]) {
+        j++;
+      }
+      if (j == pattern.length) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/**
+ * Invalidates cached items when the items table changes outside the
+ * application, e.g. from batch jobs or the sample data loader. A trigger in
+ * init.sql sends a NOTIFY for every inserted, updated or deleted row. This
+ * listener deletes tombstones of inserted items, leaving items already cached
+ * by the application alone, re-caches updated items from the database and
+ * replaces deleted items with tombstones. Updated and deleted
+ * entries are overwritten rather than deleted, so a request that read the old
+ * row just before the change can't cache it again afterwards. Bulk loads that
+ * skip the trigger send a single REBUILD instead, which rebuilds the item
+ * filter so the loaded IDs can be found.
+ *
+ * The listener holds one connection from the pool for as long as it runs. If
+ * the connection drops, it reconnects; changes made while it was disconnected
+ * are only corrected when their cache entries expire.
+ */
+
+package app;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.UnifiedJedis;
+
+@Component
+public class ItemChangeListener {
+
+  public static final String CHANNEL = "item_changes";
+
+  // Maximum number of keys deleted or tombstoned, or rows re-read, in a single
+  // command
+  public static final int MAX_BATCH_SIZE = 500;
+
+  // Deletes each key only if it still holds a tombstone, so an item cached
+  // since it was inserted, e.g. by create(), is kept
+  static final String DELETE_TOMBSTONES_SCRIPT =
+      "for _, key in ipairs(KEYS) do "
+          + "  if redis.call('GET', key) == '' then redis.call('DEL', key) end "
+          + "end "
+          + "return 1";
+
+  private static final String INSERT_OPERATION = "INSERT";
+  private static final String DELETE_OPERATION = "DELETE";
+  private static final String REBUILD_OPERATION = "REBUILD";
+
+  private final DataSource dataSource;
+  private final UnifiedJedis jedis;
+  private final ItemBloomFilter itemBloomFilter;
+  private final DataController dataController;
+
+  @Value("${ITEM_CHANGE_LISTENER_ENABLED:true}")
+  private boolean enabled;
+
+  // How long to wait for notifications before checking the connection
+  @Value("${ITEM_CHANGE_LISTENER_POLL_MS:1000}")
+  private int pollMillis;
+
+  // In cluster mode, a script only runs on keys in the same slot
+  @Value("${VALKEY_CLUSTER_ENABLED:false}")
+  private boolean clusterEnabled;
+
+  private volatile boolean running;
+  private Thread thread;
+
+  public ItemChangeListener(
+      DataSource dataSource,
+      UnifiedJedis jedis,
+      ItemBloomFilter itemBloomFilter,
+      DataController dataController) {
+    this.dataSource = dataSource;
+    this.jedis = jedis;
+    this.itemBloomFilter = itemBloomFilter;
+    this.dataController = dataController;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void start() {
+    if (!enabled || running) {
+      return;
+    }
+
+    running = true;
+    thread = new Thread(this::run, "item-change-listener");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @PreDestroy
+  public synchronized void stop() {
+    running = false;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  private void run() {
+    while (running) {
+      try (Connection connection = dataSource.getConnection()) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + CHANNEL);
+        }
+
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+          PGNotification[] notifications =
+              pgConnection.getNotifications(pollMillis);
+          if (notifications != null && notifications.length > 0) {
+            handle(notifications);
+          }
+        }
+      } catch (Exception e) {
+        System.err.println(
+            "Error listening for item changes: " + e.getMessage());
+        sleepBeforeReconnect();
+      }
+    }
+  }
+
+  void handle(PGNotification[] notifications) {
+    // Collapse repeated changes to the same item, keeping the last operation
+    Set<String> insertedIds = new LinkedHashSet<>();
+    Map<String, String> lastOperations = new LinkedHashMap<>();
+    boolean rebuild = false;
+    for (PGNotification notification : notifications) {
+      if (REBUILD_OPERATION.equals(notification.getParameter())) {
+        rebuild = true;
+        continue;
+      }
+
+      String[] change = notification.getParameter().split(":", 2);
+      if (change.length != 2) {
+        continue;
+      }
+
+      lastOperations.put(change[1], change[0]);
+
+      // Newly inserted IDs must be in the filter before lookups can find them
+      if (INSERT_OPERATION.equals(change[0])) {
+        insertedIds.add(change[1]);
+        itemBloomFilter.add(Long.parseLong(change[1]));
+      }
+    }
+
+    // Remove tombstones cached while the inserted items didn't exist yet
+    deleteTombstones(insertedIds.toArray(new String[0]));
+
+    List<String> deletedIds = new ArrayList<>();
+    List<Long> updatedIds = new ArrayList<>();
+    for (Map.Entry<String, String> entry : lastOperations.entrySet()) {
+      if (DELETE_OPERATION.equals(entry.getValue())) {
+        deletedIds.add(entry.getKey());
+      } else if (!INSERT_OPERATION.equals(entry.getValue())) {
+        updatedIds.add(Long.parseLong(entry.getKey()));
+      }
+    }
+    cacheTombstones(deletedIds);
+    refresh(updatedIds);
+
+    if (rebuild) {
+      itemBloomFilter.rebuild();
+    }
+  }
+
+  private void deleteTombstones(String[] ids) {
+    // Use try-catch to keep listening if there's an error with the cache
+    try {
+      for (int start = 0; start < ids.length; start += MAX_BATCH_SIZE) {
+        int end = Math.min(start + MAX_BATCH_SIZE, ids.length);
+        List<String> batch = List.of(ids).subList(start, end);
+        if (clusterEnabled) {
+          deleteTombstonesBySlot(batch);
+        } else {
+          jedis.eval(DELETE_TOMBSTONES_SCRIPT, batch, List.of());
+        }
+      }
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error with cache: " + e.getMessage());
+    }
+  }
+
+  private void deleteTombstonesBySlot(List<String> keys) {
+    // Run the script once per slot, pipelined so each node takes a single
+    // round trip
+    try (AbstractPipeline pipeline = jedis.pipelined()) {
+      for (List<String> group :
+          DataController.groupBySlot(keys.toArray(new String[0]))) {
+        pipeline.eval(DELETE_TOMBSTONES_SCRIPT, group, List.of());
+      }
+      pipeline.sync();
+    }
+  }
+
+  private void cacheTombstones(List<String> ids) {
+    for (int start = 0; start < ids.size(); start += MAX_BATCH_SIZE) {
+      int end = Math.min(start + MAX_BATCH_SIZE, ids.size());
+      dataController.cacheTombstones(ids.subList(start, end));
+    }
+  }
+
+  private void refresh(List<Long> ids) {
+    for (int start = 0; start < ids.size(); start += MAX_BATCH_SIZE) {
+      int end = Math.min(start + MAX_BATCH_SIZE, ids.size());
+      dataController.refresh(ids.subList(start, end));
+    }
+  }
+
+  private void sleepBeforeReconnect() {
+    try {
+      Thread.sleep(pollMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+}
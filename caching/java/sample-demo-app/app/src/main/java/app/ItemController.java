@@ -17,23 +17,41 @@
 /**
  * Provides a RESTful API for interacting with the application's data.
  *
- * The controller contains three routes:
+ * The controller contains seven routes:
+ * - GET /item?after={id}&limit={limit} - Get a page of items in ID order
+ * - GET /item/search?q={query}&limit={limit} - Search item names and
+ *   descriptions
  * - GET /item/{id} - Get an item by ID
  * - POST /item/create - Create a new item
+ * - POST /item/bulk - Create many items from a JSON array
+ * - PUT /item/{id} - Update an item by ID
  * - DELETE /item/delete/{id} - Delete an item by ID
  */
 
 package app;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONArray;
 import org.json.JSONObject;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -42,21 +60,78 @@ public class ItemController {
 
   public static final int TOTAL_RANDOM_ITEMS = 10;
 
+  public static final int DEFAULT_PAGE_SIZE = 20;
+  public static final int MAX_PAGE_SIZE = 100;
+
+  // Items created with a single insert and cached in a single pipeline
+  public static final int BULK_CHUNK_SIZE = 1000;
+
   private final DataController dataController;
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
 
-  public ItemController(DataController dataController) {
+  public ItemController(
+      DataController dataController,
+      ObjectMapper objectMapper,
+      Validator validator) {
     this.dataController = dataController;
+    this.objectMapper = objectMapper;
+    this.validator = validator;
+  }
+
+  @GetMapping
+  public ResponseEntity<String> list(
+      @RequestParam(defaultValue = "0") long after,
+      @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+    if (after < 0 || limit < 1 || limit > MAX_PAGE_SIZE) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    ItemPage page = dataController.getPage(after, limit);
+    return ResponseEntity.ok(page.toJsonObject().toString());
+  }
+
+  @GetMapping("/search")
+  public ResponseEntity<String> search(
+      @RequestParam String q,
+      @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    JSONArray items = new JSONArray();
+    for (Item item : dataController.search(q, limit)) {
+      items.put(item.toJsonObject());
+    }
+    return ResponseEntity.ok(new JSONObject().put("items", items).toString());
   }
 
   @GetMapping("/{id}")
-  public ResponseEntity<String> read(@PathVariable Long id) {
-    Item item = dataController.get(id);
+  public ResponseEntity<byte[]> read(@PathVariable Long id) {
+    // Cached items are returned as the bytes that were cached, without
+    // parsing and encoding them again
+    ItemBody body = dataController.getBody(id);
 
-    if (item == null) {
+    if (body == null) {
       return ResponseEntity.notFound().build();
     }
 
-    return ResponseEntity.ok(item.toJsonObject().toString());
+    return itemResponse(body.getBytes(), body.getVersion());
+  }
+
+  private static ResponseEntity<byte[]> itemResponse(
+      byte[] body, Long version) {
+    // The item_version trigger bumps the version on every update, even ones
+    // made outside the application, so it identifies the item's content. The
+    // ETag is weak since the fromCache and stale flags can differ between
+    // reads. A request whose If-None-Match matches gets 304 Not Modified,
+    // without a body.
+    ResponseEntity.BodyBuilder response =
+        ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+    if (version != null) {
+      response.eTag("W/\"" + version + "\"");
+    }
+    return response.body(body);
   }
 
   @GetMapping("/random")
@@ -83,6 +158,68 @@ public class ItemController {
         JSONObject.valueToString(new JSONObject().put("id", itemId)));
   }
 
+  @PostMapping("/bulk")
+  public ResponseEntity<String> bulkCreate(HttpServletRequest request)
+      throws IOException {
+    // Read the array one item at a time, so large imports aren't held in
+    // memory, and create the items a chunk at a time
+    List<Long> ids = new ArrayList<>();
+    List<Item> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+    try (JsonParser parser =
+        objectMapper.createParser(request.getInputStream())) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        return bulkError("Expected a JSON array of items", ids);
+      }
+
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        Item item = objectMapper.readValue(parser, Item.class);
+        if (!validator.validate(item).isEmpty()) {
+          return bulkError(
+              "Item " + (ids.size() + chunk.size()) + " is invalid", ids);
+        }
+        chunk.add(
+            new Item(item.getName(), item.getDescription(), item.getPrice()));
+
+        if (chunk.size() == BULK_CHUNK_SIZE) {
+          ids.addAll(dataController.createAll(chunk));
+          chunk.clear();
+        }
+      }
+      if (parser.currentToken() != JsonToken.END_ARRAY) {
+        return bulkError("Expected a JSON array of items", ids);
+      }
+    } catch (JsonProcessingException e) {
+      return bulkError("Malformed JSON: " + e.getOriginalMessage(), ids);
+    }
+
+    if (!chunk.isEmpty()) {
+      ids.addAll(dataController.createAll(chunk));
+    }
+    return ResponseEntity.ok(new JSONObject().put("ids", ids).toString());
+  }
+
+  private static ResponseEntity<String> bulkError(
+      String message, List<Long> ids) {
+    // Chunks before the error have already been created, so return their IDs
+    // for the client to resume from
+    return ResponseEntity.badRequest().body(
+        new JSONObject().put("error", message).put("ids", ids).toString());
+  }
+
+  @PutMapping("/{id}")
+  public ResponseEntity<String> update(
+      @PathVariable long id, @Valid @RequestBody Item item) {
+    Long version = dataController.update(id, item);
+
+    if (version == null) {
+      return ResponseEntity.notFound().build();
+    }
+
+    return ResponseEntity.ok(
+        JSONObject.valueToString(
+            new JSONObject().put("id", id).put("version", version)));
+  }
+
   @DeleteMapping("/delete/{id}")
   public ResponseEntity<String> delete(@PathVariable long id) {
     dataController.delete(id);
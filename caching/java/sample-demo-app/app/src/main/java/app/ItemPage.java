@@ -0,0 +1,60 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Data class representing a page of items in ID order, with the cursor to
+ * request the next page from.
+ */
+
+package app;
+
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+public class ItemPage {
+
+  private final List<Item> items;
+
+  // Last ID of this page, or null if there are no more pages
+  private final Long next;
+
+  public ItemPage(List<Item> items, Long next) {
+    this.items = items;
+    this.next = next;
+  }
+
+  public List<Item> getItems() {
+    return this.items;
+  }
+
+  public Long getNext() {
+    return this.next;
+  }
+
+  public JSONObject toJsonObject() {
+    JSONArray array = new JSONArray();
+    for (Item item : this.items) {
+      array.put(item.toJsonObject());
+    }
+
+    JSONObject obj = new JSONObject();
+    obj.put("items", array);
+    obj.put("next", this.next);
+
+    return obj;
+  }
+}
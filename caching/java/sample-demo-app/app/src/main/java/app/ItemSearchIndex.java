@@ -0,0 +1,54 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/**
+ * Secondary index for full-text search over item names and descriptions.
+ *
+ * Postgres is the default, using a generated tsvector column with a GIN index.
+ * Set ITEM_SEARCH_INDEX=memory to use an in-process inverted index instead,
+ * e.g. for local development and tests.
+ */
+
+package app;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public interface ItemSearchIndex {
+
+  // Returns the IDs of up to limit items matching every term, best first
+  List<Long> search(List<String> terms, int limit);
+
+  // Adds an item, or replaces the indexed terms of an existing one
+  void add(Item item);
+
+  void remove(long id);
+
+  // Splits text into lowercase terms, without duplicates and in sorted order,
+  // so equivalent queries normalize to the same terms
+  static List<String> terms(String text) {
+    if (text == null) {
+      return List.of();
+    }
+
+    return Arrays.stream(
+            text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+        .filter(term -> !term.isEmpty())
+        .distinct()
+        .sorted()
+        .toList();
+  }
+}
@@ -21,11 +21,19 @@
 package app;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
@@ -33,6 +41,14 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class ItemsRepository {
 
+  // Rows read per round trip when streaming the whole table
+  private static final int FETCH_SIZE = 1000;
+
+  // Columns read into an item. The generated search column is left out, since
+  // it's usually larger than the description and only used by search().
+  private static final String ITEM_COLUMNS =
+      "id, name, description, price, version";
+
   private final JdbcTemplate jdbcTemplate;
 
   public ItemsRepository(JdbcTemplate jdbcTemplate) {
@@ -43,12 +59,8 @@ public class ItemsRepository {
     try {
       return Optional.ofNullable(
           jdbcTemplate.queryForObject(
-              "SELECT * FROM items WHERE id = ?",
-              (rs, rowNum) -> new Item(
-                  rs.getLong("id"),
-                  rs.getString("name"),
-                  rs.getString("description"),
-                  rs.getDouble("price")),
+              "SELECT " + ITEM_COLUMNS + " FROM items WHERE id = ?",
+              (rs, rowNum) -> toItem(rs),
               id));
     } catch (EmptyResultDataAccessException e) {
       return Optional.empty();
@@ -57,15 +69,43 @@ public class ItemsRepository {
 
   public List<Item> getMultiple(int amount) {
     return jdbcTemplate.query(
-        "SELECT * FROM items ORDER BY random() LIMIT ?",
-        (rs, rowNum) -> new Item(
-            rs.getLong("id"),
-            rs.getString("name"),
-            rs.getString("description"),
-            rs.getDouble("price")),
+        "SELECT " + ITEM_COLUMNS + " FROM items ORDER BY random() LIMIT ?",
+        (rs, rowNum) -> toItem(rs),
         amount);
   }
 
+  public List<Long> getIdsAfter(long afterId, int limit) {
+    // Keyset pagination on the primary key, so deep pages are as cheap as the
+    // first one
+    return jdbcTemplate.queryForList(
+        "SELECT id FROM items WHERE id > ? ORDER BY id LIMIT ?",
+        Long.class,
+        afterId,
+        limit);
+  }
+
+  public List<Long> search(String terms, int limit) {
+    // Uses the GIN index on the generated search column, best matches first
+    return jdbcTemplate.queryForList(
+        "SELECT id FROM items, plainto_tsquery('english', ?) query "
+            + "WHERE search @@ query "
+            + "ORDER BY ts_rank(search, query) DESC, id LIMIT ?",
+        Long.class,
+        terms,
+        limit);
+  }
+
+  public List<Item> getByIds(Collection<Long> ids) {
+    return jdbcTemplate.query(
+        connection -> {
+          PreparedStatement ps = connection.prepareStatement(
+              "SELECT " + ITEM_COLUMNS + " FROM items WHERE id = ANY(?)");
+          ps.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+          return ps;
+        },
+        (rs, rowNum) -> toItem(rs));
+  }
+
   public long create(Item item) {
     String name = item.getName();
     String description = item.getDescription();
@@ -101,6 +141,57 @@ public class ItemsRepository {
     return key.longValue();
   }
 
+  public List<Long> createAll(List<Item> items) {
+    // A single insert of every row, passed as one array per column so the
+    // statement doesn't grow with the number of items. RETURNING doesn't
+    // promise any order, so the IDs are drawn from the sequence alongside each
+    // row's position in the arrays and placed by that position.
+    Long[] ids = new Long[items.size()];
+    jdbcTemplate.query(
+        connection -> {
+          PreparedStatement ps = connection.prepareStatement(
+              "WITH new_items AS ("
+                  + "SELECT nextval(pg_get_serial_sequence('items', 'id')) "
+                  + "AS id, n.* "
+                  + "FROM unnest(?::text[], ?::text[], ?::float8[]) "
+                  + "WITH ORDINALITY "
+                  + "AS n(name, description, price, position)), "
+                  + "inserted AS ("
+                  + "INSERT INTO items (id, name, description, price) "
+                  + "SELECT id, name, description, price FROM new_items) "
+                  + "SELECT position, id FROM new_items");
+          ps.setArray(1, connection.createArrayOf("text",
+              items.stream().map(Item::getName).toArray()));
+          ps.setArray(2, connection.createArrayOf("text",
+              items.stream().map(Item::getDescription).toArray()));
+          ps.setArray(3, connection.createArrayOf("float8",
+              items.stream().map(Item::getPrice).toArray()));
+          return ps;
+        },
+        rs -> {
+          ids[(int) rs.getLong("position") - 1] = rs.getLong("id");
+        });
+    return Arrays.asList(ids);
+  }
+
+  public Optional<Long> update(long id, Item item) {
+    // The item_version trigger bumps the version, so cache writes of the old
+    // row can be told apart
+    try {
+      return Optional.ofNullable(
+          jdbcTemplate.queryForObject(
+              "UPDATE items SET name = ?, description = ?, price = ? "
+                  + "WHERE id = ? RETURNING version",
+              Long.class,
+              item.getName(),
+              item.getDescription(),
+              item.getPrice(),
+              id));
+    } catch (EmptyResultDataAccessException e) {
+      return Optional.empty();
+    }
+  }
+
   public void delete(long id) {
     jdbcTemplate.update("DELETE FROM items WHERE id = ?", id);
   }
@@ -113,4 +204,73 @@ public class ItemsRepository {
     return Boolean.TRUE.equals(
         jdbcTemplate.queryForObject(query, Boolean.class, id));
   }
+
+  public long forEachId(long afterId, LongConsumer consumer) {
+    // Only the IDs are read, in order, so the last one seen is the maximum
+    long[] maxId = { afterId };
+    stream(
+        "SELECT id FROM items WHERE id > ? ORDER BY id",
+        FETCH_SIZE,
+        rs -> {
+          maxId[0] = rs.getLong("id");
+          consumer.accept(maxId[0]);
+        },
+        afterId);
+    return maxId[0];
+  }
+
+  public void forEachItem(Consumer<Item> consumer) {
+    stream(
+        "SELECT " + ITEM_COLUMNS + " FROM items ORDER BY id",
+        FETCH_SIZE,
+        rs -> {
+          consumer.accept(toItem(rs));
+        });
+  }
+
+  public void forEachNewestItem(
+      int limit, int fetchSize, Consumer<Item> consumer) {
+    stream(
+        "SELECT " + ITEM_COLUMNS + " FROM items ORDER BY id DESC LIMIT ?",
+        fetchSize,
+        rs -> {
+          consumer.accept(toItem(rs));
+        },
+        limit);
+  }
+
+  private void stream(
+      String sql, int fetchSize, RowCallbackHandler handler, Object... args) {
+    // Postgres only streams rows through a cursor inside a transaction, so
+    // autocommit is off while the rows are read. Otherwise the whole result
+    // would be loaded into memory first.
+    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try (PreparedStatement ps = connection.prepareStatement(sql)) {
+        ps.setFetchSize(fetchSize);
+        for (int i = 0; i < args.length; i++) {
+          ps.setObject(i + 1, args[i]);
+        }
+        try (ResultSet rs = ps.executeQuery()) {
+          while (rs.next()) {
+            handler.processRow(rs);
+          }
+        }
+        connection.commit();
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+      return null;
+    });
+  }
+
+  private static Item toItem(ResultSet rs) throws SQLException {
+    return new Item(
+        rs.getLong("id"),
+        rs.getString("name"),
+        rs.getString("description"),
+        rs.getDouble("price"),
+        rs.getLong("version"));
+  }
 }
@@ -16,14 +16,50 @@
 
 /**
  * Configuration for the Jedis client to connect to the Valkey server.
+ * Requests share a pool of connections, so the pool size bounds how many
+ * commands can be in flight at once. Every call goes through a circuit
+ * breaker, so while Valkey is down requests skip the cache instead of each
+ * waiting out the command timeout.
+ *
+ * Writes go to the primary through the jedis client. Reads that tolerate
+ * replication lag can use the readJedis client, which spreads them across the
+ * read replicas in VALKEY_READ_HOSTS.
+ *
+ * With VALKEY_CLUSTER_ENABLED, both clients are a single cluster client that
+ * discovers the cluster from VALKEY_HOST and routes each command to the node
+ * that owns its key's slot. Commands still time out quickly, but the cluster
+ * client manages its own per-node pools, so no circuit-breaking pool is
+ * created, the VALKEY_BREAKER_* settings don't apply, and VALKEY_READ_HOSTS is
+ * ignored.
  */
 
 package app;
 
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import redis.clients.jedis.Jedis;
+import org.springframework.context.annotation.Primary;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisClientConfig;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
 
 @Configuration
 public class JedisConfig {
@@ -38,8 +74,98 @@ public class JedisConfig {
   @Value("${VALKEY_PASSWORD:}") // Empty by default if not set
   private String redisPassword;
 
+  // Connection pool configuration properties
+  @Value("${VALKEY_POOL_SIZE:32}") // Maximum number of pooled connections
+  private int poolSize;
+
+  @Value("${VALKEY_POOL_MAX_WAIT_MS:2000}") // Wait for a free connection
+  private long poolMaxWaitMillis;
+
+  // Timeouts, kept short so a slow Valkey fails fast
+  @Value("${VALKEY_CONNECT_TIMEOUT_MS:500}") // Opening a connection
+  private int connectTimeoutMillis;
+
+  @Value("${VALKEY_TIMEOUT_MS:500}") // Waiting for a command's reply
+  private int commandTimeoutMillis;
+
+  // Circuit breaker configuration properties
+  @Value("${VALKEY_BREAKER_FAILURE_RATE:50}") // Percentage of calls that fail
+  private float breakerFailureRate;
+
+  @Value("${VALKEY_BREAKER_WINDOW_SIZE:20}") // Calls the rate is taken over
+  private int breakerWindowSize;
+
+  @Value("${VALKEY_BREAKER_OPEN_MS:5000}") // Time open before probing
+  private long breakerOpenMillis;
+
+  @Value("${VALKEY_BREAKER_HALF_OPEN_CALLS:3}") // Probes while half-open
+  private int breakerHalfOpenCalls;
+
+  // Read replica configuration properties
+  @Value("${VALKEY_READ_HOSTS:}") // Comma-separated host[:port] list
+  private String readHosts;
+
+  @Value("${VALKEY_REPLICA_MAX_STALENESS_MS:2000}") // Lag reads tolerate
+  private long replicaMaxStalenessMillis;
+
+  @Value("${VALKEY_REPLICA_CHECK_MS:500}") // How often lag is measured
+  private long replicaCheckMillis;
+
+  // Cluster mode, with VALKEY_HOST as the cluster's discovery endpoint
+  @Value("${VALKEY_CLUSTER_ENABLED:false}")
+  private boolean clusterEnabled;
+
+  // Hedged read configuration properties
+  @Value("${VALKEY_HEDGE_ENABLED:false}") // Hedge reads of single items
+  private boolean hedgeEnabled;
+
+  @Value("${VALKEY_HEDGE_BUDGET_PERCENT:5}") // Extra reads, as % of reads
+  private double hedgeBudgetPercent;
+
+  @Value("${VALKEY_HEDGE_MIN_DELAY_MS:1}") // Shortest wait before hedging
+  private long hedgeMinDelayMillis;
+
+  @Bean
+  public CircuitBreakerRegistry circuitBreakerRegistry() {
+    // Only connection failures and timeouts trip the breaker
+    CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+        .failureRateThreshold(breakerFailureRate)
+        .slidingWindowSize(breakerWindowSize)
+        .minimumNumberOfCalls(breakerWindowSize)
+        .waitDurationInOpenState(Duration.ofMillis(breakerOpenMillis))
+        .permittedNumberOfCallsInHalfOpenState(breakerHalfOpenCalls)
+        .automaticTransitionFromOpenToHalfOpenEnabled(true)
+        .recordExceptions(JedisConnectionException.class)
+        .build();
+    return CircuitBreakerRegistry.of(config);
+  }
+
+  // Publishes resilience4j.circuitbreaker.state and call metrics
   @Bean
-  public Jedis jedis() {
+  public MeterBinder circuitBreakerMetrics(CircuitBreakerRegistry registry) {
+    return TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry);
+  }
+
+  // Primary pool, shared by the primary client and reads that fall back to it.
+  // Not created in cluster mode, where the cluster client pools connections to
+  // each node itself.
+  @Bean(destroyMethod = "close")
+  @ConditionalOnProperty(
+      name = "VALKEY_CLUSTER_ENABLED",
+      havingValue = "false",
+      matchIfMissing = true)
+  CircuitBreakingConnectionProvider valkeyConnectionProvider(
+      CircuitBreakerRegistry circuitBreakerRegistry) {
+    return connectionProvider(
+        new HostAndPort(redisHost, redisPort),
+        circuitBreakerRegistry.circuitBreaker("valkey"),
+        "primary");
+  }
+
+  @Bean(destroyMethod = "close")
+  @Primary
+  public UnifiedJedis jedis(
+      ObjectProvider<CircuitBreakingConnectionProvider> provider) {
     // Validate mandatory properties
     if (redisHost == null || redisHost.isEmpty()) {
       throw new IllegalArgumentException(
@@ -48,18 +174,29 @@ public class JedisConfig {
     if (redisPort <= 0 || redisPort > 65535) {
       throw new IllegalArgumentException("Redis port (VALKEY_PORT) is invalid");
     }
+    if (poolSize <= 0) {
+      throw new IllegalArgumentException(
+          "Redis pool size (VALKEY_POOL_SIZE) is invalid");
+    }
 
-    Jedis jedis = new Jedis(redisHost, redisPort);
-
-    // Authenticate if a password is set
-    if (!redisPassword.isEmpty()) {
-      jedis.auth(redisPassword);
+    UnifiedJedis jedis;
+    if (clusterEnabled) {
+      System.err.println(
+          "Valkey cluster mode: no circuit breaker or replica routing"
+              + (readHosts.isBlank() ? "" : ", ignoring VALKEY_READ_HOSTS"));
+      jedis = new JedisCluster(
+          Set.of(new HostAndPort(redisHost, redisPort)),
+          clientConfig(),
+          poolConfig());
+    } else {
+      jedis = new JedisPooled(provider.getObject());
     }
 
     // Verify the connection to the Redis server
     try {
       jedis.ping();
     } catch (Exception e) {
+      jedis.close();
       throw new RuntimeException(
           "Failed to connect to Redis server at " + redisHost + ":" + redisPort,
           e);
@@ -67,4 +204,89 @@ public class JedisConfig {
 
     return jedis;
   }
+
+  // Client for reads that tolerate replication lag. Without replicas, it reads
+  // from the primary. In cluster mode it's the cluster client itself, which is
+  // safe to close twice.
+  @Bean(destroyMethod = "close")
+  public UnifiedJedis readJedis(
+      ObjectProvider<CircuitBreakingConnectionProvider> provider,
+      CircuitBreakerRegistry circuitBreakerRegistry,
+      UnifiedJedis jedis) {
+    if (clusterEnabled) {
+      return jedis;
+    }
+
+    List<CircuitBreakingConnectionProvider> replicas = new ArrayList<>();
+    for (String readHost : readHosts.split(",")) {
+      if (readHost.isBlank()) {
+        continue;
+      }
+      HostAndPort hostAndPort = readHost.contains(":")
+          ? HostAndPort.from(readHost.trim())
+          : new HostAndPort(readHost.trim(), redisPort);
+      CircuitBreaker circuitBreaker =
+          circuitBreakerRegistry.circuitBreaker("valkey-replica-" + hostAndPort);
+      replicas.add(connectionProvider(hostAndPort, circuitBreaker, "replica"));
+    }
+
+    return new UnifiedJedis(new ReplicaConnectionProvider(
+        provider.getObject(),
+        replicas,
+        replicaMaxStalenessMillis,
+        replicaCheckMillis));
+  }
+
+  // Reads from the primary, hedged to the read client when it's slow
+  @Bean(destroyMethod = "close")
+  HedgedReader hedgedReader(
+      UnifiedJedis jedis, @Qualifier("readJedis") UnifiedJedis readJedis) {
+    if (hedgeBudgetPercent < 0 || hedgeMinDelayMillis < 0) {
+      throw new IllegalArgumentException(
+          "Hedge budget (VALKEY_HEDGE_BUDGET_PERCENT) and minimum delay "
+              + "(VALKEY_HEDGE_MIN_DELAY_MS) must not be negative");
+    }
+    // Without replicas, a hedge would only read from the slow primary again
+    boolean hedge = hedgeEnabled && !clusterEnabled && !readHosts.isBlank();
+    if (hedgeEnabled && !hedge) {
+      System.err.println("Valkey hedged reads need replicas "
+          + "(VALKEY_READ_HOSTS) outside cluster mode, so they're disabled");
+    }
+    // A read holds a connection, so more threads than pooled connections
+    // would only wait for one
+    return new HedgedReader(jedis, readJedis, hedge,
+        hedgeBudgetPercent, hedgeMinDelayMillis, poolSize);
+  }
+
+  private CircuitBreakingConnectionProvider connectionProvider(
+      HostAndPort hostAndPort, CircuitBreaker circuitBreaker, String role) {
+    circuitBreaker.getEventPublisher().onStateTransition(event ->
+        System.err.println("Valkey circuit breaker " + circuitBreaker.getName()
+            + ": " + event.getStateTransition()));
+
+    return new CircuitBreakingConnectionProvider(
+        hostAndPort, clientConfig(), poolConfig(), circuitBreaker, role);
+  }
+
+  // In cluster mode, each node gets a pool of this size
+  private GenericObjectPoolConfig<Connection> poolConfig() {
+    GenericObjectPoolConfig<Connection> poolConfig =
+        new GenericObjectPoolConfig<>();
+    poolConfig.setMaxTotal(poolSize);
+    poolConfig.setMaxIdle(poolSize);
+    poolConfig.setMaxWait(Duration.ofMillis(poolMaxWaitMillis));
+    return poolConfig;
+  }
+
+  private JedisClientConfig clientConfig() {
+    // Authenticate if a password is set
+    DefaultJedisClientConfig.Builder clientConfig =
+        DefaultJedisClientConfig.builder()
+            .connectionTimeoutMillis(connectTimeoutMillis)
+            .socketTimeoutMillis(commandTimeoutMillis);
+    if (!redisPassword.isEmpty()) {
+      clientConfig.password(redisPassword);
+    }
+    return clientConfig.build();
+  }
 }
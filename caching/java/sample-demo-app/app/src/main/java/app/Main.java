@@ -22,12 +22,25 @@ package app;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Main {
 
   public static void main(String[] args) {
-    SpringApplication.run(Main.class, args);
+    ConfigurableApplicationContext context =
+        SpringApplication.run(Main.class, args);
+
+    // Spring Boot ignores spring.threads.virtual.enabled without a warning
+    // before Java 21
+    boolean virtualThreads = context.getEnvironment().getProperty(
+        "spring.threads.virtual.enabled", Boolean.class, false);
+    if (virtualThreads && Runtime.version().feature() < 21) {
+      System.err.println(
+          "Virtual threads need Java 21, so requests run on the Tomcat pool");
+    }
   }
 }
    
\ No newline at end of file
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/**
+ * Searches items with Postgres full-text search. The indexed tsvector column
+ * is generated from the row, so the index never needs to be updated from the
+ * application.
+ */
+
+package app;
+
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(
+    name = "ITEM_SEARCH_INDEX",
+    havingValue = "postgres",
+    matchIfMissing = true)
+public class PostgresItemSearchIndex implements ItemSearchIndex {
+
+  private final ItemsRepository itemsRepository;
+
+  public PostgresItemSearchIndex(ItemsRepository itemsRepository) {
+    this.itemsRepository = itemsRepository;
+  }
+
+  @Override
+  public List<Long> search(List<String> terms, int limit) {
+    return itemsRepository.search(String.join(" ", terms), limit);
+  }
+
+  @Override
+  public void add(Item item) {
+    // Maintained by Postgres
+  }
+
+  @Override
+  public void remove(long id) {
+    // Maintained by Postgres
+  }
+}
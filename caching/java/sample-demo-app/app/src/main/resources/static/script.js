@@ -21,7 +21,8 @@ const API_URL = window.location.origin + "/api";
 async function apiRequest(url, options = {}) {
   let msTaken = new Date().getTime();
   try {
-    const res = await fetch(API_URL + url, options);
+    // Skip the browser cache, so every request shows the server's timing
+    const res = await fetch(API_URL + url, { cache: "no-store", ...options });
 
     if (!res.ok && res.status === 500) {
       const errorText = "An error occurred";
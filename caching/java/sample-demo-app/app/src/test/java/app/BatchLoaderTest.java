@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BatchLoaderTest {
+
+  private final List<List<Long>> batches = new CopyOnWriteArrayList<>();
+
+  private Map<Long, String> load(List<Long> keys) {
+    batches.add(keys);
+    return Map.of(1L, "one", 2L, "two");
+  }
+
+  @Test
+  @DisplayName("Should load keys requested within the window in one batch")
+  void testWindow() throws Exception {
+    try (BatchLoader<Long, String> loader =
+        new BatchLoader<>("test.window", this::load, 50_000, 100)) {
+      CompletableFuture<String> first = loader.load(1L);
+      CompletableFuture<String> second = loader.load(2L);
+      CompletableFuture<String> repeated = loader.load(1L);
+      CompletableFuture<String> missing = loader.load(3L);
+
+      assertEquals("one", first.get(1, TimeUnit.SECONDS));
+      assertEquals("two", second.get(1, TimeUnit.SECONDS));
+      assertEquals("one", repeated.get(1, TimeUnit.SECONDS));
+      assertNull(missing.get(1, TimeUnit.SECONDS));
+      assertEquals(List.of(List.of(1L, 2L, 3L)), batches);
+    }
+  }
+
+  @Test
+  @DisplayName("Should dispatch a full batch without waiting for the window")
+  void testMaxBatchSize() {
+    try (BatchLoader<Long, String> loader =
+        new BatchLoader<>("test.full", this::load, 60_000_000, 2)) {
+      CompletableFuture<String> first = loader.load(1L);
+      CompletableFuture<String> second = loader.load(2L);
+
+      assertTrue(first.isDone());
+      assertTrue(second.isDone());
+      assertEquals(List.of(List.of(1L, 2L)), batches);
+    }
+  }
+
+  @Test
+  @DisplayName("Should fail every load in a batch that fails")
+  void testFailure() {
+    try (BatchLoader<Long, String> loader = new BatchLoader<>(
+        "test.failure",
+        keys -> {
+          throw new IllegalStateException("Database down");
+        },
+        60_000_000,
+        2)) {
+      CompletableFuture<String> first = loader.load(1L);
+      CompletableFuture<String> second = loader.load(2L);
+
+      ExecutionException e = assertThrows(ExecutionException.class, first::get);
+      assertTrue(e.getCause() instanceof IllegalStateException);
+      assertTrue(second.isCompletedExceptionally());
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmerTest {
+
+  @Mock
+  private ItemsRepository itemsRepository;
+
+  @Mock
+  private DataController dataController;
+
+  private CacheWarmer cacheWarmer;
+
+  // Sizes of the batches passed to the controller, copied as they're cleared
+  private final List<Integer> batchSizes = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    cacheWarmer = new CacheWarmer(itemsRepository, dataController);
+    ReflectionTestUtils.setField(cacheWarmer, "enabled", true);
+    ReflectionTestUtils.setField(cacheWarmer, "maxItems", 5);
+    ReflectionTestUtils.setField(cacheWarmer, "batchSize", 2);
+    ReflectionTestUtils.setField(cacheWarmer, "ttlJitter", 30L);
+    ReflectionTestUtils.setField(cacheWarmer, "logEvery", 2L);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void givenItems(int count) {
+    willAnswer(invocation -> {
+      Consumer<Item> consumer = invocation.getArgument(2);
+      for (long id = count; id > 0; id--) {
+        consumer.accept(new Item(id, "Item " + id, "", 1.0, 1L));
+      }
+      return null;
+    }).given(itemsRepository).forEachNewestItem(eq(5), eq(2), any(Consumer.class));
+  }
+
+  @Test
+  @DisplayName("Should not read the database when disabled")
+  void testWarm_Disabled() {
+    ReflectionTestUtils.setField(cacheWarmer, "enabled", false);
+
+    cacheWarmer.warm();
+
+    verify(itemsRepository, never()).forEachNewestItem(anyInt(), anyInt(), any());
+  }
+
+  @Test
+  @DisplayName("Should cache the newest items in batches, including a partial last batch")
+  void testWarm_Batches() {
+    givenItems(5);
+    willAnswer(invocation -> {
+      batchSizes.add(((List<?>) invocation.getArgument(0)).size());
+      return null;
+    }).given(dataController).warm(anyList(), eq(30L));
+
+    cacheWarmer.warm();
+
+    verify(dataController, times(3)).warm(anyList(), anyLong());
+    assertEquals(List.of(2, 2, 1), batchSizes);
+  }
+
+  @Test
+  @DisplayName("Should stop warming, without failing startup, if the cache fails")
+  void testWarm_CacheError() {
+    givenItems(5);
+    willThrow(new RuntimeException("Cache down"))
+        .given(dataController).warm(anyList(), anyLong());
+
+    cacheWarmer.warm();
+
+    verify(dataController, times(1)).warm(anyList(), anyLong());
+  }
+
+  @Test
+  @DisplayName("Should reject an invalid batch size")
+  void testWarm_Invalid() {
+    ReflectionTestUtils.setField(cacheWarmer, "batchSize", 0);
+
+    assertThrows(IllegalArgumentException.class, cacheWarmer::warm);
+  }
+}
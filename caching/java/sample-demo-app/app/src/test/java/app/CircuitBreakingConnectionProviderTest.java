@@ -0,0 +1,183 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+class CircuitBreakingConnectionProviderTest {
+
+  private CircuitBreaker circuitBreaker;
+  private CircuitBreakingConnectionProvider provider;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    circuitBreaker = CircuitBreaker.of("test", CircuitBreakerConfig.custom()
+        .slidingWindowSize(2)
+        .minimumNumberOfCalls(2)
+        .waitDurationInOpenState(Duration.ofMinutes(1))
+        .permittedNumberOfCallsInHalfOpenState(1)
+        .recordExceptions(JedisConnectionException.class)
+        .build());
+
+    // Nothing listens on a port that was just released, so connecting fails
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+
+    provider = new CircuitBreakingConnectionProvider(
+        new HostAndPort("localhost", port),
+        DefaultJedisClientConfig.builder()
+            .connectionTimeoutMillis(100)
+            .build(),
+        new GenericObjectPoolConfig<Connection>(),
+        circuitBreaker,
+        "primary");
+  }
+
+  @AfterEach
+  void tearDown() {
+    provider.close();
+  }
+
+  @Test
+  @DisplayName("Should open after failed connections and then fail fast")
+  void testOpens() {
+    assertThrows(JedisConnectionException.class, provider::getConnection);
+    assertThrows(JedisConnectionException.class, provider::getConnection);
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+    // No connection is attempted while open
+    JedisConnectionException e =
+        assertThrows(JedisConnectionException.class, provider::getConnection);
+    assertTrue(e.getCause() instanceof CallNotPermittedException);
+    assertEquals(2, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+  }
+
+  @Test
+  @DisplayName("Should open again when a half-open probe fails")
+  void testHalfOpenProbe() {
+    circuitBreaker.transitionToOpenState();
+    circuitBreaker.transitionToHalfOpenState();
+
+    assertThrows(JedisConnectionException.class, provider::getConnection);
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+  }
+
+  @Test
+  @DisplayName("Should only let a pipeline through half-open as a probe")
+  void testPipelineNeedsPermission() throws Exception {
+    try (ServerSocket server = okServer()) {
+      CircuitBreakingConnectionProvider okProvider = provider(server);
+      circuitBreaker.transitionToOpenState();
+      circuitBreaker.transitionToHalfOpenState();
+
+      // Another call already holds the only probe
+      assertTrue(circuitBreaker.tryAcquirePermission());
+      try (Connection connection = okProvider.getConnection()) {
+        Pipeline pipeline = new Pipeline(connection);
+        JedisConnectionException e = assertThrows(
+            JedisConnectionException.class, () -> pipeline.set("a", "1"));
+        assertTrue(e.getCause() instanceof CallNotPermittedException);
+      } finally {
+        okProvider.close();
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Should close when a half-open pipeline succeeds")
+  void testPipelineProbe() throws Exception {
+    try (ServerSocket server = okServer()) {
+      CircuitBreakingConnectionProvider okProvider = provider(server);
+      circuitBreaker.transitionToOpenState();
+      circuitBreaker.transitionToHalfOpenState();
+
+      try (Connection connection = okProvider.getConnection()) {
+        Pipeline pipeline = new Pipeline(connection);
+        pipeline.set("a", "1");
+        pipeline.set("b", "2");
+        pipeline.sync();
+      } finally {
+        okProvider.close();
+      }
+      assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+  }
+
+  private CircuitBreakingConnectionProvider provider(ServerSocket server) {
+    return new CircuitBreakingConnectionProvider(
+        new HostAndPort("localhost", server.getLocalPort()),
+        DefaultJedisClientConfig.builder().build(),
+        new GenericObjectPoolConfig<Connection>(),
+        circuitBreaker,
+        "primary");
+  }
+
+  // A stand-in for Valkey that answers OK to every command
+  private static ServerSocket okServer() throws IOException {
+    ServerSocket server = new ServerSocket(0);
+    Thread thread = new Thread(() -> {
+      while (!server.isClosed()) {
+        try (Socket socket = server.accept()) {
+          BufferedReader in = new BufferedReader(new InputStreamReader(
+              socket.getInputStream(), StandardCharsets.UTF_8));
+          OutputStream out = socket.getOutputStream();
+          String line;
+          while ((line = in.readLine()) != null) {
+            // Skip each command's arguments, a length and a value apiece
+            int args = Integer.parseInt(line.substring(1));
+            for (int i = 0; i < 2 * args; i++) {
+              in.readLine();
+            }
+            out.write("+OK\r\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+          }
+        } catch (IOException e) {
+          // The server or the connection was closed
+        }
+      }
+    });
+    thread.setDaemon(true);
+    thread.start();
+    return server;
+  }
+}
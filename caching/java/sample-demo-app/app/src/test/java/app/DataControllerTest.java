@@ -17,13 +17,25 @@
 package app;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -33,8 +45,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
-import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Builder;
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.args.Rawable;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.JedisClusterCRC16;
 
 @ExtendWith(MockitoExtension.class)
 class DataControllerTest {
@@ -43,13 +64,31 @@ class DataControllerTest {
   private ItemsRepository itemsRepository;
 
   @Mock
-  private Jedis jedis;
+  private UnifiedJedis jedis;
+
+  @Mock
+  private ItemBloomFilter itemBloomFilter;
+
+  @Mock
+  private ItemSearchIndex itemSearchIndex;
+
+  @Mock
+  private HotKeyDetector hotKeyDetector;
 
   private DataController dataController;
 
   @BeforeEach
   void setUp() {
-    dataController = new DataController(itemsRepository, jedis);
+    // Without read replicas, reads use the primary client
+    dataController = new DataController(
+        itemsRepository,
+        jedis,
+        jedis,
+        itemBloomFilter,
+        itemSearchIndex,
+        hotKeyDetector,
+        new HedgedReader(jedis, jedis, false, 0, 0, 1));
+    lenient().when(itemBloomFilter.mightContain(anyLong())).thenReturn(true);
   }
 
   // ----------------------------------------------------
@@ -83,19 +122,46 @@ class DataControllerTest {
     void testGet_ItemNotInCache() {
       long itemId = 2;
       String itemIdStr = Long.toString(itemId);
-      Item dbItem = new Item(2L, "Database Item", "From DB", 15.99);
+      Item dbItem = new Item(2L, "Database Item", "From DB", 15.99, 1L);
 
       given(jedis.get(itemIdStr)).willReturn(null);
       given(itemsRepository.get(itemId)).willReturn(Optional.of(dbItem));
 
       Item result = dataController.get(itemId);
 
-      verify(jedis).setex(itemIdStr, DataController.DEFAULT_TTL, dbItem.toJsonObject().toString());
+      verify(jedis).eval(
+          anyString(),
+          eq(List.of(itemIdStr)),
+          eq(List.of("1", dbItem.toJsonObject().toString(), "60")));
       assertEquals(dbItem.getId(), result.getId());
       assertEquals(dbItem.getName(), result.getName());
       assertFalse(result.isFromCache());
     }
 
+    @Test
+    @DisplayName("Should read from the read client and cache through the primary")
+    void testGet_ReadClient() {
+      UnifiedJedis readJedis = mock(UnifiedJedis.class);
+      DataController controller = new DataController(
+          itemsRepository,
+          jedis,
+          readJedis,
+          itemBloomFilter,
+          itemSearchIndex,
+          hotKeyDetector,
+          new HedgedReader(jedis, readJedis, false, 0, 0, 1));
+      Item dbItem = new Item(2L, "Database Item", "From DB", 15.99, 1L);
+
+      given(readJedis.get("2")).willReturn(null);
+      given(itemsRepository.get(2L)).willReturn(Optional.of(dbItem));
+
+      controller.get(2L);
+
+      verify(jedis, never()).get(anyString());
+      verify(jedis).eval(anyString(), eq(List.of("2")), anyList());
+      verify(readJedis, never()).eval(anyString(), anyList(), anyList());
+    }
+
     @Test
     @DisplayName("Should return null if item does not exist in cache or database")
     void testGet_ItemNotFound() {
@@ -107,9 +173,220 @@ class DataControllerTest {
 
       Item result = dataController.get(itemId);
 
-      verify(jedis, never()).setex(anyString(), eq(DataController.DEFAULT_TTL), anyString());
+      verify(jedis, never()).eval(anyString(), anyList(), anyList());
+      verify(jedis).set(eq(itemIdStr), eq(DataController.TOMBSTONE), any(SetParams.class));
+      assertNull(result);
+    }
+
+    @Test
+    @DisplayName("Should return null without querying the database if a tombstone is cached")
+    void testGet_Tombstone() {
+      long itemId = 4;
+      String itemIdStr = Long.toString(itemId);
+
+      given(jedis.get(itemIdStr)).willReturn(DataController.TOMBSTONE);
+
+      Item result = dataController.get(itemId);
+
+      verify(itemsRepository, never()).get(anyLong());
       assertNull(result);
     }
+
+    @Test
+    @DisplayName("Should return hot items from the local replica without querying the cache")
+    void testGet_HotItem() {
+      Item localItem = new Item(6L, "Hot Item", "Local copy", 1.0, 1L);
+      given(hotKeyDetector.get(6)).willReturn(localItem);
+
+      Item result = dataController.get(6);
+
+      verify(jedis, never()).get(anyString());
+      verify(hotKeyDetector, never()).record(anyLong());
+      assertEquals(localItem, result);
+    }
+
+    @Test
+    @DisplayName("Should record reads and offer cached items to the local replica")
+    void testGet_RecordsRead() {
+      String cachedData = new Item(7L, "Item", "Cached", 1.0, 1L).toJsonObject().toString();
+      given(jedis.get("7")).willReturn(cachedData);
+
+      Item result = dataController.get(7);
+
+      verify(hotKeyDetector).record(7L);
+      verify(hotKeyDetector).put(result);
+    }
+
+    @Test
+    @DisplayName("Should return null without querying the cache or database if the filter rules it out")
+    void testGet_NotInFilter() {
+      long itemId = 5;
+
+      given(itemBloomFilter.mightContain(itemId)).willReturn(false);
+
+      Item result = dataController.get(itemId);
+
+      verify(jedis, never()).get(anyString());
+      verify(itemsRepository, never()).get(anyLong());
+      assertNull(result);
+    }
+  }
+
+  // ----------------------------------------------------
+  // getPage() tests
+  // ----------------------------------------------------
+  @Nested
+  @DisplayName("Testing getPage() method")
+  class GetPageTests {
+
+    private static final String PAGE_KEY = DataController.PAGE_KEY_PREFIX + "0:2";
+
+    private String cached(long id) {
+      return new Item(id, "Item " + id, "Description", 1.0, 1L).toJsonObject().toString();
+    }
+
+    @Test
+    @DisplayName("Should return a cached page of cached items without querying the database")
+    void testGetPage_AllCached() {
+      given(jedis.lrange(PAGE_KEY, 0, -1)).willReturn(List.of("1", "2"));
+      given(jedis.mget("1", "2")).willReturn(List.of(cached(1), cached(2)));
+
+      ItemPage result = dataController.getPage(0, 2);
+
+      verify(itemsRepository, never()).getIdsAfter(anyLong(), anyInt());
+      verify(itemsRepository, never()).getByIds(any());
+      assertEquals(2, result.getItems().size());
+      assertTrue(result.getItems().get(0).isFromCache());
+      assertEquals(2L, result.getNext());
+    }
+
+    @Test
+    @DisplayName("Should cache the page and load missing items from the database")
+    void testGetPage_NotCached() {
+      Pipeline pipeline = mock(Pipeline.class);
+      Item dbItem = new Item(2L, "Item 2", "From DB", 2.0, 3L);
+
+      given(jedis.lrange(PAGE_KEY, 0, -1)).willReturn(List.of());
+      given(itemsRepository.getIdsAfter(0, 2)).willReturn(List.of(1L, 2L));
+      given(jedis.mget("1", "2")).willReturn(Arrays.asList(cached(1), null));
+      given(itemsRepository.getByIds(List.of(2L))).willReturn(List.of(dbItem));
+      given(jedis.pipelined()).willReturn(pipeline);
+
+      ItemPage result = dataController.getPage(0, 2);
+
+      verify(jedis).eval(anyString(), eq(List.of(PAGE_KEY)), eq(List.of("60", "1", "2")));
+      verify(pipeline).eval(
+          anyString(),
+          eq(List.of("2")),
+          eq(List.of("3", dbItem.toJsonObject().toString(), "60")));
+      verify(pipeline).sync();
+      assertEquals(List.of(1L, 2L), result.getItems().stream().map(Item::getId).toList());
+      assertFalse(result.getItems().get(1).isFromCache());
+    }
+
+    @Test
+    @DisplayName("Should skip deleted items but still continue after the last ID")
+    void testGetPage_Tombstone() {
+      given(jedis.lrange(PAGE_KEY, 0, -1)).willReturn(List.of("1", "2"));
+      given(jedis.mget("1", "2")).willReturn(List.of(cached(1), DataController.TOMBSTONE));
+
+      ItemPage result = dataController.getPage(0, 2);
+
+      assertEquals(1, result.getItems().size());
+      assertEquals(2L, result.getNext());
+    }
+
+    @Test
+    @DisplayName("Should read the page from the database if the cache fails")
+    void testGetPage_CacheError() {
+      Item dbItem = new Item(1L, "Item 1", "From DB", 1.0, 1L);
+
+      given(jedis.lrange(PAGE_KEY, 0, -1)).willThrow(new RuntimeException("Cache down"));
+      given(itemsRepository.getIdsAfter(0, 2)).willReturn(List.of(1L));
+      given(jedis.eval(anyString(), eq(List.of(PAGE_KEY)), anyList()))
+          .willThrow(new RuntimeException("Cache down"));
+      given(jedis.mget("1")).willThrow(new RuntimeException("Cache down"));
+      given(itemsRepository.getByIds(List.of(1L))).willReturn(List.of(dbItem));
+      given(jedis.pipelined()).willThrow(new RuntimeException("Cache down"));
+
+      ItemPage result = dataController.getPage(0, 2);
+
+      assertEquals(1, result.getItems().size());
+      assertNull(result.getNext());
+    }
+  }
+
+  // ----------------------------------------------------
+  // search() tests
+  // ----------------------------------------------------
+  @Nested
+  @DisplayName("Testing search() method")
+  class SearchTests {
+
+    private static final String SEARCH_KEY =
+        DataController.SEARCH_KEY_PREFIX + "10:blue chair";
+
+    @Test
+    @DisplayName("Should return cached results for an equivalent query without searching the index")
+    void testSearch_Cached() {
+      String cachedData = new Item(1L, "Blue Chair", "Seat", 5.0, 1L).toJsonObject().toString();
+      given(jedis.lrange(SEARCH_KEY, 0, -1)).willReturn(List.of("1"));
+      given(jedis.mget("1")).willReturn(List.of(cachedData));
+
+      List<Item> result = dataController.search("  CHAIR, blue chair ", 10);
+
+      verify(itemSearchIndex, never()).search(anyList(), anyInt());
+      assertEquals(1, result.size());
+      assertTrue(result.get(0).isFromCache());
+    }
+
+    @Test
+    @DisplayName("Should search the index and cache the matching IDs")
+    void testSearch_NotCached() {
+      String cachedData = new Item(1L, "Blue Chair", "Seat", 5.0, 1L).toJsonObject().toString();
+      given(jedis.lrange(SEARCH_KEY, 0, -1)).willReturn(List.of());
+      given(itemSearchIndex.search(List.of("blue", "chair"), 10)).willReturn(List.of(1L));
+      given(jedis.mget("1")).willReturn(List.of(cachedData));
+
+      List<Item> result = dataController.search("Blue chair", 10);
+
+      verify(jedis).eval(anyString(), eq(List.of(SEARCH_KEY)), eq(List.of("60", "1")));
+      assertEquals(1, result.size());
+    }
+
+    @Test
+    @DisplayName("Should cache queries without results as a tombstone")
+    void testSearch_NoResults() {
+      given(jedis.lrange(SEARCH_KEY, 0, -1)).willReturn(List.of());
+      given(itemSearchIndex.search(List.of("blue", "chair"), 10)).willReturn(List.of());
+
+      List<Item> result = dataController.search("blue chair", 10);
+
+      verify(jedis)
+          .eval(anyString(), eq(List.of(SEARCH_KEY)), eq(List.of("60", DataController.TOMBSTONE)));
+      verify(jedis, never()).mget(any(String[].class));
+      assertTrue(result.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not search the index if a tombstone is cached")
+    void testSearch_CachedNoResults() {
+      given(jedis.lrange(SEARCH_KEY, 0, -1)).willReturn(List.of(DataController.TOMBSTONE));
+
+      List<Item> result = dataController.search("blue chair", 10);
+
+      verify(itemSearchIndex, never()).search(anyList(), anyInt());
+      assertTrue(result.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should return nothing for queries without terms")
+    void testSearch_EmptyQuery() {
+      List<Item> result = dataController.search(" ,. ", 10);
+
+      verify(jedis, never()).lrange(anyString(), anyLong(), anyLong());
+      assertTrue(result.isEmpty());
+    }
   }
 
   // ----------------------------------------------------
@@ -127,11 +404,98 @@ class DataControllerTest {
 
       long result = dataController.create(item);
 
-      Item expectedItem = new Item(0L, item.getName(), item.getDescription(), item.getPrice());
+      Item expectedItem =
+          new Item(0L, item.getName(), item.getDescription(), item.getPrice(), 1L);
+      verify(itemBloomFilter).add(0L);
+      verify(itemSearchIndex).add(any(Item.class));
       verify(jedis).setex(Long.toString(result), DataController.DEFAULT_TTL,
           expectedItem.toJsonObject().toString());
       assertEquals(0L, result);
     }
+
+    @Test
+    @DisplayName("Should create items with one insert and cache them in one pipeline")
+    void testCreateAll() {
+      Pipeline pipeline = mock(Pipeline.class);
+      List<Item> items = List.of(
+          new Item("Item 1", "First", 1.0),
+          new Item("Item 2", "Second", 2.0));
+      given(itemsRepository.createAll(items)).willReturn(List.of(5L, 6L));
+      given(jedis.pipelined()).willReturn(pipeline);
+
+      List<Long> result = dataController.createAll(items);
+
+      Item expectedItem = new Item(6L, "Item 2", "Second", 2.0, 1L);
+      verify(itemBloomFilter).addAll(List.of(5L, 6L));
+      verify(pipeline).setex("6", DataController.DEFAULT_TTL,
+          expectedItem.toJsonObject().toString());
+      verify(pipeline).sync();
+      assertEquals(List.of(5L, 6L), result);
+    }
+
+    @Test
+    @DisplayName("Should return the new IDs even if the cache fails")
+    void testCreateAll_CacheError() {
+      List<Item> items = List.of(new Item("Item 1", "First", 1.0));
+      given(itemsRepository.createAll(items)).willReturn(List.of(5L));
+      given(jedis.pipelined()).willThrow(new RuntimeException("Cache down"));
+
+      assertEquals(List.of(5L), dataController.createAll(items));
+    }
+  }
+
+  // ----------------------------------------------------
+  // update() tests
+  // ----------------------------------------------------
+  @Nested
+  @DisplayName("Testing update() method")
+  class UpdateTests {
+
+    @Test
+    @DisplayName("Should update item in the database and cache the new version if it is newer")
+    void testUpdate_ItemExists() {
+      long itemId = 13;
+      Item item = new Item("Updated Item", "Updated Description", 30.0);
+      given(itemsRepository.update(itemId, item)).willReturn(Optional.of(4L));
+
+      Long result = dataController.update(itemId, item);
+
+      Item expectedItem =
+          new Item(itemId, item.getName(), item.getDescription(), item.getPrice(), 4L);
+      verify(jedis).eval(
+          anyString(),
+          eq(List.of("13")),
+          eq(List.of("4", expectedItem.toJsonObject().toString(), "60")));
+      verify(jedis, never()).setex(anyString(), anyLong(), anyString());
+      assertEquals(4L, result);
+    }
+
+    @Test
+    @DisplayName("Should return null without touching the cache if the item does not exist")
+    void testUpdate_ItemNotFound() {
+      long itemId = 14;
+      Item item = new Item("Updated Item", "Updated Description", 30.0);
+      given(itemsRepository.update(itemId, item)).willReturn(Optional.empty());
+
+      Long result = dataController.update(itemId, item);
+
+      verify(jedis, never()).eval(anyString(), anyList(), anyList());
+      assertNull(result);
+    }
+
+    @Test
+    @DisplayName("Should return the new version even if the cache fails")
+    void testUpdate_CacheError() {
+      long itemId = 15;
+      Item item = new Item("Updated Item", "Updated Description", 30.0);
+      given(itemsRepository.update(itemId, item)).willReturn(Optional.of(2L));
+      given(jedis.eval(anyString(), anyList(), anyList()))
+          .willThrow(new RuntimeException("Cache down"));
+
+      Long result = dataController.update(itemId, item);
+
+      assertEquals(2L, result);
+    }
   }
 
   // ----------------------------------------------------
@@ -142,31 +506,63 @@ class DataControllerTest {
   class DeleteTests {
 
     @Test
-    @DisplayName("Should delete item from both cache and database")
+    @DisplayName("Should delete item from the database and replace it with a tombstone in the cache")
     void testDelete_ItemExists() {
       long itemId = 6;
       String itemIdStr = Long.toString(itemId);
 
-      given(jedis.del(itemIdStr)).willReturn(1L);
-
       dataController.delete(itemId);
 
       verify(itemsRepository).delete(itemId);
-      verify(jedis).del(itemIdStr);
+      verify(itemSearchIndex).remove(itemId);
+      verify(hotKeyDetector).invalidate(itemId);
+      verify(jedis).setex(itemIdStr, DataController.DEFAULT_TTL, DataController.TOMBSTONE);
     }
 
     @Test
-    @DisplayName("Should delete item from database even if not found in cache")
-    void testDelete_ItemNotInCache() {
+    @DisplayName("Should delete item from database even if the cache fails")
+    void testDelete_CacheError() {
       long itemId = 7;
       String itemIdStr = Long.toString(itemId);
 
-      given(jedis.del(itemIdStr)).willReturn(0L);
+      given(jedis.setex(itemIdStr, DataController.DEFAULT_TTL, DataController.TOMBSTONE))
+          .willThrow(new RuntimeException("Cache down"));
 
       dataController.delete(itemId);
 
       verify(itemsRepository).delete(itemId);
-      verify(jedis).del(itemIdStr);
+    }
+
+    @Test
+    @DisplayName("Should pipeline the tombstones of many deleted items")
+    void testCacheTombstones() {
+      Pipeline pipeline = mock(Pipeline.class);
+      given(jedis.pipelined()).willReturn(pipeline);
+
+      dataController.cacheTombstones(List.of("6", "7"));
+
+      verify(hotKeyDetector).invalidate(6L);
+      verify(hotKeyDetector).invalidate(7L);
+      verify(pipeline).setex("6", DataController.DEFAULT_TTL, DataController.TOMBSTONE);
+      verify(pipeline).setex("7", DataController.DEFAULT_TTL, DataController.TOMBSTONE);
+      verify(pipeline).sync();
+      verify(jedis, never()).setex(anyString(), anyLong(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should delete the hashes of many deleted items with one DEL per slot")
+    void testCacheTombstones_HashLayoutCluster() {
+      ReflectionTestUtils.setField(dataController, "cacheLayout", DataController.HASH_LAYOUT);
+      ReflectionTestUtils.setField(dataController, "clusterEnabled", true);
+      Pipeline pipeline = mock(Pipeline.class);
+      given(jedis.pipelined()).willReturn(pipeline);
+
+      dataController.cacheTombstones(List.of("6", "7"));
+
+      verify(pipeline).setex("6", DataController.DEFAULT_TTL, DataController.TOMBSTONE);
+      verify(pipeline).del(new String[] {"item:{6}"});
+      verify(pipeline).del(new String[] {"item:{7}"});
+      verify(pipeline).sync();
     }
   }
 
@@ -183,7 +579,7 @@ class DataControllerTest {
       long itemId = 8;
       String itemIdStr = Long.toString(itemId);
 
-      given(jedis.exists(itemIdStr)).willReturn(true);
+      given(jedis.get(itemIdStr)).willReturn("{}");
 
       boolean result = dataController.exists(itemId);
 
@@ -197,7 +593,7 @@ class DataControllerTest {
       long itemId = 9;
       String itemIdStr = Long.toString(itemId);
 
-      given(jedis.exists(itemIdStr)).willReturn(false);
+      given(jedis.get(itemIdStr)).willReturn(null);
       given(itemsRepository.exists(itemId)).willReturn(true);
 
       boolean result = dataController.exists(itemId);
@@ -211,12 +607,503 @@ class DataControllerTest {
       long itemId = 10;
       String itemIdStr = Long.toString(itemId);
 
-      given(jedis.exists(itemIdStr)).willReturn(false);
+      given(jedis.get(itemIdStr)).willReturn(null);
       given(itemsRepository.exists(itemId)).willReturn(false);
 
       boolean result = dataController.exists(itemId);
 
       assertFalse(result);
+      verify(jedis).set(eq(itemIdStr), eq(DataController.TOMBSTONE), any(SetParams.class));
+    }
+
+    @Test
+    @DisplayName("Should return false without querying the database if a tombstone is cached")
+    void testExists_Tombstone() {
+      long itemId = 11;
+      String itemIdStr = Long.toString(itemId);
+
+      given(jedis.get(itemIdStr)).willReturn(DataController.TOMBSTONE);
+
+      boolean result = dataController.exists(itemId);
+
+      assertFalse(result);
+      verify(itemsRepository, never()).exists(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should return false without querying the cache or database if the filter rules it out")
+    void testExists_NotInFilter() {
+      long itemId = 12;
+
+      given(itemBloomFilter.mightContain(itemId)).willReturn(false);
+
+      boolean result = dataController.exists(itemId);
+
+      assertFalse(result);
+      verify(jedis, never()).get(anyString());
+      verify(itemsRepository, never()).exists(anyLong());
+    }
+  }
+
+  // ----------------------------------------------------
+  // hash layout tests
+  // ----------------------------------------------------
+  @Nested
+  @DisplayName("Testing the hash cache layout")
+  class HashLayoutTests {
+
+    @BeforeEach
+    void setUp() {
+      ReflectionTestUtils.setField(dataController, "cacheLayout", DataController.HASH_LAYOUT);
+    }
+
+    private <T> Response<T> response(Object value) {
+      Response<T> response = new Response<>(new Builder<T>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public T build(Object data) {
+          return (T) data;
+        }
+      });
+      response.set(value);
+      return response;
+    }
+
+    @Test
+    @DisplayName("Should keep an item's hash in the same cluster slot as its ID")
+    void testHashKey_Slot() {
+      assertEquals("item:{1}", DataController.hashKey("1"));
+      assertEquals(
+          JedisClusterCRC16.getSlot("1"), JedisClusterCRC16.getSlot(DataController.hashKey("1")));
+    }
+
+    @Test
+    @DisplayName("Should return item from its cached hash")
+    void testGet_ItemInCache() {
+      Item item = new Item(1L, "Cached Item", "Cached description", 10.5, 2L);
+      given(jedis.hgetAll("item:{1}")).willReturn(item.toMap());
+
+      Item result = dataController.get(1);
+
+      verify(jedis, never()).get(anyString());
+      verify(itemsRepository, never()).get(anyLong());
+      assertEquals("Cached description", result.getDescription());
+      assertEquals(2L, result.getVersion());
+      assertTrue(result.isFromCache());
+    }
+
+    @Test
+    @DisplayName("Should cache item from the database as a hash if it is newer")
+    void testGet_ItemNotInCache() {
+      Item dbItem = new Item(2L, "Database Item", "From DB", 15.99, 1L);
+      given(jedis.hgetAll("item:{2}")).willReturn(Map.of());
+      given(itemsRepository.get(2)).willReturn(Optional.of(dbItem));
+
+      Item result = dataController.get(2);
+
+      verify(jedis).eval(
+          anyString(),
+          eq(List.of("2", "item:{2}")),
+          argThat(args -> args.get(0).equals("1")
+              && args.get(1).equals("60")
+              && args.containsAll(List.of("description", "From DB"))));
+      assertFalse(result.isFromCache());
+    }
+
+    @Test
+    @DisplayName("Should replace the hash with a tombstone on delete")
+    void testDelete() {
+      dataController.delete(3);
+
+      verify(jedis).setex("3", DataController.DEFAULT_TTL, DataController.TOMBSTONE);
+      verify(jedis).del("item:{3}");
+    }
+
+    @Test
+    @DisplayName("Should read only the summary fields for list views")
+    void testGetPage_Summaries() {
+      Pipeline pipeline = mock(Pipeline.class);
+      Response<List<String>> cached = response(Arrays.asList("1", "Item 1", "1.0", "1", null));
+      Response<List<String>> missing = response(Arrays.asList(null, null, null, null, null));
+      Item dbItem = new Item(2L, "Item 2", "From DB", 2.0, 1L);
+
+      given(jedis.lrange(DataController.PAGE_KEY_PREFIX + "0:2", 0, -1))
+          .willReturn(List.of("1", "2"));
+      given(jedis.pipelined()).willReturn(pipeline);
+      given(pipeline.hmget("item:{1}", DataController.CACHED_SUMMARY_FIELDS)).willReturn(cached);
+      given(pipeline.hmget("item:{2}", DataController.CACHED_SUMMARY_FIELDS)).willReturn(missing);
+      given(itemsRepository.getByIds(List.of(2L))).willReturn(List.of(dbItem));
+
+      ItemPage result = dataController.getPage(0, 2);
+
+      verify(jedis, never()).mget(any(String[].class));
+      assertEquals(2, result.getItems().size());
+      assertNull(result.getItems().get(0).getDescription());
+      assertNull(result.getItems().get(1).getDescription());
+      assertTrue(result.getItems().get(0).isFromCache());
+    }
+  }
+
+  // ----------------------------------------------------
+  // getBatch() tests
+  // ----------------------------------------------------
+  @Nested
+  @DisplayName("Testing getBatch() method")
+  class GetBatchTests {
+
+    @Test
+    @DisplayName("Should read cached items in one MGET and the rest in one query")
+    void testGetBatch() {
+      String cachedData = new Item(1L, "Cached", "Item", 1.0, 1L).toJsonObject().toString();
+      Item dbItem = new Item(2L, "Database", "Item", 2.0, 1L);
+
+      given(jedis.mget("1", "2", "3", "4"))
+          .willReturn(Arrays.asList(cachedData, null, DataController.TOMBSTONE, null));
+      given(jedis.pipelined()).willReturn(mock(Pipeline.class));
+      given(itemsRepository.getByIds(List.of(2L, 4L))).willReturn(List.of(dbItem));
+
+      Map<Long, Item> result = dataController.getBatch(List.of(1L, 2L, 3L, 4L));
+
+      assertEquals(2, result.size());
+      assertTrue(result.get(1L).isFromCache());
+      assertFalse(result.get(2L).isFromCache());
+      verify(jedis).set(eq("4"), eq(DataController.TOMBSTONE), any(SetParams.class));
+      verify(jedis, never()).set(eq("2"), anyString(), any(SetParams.class));
+    }
+
+    @Test
+    @DisplayName("Should pipeline one MGET per slot in cluster mode")
+    @SuppressWarnings("unchecked")
+    void testGetBatch_Cluster() {
+      ReflectionTestUtils.setField(dataController, "clusterEnabled", true);
+      Pipeline pipeline = mock(Pipeline.class);
+      Response<List<String>> first = mock(Response.class);
+      Response<List<String>> second = mock(Response.class);
+      String cachedFirst = new Item(1L, "Cached", "Item", 1.0, 1L).toJsonObject().toString();
+      String cachedSecond = new Item(2L, "Cached", "Item", 2.0, 1L).toJsonObject().toString();
+
+      given(jedis.pipelined()).willReturn(pipeline);
+      given(pipeline.mget("1")).willReturn(first);
+      given(pipeline.mget("2")).willReturn(second);
+      given(first.get()).willReturn(List.of(cachedFirst));
+      given(second.get()).willReturn(List.of(cachedSecond));
+
+      Map<Long, Item> result = dataController.getBatch(List.of(1L, 2L));
+
+      verify(jedis, never()).mget(any(String[].class));
+      verify(pipeline).sync();
+      assertEquals(2, result.size());
+      assertTrue(result.get(1L).isFromCache());
+      assertTrue(result.get(2L).isFromCache());
+    }
+
+    @Test
+    @DisplayName("Should read every item from the database if the cache fails")
+    void testGetBatch_CacheError() {
+      Item dbItem = new Item(1L, "Database", "Item", 1.0, 1L);
+
+      given(jedis.mget("1")).willThrow(new RuntimeException("Cache down"));
+      given(itemsRepository.getByIds(List.of(1L))).willReturn(List.of(dbItem));
+
+      Map<Long, Item> result = dataController.getBatch(List.of(1L));
+
+      assertEquals(dbItem, result.get(1L));
+    }
+
+    @Test
+    @DisplayName("Should route get() through the batch loader when batching is enabled")
+    void testGet_Batched() {
+      String cachedData = new Item(5L, "Cached", "Item", 1.0, 1L).toJsonObject().toString();
+      ReflectionTestUtils.setField(dataController, "batchingEnabled", true);
+      ReflectionTestUtils.setField(dataController, "batchWindowMicros", 100L);
+      ReflectionTestUtils.setField(dataController, "maxBatchSize", 8);
+      dataController.start();
+      given(jedis.mget("5")).willReturn(List.of(cachedData));
+
+      try {
+        Item result = dataController.get(5);
+
+        verify(jedis, never()).get(anyString());
+        assertEquals(5L, result.getId());
+      } finally {
+        dataController.stop();
+      }
+    }
+  }
+
+  // ----------------------------------------------------
+  // stale-if-error tests
+  // ----------------------------------------------------
+  @Nested
+  @DisplayName("Testing stale reads")
+  class StaleTests {
+
+    @BeforeEach
+    void setUp() {
+      ReflectionTestUtils.setField(dataController, "staleTtl", 600L);
+    }
+
+    private String cached(long id, long expiresAt) {
+      return new Item(id, "Cached", "Item", 1.0, 1L)
+          .toJsonObject()
+          .put(DataController.EXPIRES_AT_FIELD, expiresAt)
+          .toString();
+    }
+
+    @Test
+    @DisplayName("Should serve items that haven't logically expired without querying the database")
+    void testGet_Fresh() {
+      given(jedis.get("1")).willReturn(cached(1, System.currentTimeMillis() + 60_000));
+
+      Item result = dataController.get(1);
+
+      verify(itemsRepository, never()).get(anyLong());
+      assertFalse(result.isStale());
+    }
+
+    @Test
+    @DisplayName("Should refresh expired items from the database and keep them past their expiry")
+    void testGet_ExpiredRefreshed() {
+      Item dbItem = new Item(2L, "Database", "Item", 2.0, 2L);
+      given(jedis.get("2")).willReturn(cached(2, System.currentTimeMillis() - 1));
+      given(itemsRepository.get(2)).willReturn(Optional.of(dbItem));
+
+      Item result = dataController.get(2);
+
+      verify(jedis).eval(
+          anyString(),
+          eq(List.of("2")),
+          argThat(args -> args.get(1).contains(DataController.EXPIRES_AT_FIELD)
+              && args.get(2).equals("660")));
+      assertEquals(dbItem, result);
+    }
+
+    @Test
+    @DisplayName("Should keep tombstones of deleted items as long as stale items are kept")
+    void testDelete_TombstoneOutlivesStaleItems() {
+      dataController.delete(4);
+
+      verify(jedis).setex("4", 660L, DataController.TOMBSTONE);
+    }
+
+    @Test
+    @DisplayName("Should serve the expired item flagged as stale if the database fails")
+    void testGet_ExpiredDatabaseError() {
+      given(jedis.get("3")).willReturn(cached(3, System.currentTimeMillis() - 1));
+      given(itemsRepository.get(3)).willThrow(new RuntimeException("Database down"));
+
+      Item result = dataController.get(3);
+
+      assertEquals(3L, result.getId());
+      assertTrue(result.isStale());
+      assertTrue(result.toJsonObject().getBoolean("stale"));
+    }
+
+    @Test
+    @DisplayName("Should still fail if the database fails and nothing is cached")
+    void testGet_DatabaseErrorNotCached() {
+      given(jedis.get("4")).willReturn(null);
+      given(itemsRepository.get(4)).willThrow(new RuntimeException("Database down"));
+
+      assertThrows(RuntimeException.class, () -> dataController.get(4));
+    }
+
+    @Test
+    @DisplayName("Should serve the expired item if the database exceeds the latency budget")
+    void testGet_LatencyBudget() {
+      ReflectionTestUtils.setField(dataController, "dbLatencyBudgetMillis", 20L);
+      dataController.start();
+      given(jedis.get("5")).willReturn(cached(5, System.currentTimeMillis() - 1));
+      given(itemsRepository.get(5)).willAnswer(invocation -> {
+        Thread.sleep(1000);
+        return Optional.empty();
+      });
+
+      try {
+        Item result = dataController.get(5);
+
+        assertTrue(result.isStale());
+      } finally {
+        dataController.stop();
+      }
+    }
+
+    @Test
+    @DisplayName("Should serve expired items in a batch if the database fails")
+    void testGetBatch_ExpiredDatabaseError() {
+      given(jedis.mget("6")).willReturn(List.of(cached(6, System.currentTimeMillis() - 1)));
+      given(itemsRepository.getByIds(List.of(6L)))
+          .willThrow(new RuntimeException("Database down"));
+
+      Map<Long, Item> result = dataController.getBatch(List.of(6L));
+
+      assertTrue(result.get(6L).isStale());
+    }
+  }
+
+  // ----------------------------------------------------
+  // warm() tests
+  // ----------------------------------------------------
+  @Nested
+  @DisplayName("Testing warm() method")
+  class WarmTests {
+
+    // SetParams has no equals, so compare the arguments they add to a command
+    private List<String> toArgs(SetParams params) {
+      List<String> args = new ArrayList<>();
+      for (Rawable arg : new CommandArguments(Protocol.Command.SET).addParams(params)) {
+        args.add(new String(arg.getRaw()));
+      }
+      return args;
+    }
+
+    @Test
+    @DisplayName("Should cache items that aren't cached yet in one pipeline")
+    void testWarm() {
+      Pipeline pipeline = mock(Pipeline.class);
+      Item item = new Item(1L, "Item 1", "From DB", 1.0, 2L);
+
+      given(jedis.pipelined()).willReturn(pipeline);
+
+      dataController.warm(List.of(item), 0);
+
+      verify(pipeline).set(
+          eq("1"),
+          eq(item.toJsonObject().toString()),
+          argThat((SetParams params) ->
+              toArgs(params).equals(toArgs(SetParams.setParams().nx().ex(60L)))));
+      verify(pipeline).sync();
+    }
+
+    @Test
+    @DisplayName("Should spread the TTLs of warmed items over the jitter")
+    void testWarm_Jitter() {
+      Pipeline pipeline = mock(Pipeline.class);
+      Item item = new Item(1L, "Item 1", "From DB", 1.0, 2L);
+
+      given(jedis.pipelined()).willReturn(pipeline);
+
+      dataController.warm(List.of(item), 30);
+
+      verify(pipeline).set(eq("1"), anyString(), argThat((SetParams params) -> {
+        for (long ttl = 60; ttl <= 90; ttl++) {
+          if (toArgs(params).equals(toArgs(SetParams.setParams().nx().ex(ttl)))) {
+            return true;
+          }
+        }
+        return false;
+      }));
+    }
+
+    @Test
+    @DisplayName("Should cache warmed items as hashes unless a newer version is cached")
+    void testWarm_HashLayout() {
+      ReflectionTestUtils.setField(dataController, "cacheLayout", DataController.HASH_LAYOUT);
+      Pipeline pipeline = mock(Pipeline.class);
+      Item item = new Item(1L, "Item 1", "From DB", 1.0, 2L);
+
+      given(jedis.pipelined()).willReturn(pipeline);
+
+      dataController.warm(List.of(item), 0);
+
+      verify(pipeline).eval(
+          anyString(),
+          eq(List.of("1", "item:{1}")),
+          argThat((List<String> args) -> args.subList(0, 2).equals(List.of("2", "60"))));
+      verify(pipeline).sync();
+    }
+
+    @Test
+    @DisplayName("Should throw if the cache fails, so warming stops")
+    void testWarm_CacheError() {
+      given(jedis.pipelined()).willThrow(new RuntimeException("Cache down"));
+
+      assertThrows(RuntimeException.class,
+          () -> dataController.warm(List.of(new Item(1L, "Item 1", "", 1.0, 1L)), 0));
+    }
+  }
+
+  // ----------------------------------------------------
+  // getBody() tests
+  // ----------------------------------------------------
+  @Nested
+  @DisplayName("Testing getBody() method")
+  class BodyTests {
+
+    private final byte[] key = "1".getBytes(StandardCharsets.UTF_8);
+
+    private byte[] cachedBytes(Item item) {
+      return item.toJsonObject().toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should return the cached bytes with the fromCache flag set")
+    void testGetBody() {
+      Item item = new Item(1L, "Item \"fromCache\":false", "Cached", 1.5, 3L);
+      given(jedis.get(aryEq(key))).willReturn(cachedBytes(item));
+
+      ItemBody body = dataController.getBody(1);
+
+      item.setFromCache(true);
+      assertEquals(
+          item.toJsonObject().toString(),
+          new String(body.getBytes(), StandardCharsets.UTF_8));
+      assertEquals(3L, body.getVersion());
+      verify(hotKeyDetector).record(1);
+      verify(itemsRepository, never()).get(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should answer tombstones from a single cache read")
+    void testGetBody_Tombstone() {
+      given(jedis.get(aryEq(key))).willReturn(new byte[0]);
+
+      assertNull(dataController.getBody(1));
+      verify(jedis).get(aryEq(key));
+      verify(jedis, never()).get(anyString());
+      verify(itemsRepository, never()).get(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should read misses from the database without reading the cache again")
+    void testGetBody_Miss() {
+      Item dbItem = new Item(1L, "Item 1", "From DB", 1.5, 3L);
+      given(itemsRepository.get(1)).willReturn(Optional.of(dbItem));
+
+      ItemBody body = dataController.getBody(1);
+
+      assertEquals(
+          dbItem.toJsonObject().toString(),
+          new String(body.getBytes(), StandardCharsets.UTF_8));
+      assertEquals(3L, body.getVersion());
+      verify(jedis).get(aryEq(key));
+      verify(jedis, never()).get(anyString());
+    }
+
+    @Test
+    @DisplayName("Should check items with a logical expiry against it without reading the cache again")
+    void testGetBody_ExpiresAt() {
+      Item dbItem = new Item(1L, "Item 1", "From DB", 1.5, 4L);
+      byte[] cached = new Item(1L, "Item 1", "Cached", 1.5, 3L).toJsonObject()
+          .put(DataController.EXPIRES_AT_FIELD, 1L)
+          .toString()
+          .getBytes(StandardCharsets.UTF_8);
+      given(jedis.get(aryEq(key))).willReturn(cached);
+      given(itemsRepository.get(1)).willReturn(Optional.of(dbItem));
+
+      ItemBody body = dataController.getBody(1);
+
+      assertEquals(4L, body.getVersion());
+      verify(jedis, never()).get(anyString());
+    }
+
+    @Test
+    @DisplayName("Should not read the cache as bytes in the hash layout")
+    void testGetBody_HashLayout() {
+      ReflectionTestUtils.setField(dataController, "cacheLayout", DataController.HASH_LAYOUT);
+
+      assertNull(dataController.getBody(1));
+      verify(jedis, never()).get(any(byte[].class));
     }
   }
 }
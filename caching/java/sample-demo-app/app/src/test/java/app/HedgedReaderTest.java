@@ -0,0 +1,185 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+@ExtendWith(MockitoExtension.class)
+class HedgedReaderTest {
+
+  @Mock
+  private UnifiedJedis primary;
+
+  @Mock
+  private UnifiedJedis replica;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private HedgedReader hedgedReader;
+
+  @BeforeEach
+  void setUp() {
+    Metrics.addRegistry(registry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (hedgedReader != null) {
+      hedgedReader.close();
+    }
+    Metrics.removeRegistry(registry);
+  }
+
+  // Times enough fast primary reads for the hedge delay to be set
+  private void warmUp() {
+    given(primary.get("1")).willReturn("primary");
+    for (int i = 0; i < 200; i++) {
+      hedgedReader.read(client -> client.get("1"));
+    }
+    hedgedReader.refreshDelay();
+  }
+
+  private void givenSlowPrimary(Object reply) {
+    given(primary.get("1")).willAnswer(invocation -> {
+      Thread.sleep(200);
+      if (reply instanceof RuntimeException error) {
+        throw error;
+      }
+      return reply;
+    });
+  }
+
+  private double count(String name) {
+    return registry.get(name).counter().count();
+  }
+
+  @Test
+  @DisplayName("Should read from the read client when disabled")
+  void testDisabled() {
+    hedgedReader = new HedgedReader(primary, replica, false, 5, 0, 4);
+    given(replica.get("1")).willReturn("replica");
+
+    assertEquals("replica", hedgedReader.read(client -> client.get("1")));
+    verify(primary, never()).get("1");
+  }
+
+  @Test
+  @DisplayName("Should not hedge when the read client is the primary")
+  void testNoReplicas() {
+    hedgedReader = new HedgedReader(primary, primary, true, 100, 0, 4);
+    warmUp();
+    givenSlowPrimary("primary");
+
+    assertEquals("primary", hedgedReader.read(client -> client.get("1")));
+    assertEquals(Long.MAX_VALUE, hedgedReader.getDelayNanos());
+    verify(primary, times(201)).get("1");
+  }
+
+  @Test
+  @DisplayName("Should not hedge until enough reads have been timed")
+  void testNoDelayYet() {
+    hedgedReader = new HedgedReader(primary, replica, true, 100, 0, 4);
+    givenSlowPrimary("primary");
+
+    assertEquals("primary", hedgedReader.read(client -> client.get("1")));
+    assertEquals(Long.MAX_VALUE, hedgedReader.getDelayNanos());
+    verify(replica, never()).get("1");
+  }
+
+  @Test
+  @DisplayName("Should return the replica's answer when the primary is slow")
+  void testHedgeWins() {
+    // Warm-up reads run on the calling thread, so without a minimum delay the
+    // hedge could win before the primary is even read
+    hedgedReader = new HedgedReader(primary, replica, true, 100, 10, 4);
+    warmUp();
+    givenSlowPrimary("primary");
+    given(replica.get("1")).willReturn("replica");
+
+    assertEquals("replica", hedgedReader.read(client -> client.get("1")));
+    assertEquals(1, count("valkey.hedge.sent"));
+    assertEquals(1, count("valkey.hedge.won"));
+  }
+
+  @Test
+  @DisplayName("Should wait for the primary once the budget is spent")
+  void testBudget() {
+    hedgedReader = new HedgedReader(primary, replica, true, 0, 0, 4);
+    warmUp();
+    givenSlowPrimary("primary");
+
+    assertEquals("primary", hedgedReader.read(client -> client.get("1")));
+    assertEquals(0, count("valkey.hedge.sent"));
+    verify(replica, never()).get("1");
+  }
+
+  @Test
+  @DisplayName("Should wait for the primary when every thread is busy")
+  void testNoIdleThread() {
+    hedgedReader = new HedgedReader(primary, replica, true, 100, 0, 1);
+    warmUp();
+    givenSlowPrimary("primary");
+
+    assertEquals("primary", hedgedReader.read(client -> client.get("1")));
+    assertEquals(0, count("valkey.hedge.sent"));
+    verify(replica, never()).get("1");
+  }
+
+  @Test
+  @DisplayName("Should not hedge reads faster than the minimum delay")
+  void testMinDelay() {
+    hedgedReader = new HedgedReader(primary, replica, true, 100, 10_000, 4);
+    warmUp();
+
+    assertTrue(hedgedReader.getDelayNanos() >= 10_000_000_000L);
+  }
+
+  @Test
+  @DisplayName("Should throw the primary's error if both reads fail")
+  void testBothFail() {
+    JedisConnectionException primaryError =
+        new JedisConnectionException("Primary down");
+    hedgedReader = new HedgedReader(primary, replica, true, 100, 0, 4);
+    warmUp();
+    givenSlowPrimary(primaryError);
+    given(replica.get("1"))
+        .willThrow(new JedisConnectionException("Replica down"));
+
+    assertSame(primaryError, assertThrows(JedisConnectionException.class,
+        () -> hedgedReader.read(client -> client.get("1"))));
+    assertEquals(0, count("valkey.hedge.won"));
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class HotKeyDetectorTest {
+
+  private HotKeyDetector hotKeyDetector;
+
+  @BeforeEach
+  void setUp() {
+    hotKeyDetector = new HotKeyDetector();
+    ReflectionTestUtils.setField(hotKeyDetector, "enabled", true);
+    ReflectionTestUtils.setField(hotKeyDetector, "sampleRate", 1.0);
+    ReflectionTestUtils.setField(hotKeyDetector, "threshold", 10L);
+    ReflectionTestUtils.setField(hotKeyDetector, "maxHotKeys", 1);
+    ReflectionTestUtils.setField(hotKeyDetector, "localTtlMillis", 60000L);
+  }
+
+  private void read(long id, int times) {
+    for (int i = 0; i < times; i++) {
+      hotKeyDetector.record(id);
+    }
+  }
+
+  @Test
+  @DisplayName("Should only keep local copies of IDs read past the threshold")
+  void testPromote() {
+    read(1, 10);
+    read(2, 5);
+
+    Item hotItem = new Item(1L, "Hot", "Item", 1.0, 1L);
+    hotKeyDetector.put(hotItem);
+    hotKeyDetector.put(new Item(2L, "Cold", "Item", 1.0, 1L));
+
+    assertTrue(hotKeyDetector.isHot(1));
+    assertEquals(hotItem, hotKeyDetector.get(1));
+    assertFalse(hotKeyDetector.isHot(2));
+    assertNull(hotKeyDetector.get(2));
+  }
+
+  @Test
+  @DisplayName("Should not promote more than the maximum number of IDs")
+  void testMaxHotKeys() {
+    read(1, 10);
+    read(2, 10);
+
+    assertTrue(hotKeyDetector.isHot(1));
+    assertFalse(hotKeyDetector.isHot(2));
+  }
+
+  @Test
+  @DisplayName("Should demote IDs once they cool down, and drop invalidated copies")
+  void testDemoteAndInvalidate() {
+    read(1, 10);
+    hotKeyDetector.put(new Item(1L, "Hot", "Item", 1.0, 1L));
+
+    hotKeyDetector.invalidate(1);
+    assertNull(hotKeyDetector.get(1));
+
+    // 10 -> 5 stays hot, 5 -> 2 falls below half the threshold
+    hotKeyDetector.decay();
+    assertTrue(hotKeyDetector.isHot(1));
+    hotKeyDetector.decay();
+    assertFalse(hotKeyDetector.isHot(1));
+  }
+}
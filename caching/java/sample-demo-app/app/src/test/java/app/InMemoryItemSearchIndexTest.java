@@ -0,0 +1,71 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryItemSearchIndexTest {
+
+  @Mock
+  private ItemsRepository itemsRepository;
+
+  private InMemoryItemSearchIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new InMemoryItemSearchIndex(itemsRepository);
+    index.add(new Item(1L, "Blue Chair", "A comfortable seat", 10.0));
+    index.add(new Item(2L, "Red Chair", "A sturdy seat", 20.0));
+    index.add(new Item(3L, "Blue Table", "Solid oak", 30.0));
+  }
+
+  @Test
+  @DisplayName("Should split text into sorted, distinct, lowercase terms")
+  void testTerms() {
+    assertEquals(
+        List.of("blue", "chair", "oak"),
+        ItemSearchIndex.terms("  Oak, chair; BLUE chair!"));
+  }
+
+  @Test
+  @DisplayName("Should return items matching every term in ID order")
+  void testSearch() {
+    assertEquals(List.of(1L, 2L), index.search(List.of("chair", "seat"), 10));
+    assertEquals(List.of(1L), index.search(List.of("blue", "chair"), 10));
+    assertEquals(List.of(1L), index.search(List.of("seat"), 1));
+    assertTrue(index.search(List.of("blue", "sofa"), 10).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Should replace the terms of updated items and drop deleted items")
+  void testAddAndRemove() {
+    index.add(new Item(1L, "Green Chair", "A comfortable seat", 10.0));
+    index.remove(2L);
+
+    assertEquals(List.of(3L), index.search(List.of("blue"), 10));
+    assertEquals(List.of(1L), index.search(List.of("chair"), 10));
+  }
+}
@@ -0,0 +1,153 @@
+/*
+- * Copyright 2025 Google LLC
+- *
+- * Licensed under the Apache License, Version 2.0 (the "License");
+- * you may not use this file except in compliance with the License.
+- * You may obtain a copy of the License at
+- *
+- * http://www.apache.org/licenses/LICENSE-2.0
+- *
+- * Unless required by applicable law or agreed to in writing, software
+- * distributed under the License is distributed on an "AS IS" BASIS,
+- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+- * See the License for the specific language governing permissions and
+- * limitations under the License.
+- */
+
+package app;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.function.LongConsumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.UnifiedJedis;
+
+@ExtendWith(MockitoExtension.class)
+class ItemBloomFilterTest {
+
+  @Mock
+  private ItemsRepository itemsRepository;
+
+  @Mock
+  private UnifiedJedis jedis;
+
+  private ItemBloomFilter itemBloomFilter;
+
+  @BeforeEach
+  void setUp() {
+    itemBloomFilter = new ItemBloomFilter(itemsRepository, jedis);
+    ReflectionTestUtils.setField(itemBloomFilter, "enabled", true);
+    ReflectionTestUtils.setField(itemBloomFilter, "totalBits", 1024L);
+    ReflectionTestUtils.setField(itemBloomFilter, "totalHashes", 3);
+  }
+
+  @Test
+  @DisplayName("Should treat every ID as possibly existing when disabled")
+  void testMightContain_Disabled() {
+    ReflectionTestUtils.setField(itemBloomFilter, "enabled", false);
+
+    assertTrue(itemBloomFilter.mightContain(1));
+    verify(jedis, never()).eval(anyString(), anyList(), anyList());
+  }
+
+  @Test
+  @DisplayName("Should treat every ID as possibly existing if the cache fails")
+  void testMightContain_CacheError() {
+    given(jedis.eval(anyString(), anyList(), anyList()))
+        .willThrow(new RuntimeException("Cache down"));
+
+    assertTrue(itemBloomFilter.mightContain(1));
+  }
+
+  @Test
+  @DisplayName("Should add many IDs in one pipeline")
+  void testAddAll() {
+    Pipeline pipeline = mock(Pipeline.class);
+    given(jedis.pipelined()).willReturn(pipeline);
+
+    itemBloomFilter.addAll(List.of(1L, 2L));
+
+    verify(pipeline, times(2))
+        .eval(anyString(), eq(List.of(ItemBloomFilter.FILTER_KEY)), anyList());
+    verify(pipeline).sync();
+  }
+
+  @Test
+  @DisplayName("Should set the bits checked for every ID in the database when rebuilt")
+  @SuppressWarnings("unchecked")
+  void testRebuild() {
+    given(itemsRepository.forEachId(eq(0L), any())).willAnswer(invocation -> {
+      LongConsumer consumer = invocation.getArgument(1);
+      consumer.accept(42L);
+      return 42L;
+    });
+
+    itemBloomFilter.rebuild();
+
+    ArgumentCaptor<byte[]> bitmap = ArgumentCaptor.forClass(byte[].class);
+    verify(jedis).set(any(byte[].class), bitmap.capture());
+    verify(jedis).rename(ItemBloomFilter.FILTER_KEY + ":build", ItemBloomFilter.FILTER_KEY);
+    verify(itemsRepository).forEachId(eq(42L), any());
+
+    // A filter without a local copy reads the bits it checks from Valkey
+    ItemBloomFilter remoteFilter = new ItemBloomFilter(itemsRepository, jedis);
+    ReflectionTestUtils.setField(remoteFilter, "enabled", true);
+    ReflectionTestUtils.setField(remoteFilter, "totalBits", 1024L);
+    ReflectionTestUtils.setField(remoteFilter, "totalHashes", 3);
+    remoteFilter.mightContain(42L);
+
+    ArgumentCaptor<List<String>> offsets = ArgumentCaptor.forClass(List.class);
+    verify(jedis).eval(anyString(), eq(List.of(ItemBloomFilter.FILTER_KEY)), offsets.capture());
+    for (String offset : offsets.getValue()) {
+      long bit = Long.parseLong(offset);
+      assertTrue((bitmap.getValue()[(int) (bit / 8)] & (0x80 >>> (bit % 8))) != 0);
+    }
+  }
+
+  @Test
+  @DisplayName("Should answer IDs in the local copy without reading the shared filter")
+  void testMightContain_Local() {
+    given(itemsRepository.forEachId(eq(0L), any())).willAnswer(invocation -> {
+      LongConsumer consumer = invocation.getArgument(1);
+      consumer.accept(42L);
+      return 42L;
+    });
+    itemBloomFilter.rebuild();
+    itemBloomFilter.add(43L);
+    clearInvocations(jedis);
+
+    assertTrue(itemBloomFilter.mightContain(42L));
+    assertTrue(itemBloomFilter.mightContain(43L));
+    verify(jedis, never()).eval(anyString(), anyList(), anyList());
+  }
+
+  @Test
+  @DisplayName("Should check IDs missing from the local copy against the shared filter")
+  void testMightContain_NotLocal() {
+    given(itemsRepository.forEachId(eq(0L), any())).willReturn(0L);
+    itemBloomFilter.rebuild();
+    given(jedis.eval(anyString(), anyList(), anyList())).willReturn(1L);
+
+    assertTrue(itemBloomFilter.mightContain(42L));
+    verify(jedis).eval(anyString(), eq(List.of(ItemBloomFilter.FILTER_KEY)), anyList());
+  }
+}
@@ -0,0 +1,188 @@
+/*
+- * Copyright 2025 Google LLC
+- *
+- * Licensed under the Apache License, Version 2.0 (the "License");
+- * you may not use this file except in compliance with the License.
+- * You may obtain a copy of the License at
+- *
+- * http://www.apache.org/licenses/LICENSE-2.0
+- *
+- * Unless required by applicable law or agreed to in writing, software
+- * distributed under the License is distributed on an "AS IS" BASIS,
+- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+- * See the License for the specific language governing permissions and
+- * limitations under the License.
+- */
+
+package app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGNotification;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.UnifiedJedis;
+
+@ExtendWith(MockitoExtension.class)
+class ItemChangeListenerTest {
+
+  @Mock
+  private DataSource dataSource;
+
+  @Mock
+  private UnifiedJedis jedis;
+
+  @Mock
+  private ItemBloomFilter itemBloomFilter;
+
+  @Mock
+  private DataController dataController;
+
+  private ItemChangeListener itemChangeListener;
+
+  @BeforeEach
+  void setUp() {
+    itemChangeListener = new ItemChangeListener(
+        dataSource, jedis, itemBloomFilter, dataController);
+  }
+
+  private static PGNotification notification(String parameter) {
+    PGNotification notification = mock(PGNotification.class);
+    given(notification.getParameter()).willReturn(parameter);
+    return notification;
+  }
+
+  @Test
+  @DisplayName("Should re-cache updated items and tombstone deleted items once")
+  void testHandle_RefreshesChangedItems() {
+    PGNotification[] notifications = {
+        notification("UPDATE:1"),
+        notification("DELETE:2"),
+        notification("UPDATE:1"),
+    };
+
+    itemChangeListener.handle(notifications);
+
+    verify(dataController).refresh(List.of(1L));
+    verify(dataController).cacheTombstones(List.of("2"));
+    verify(dataController, never()).cacheTombstone(anyString());
+    verify(jedis, never()).del(any(String[].class));
+    verify(itemBloomFilter, never()).add(anyLong());
+  }
+
+  @Test
+  @DisplayName("Should add inserted items to the filter and clear their tombstones")
+  void testHandle_AddsInsertedItems() {
+    PGNotification[] notifications = { notification("INSERT:3") };
+
+    itemChangeListener.handle(notifications);
+
+    verify(itemBloomFilter).add(3L);
+    verify(jedis).eval(
+        ItemChangeListener.DELETE_TOMBSTONES_SCRIPT, List.of("3"), List.of());
+    verify(dataController, never()).refresh(any());
+  }
+
+  @Test
+  @DisplayName("Should keep an item cached when its insert is notified")
+  void testHandle_KeepsCachedInsertedItem() {
+    // The item was cached by create() before the notification arrived
+    Map<String, String> cache = new HashMap<>();
+    cache.put("3", "{\"id\":3,\"version\":1}");
+    given(jedis.eval(
+        eq(ItemChangeListener.DELETE_TOMBSTONES_SCRIPT), anyList(), anyList()))
+        .willAnswer(invocation -> {
+          List<String> keys = invocation.getArgument(1);
+          keys.forEach(key -> cache.remove(key, DataController.TOMBSTONE));
+          return 1L;
+        });
+
+    itemChangeListener.handle(new PGNotification[] { notification("INSERT:3") });
+
+    assertEquals("{\"id\":3,\"version\":1}", cache.get("3"));
+    verify(jedis, never()).del(any(String[].class));
+    verify(jedis, never()).del(anyString());
+  }
+
+  @Test
+  @DisplayName("Should pipeline one tombstone script per slot in cluster mode")
+  void testHandle_Cluster() {
+    ReflectionTestUtils.setField(itemChangeListener, "clusterEnabled", true);
+    Pipeline pipeline = mock(Pipeline.class);
+    given(jedis.pipelined()).willReturn(pipeline);
+    PGNotification[] notifications = {
+        notification("INSERT:3"),
+        notification("INSERT:4"),
+    };
+
+    itemChangeListener.handle(notifications);
+
+    verify(pipeline).eval(
+        ItemChangeListener.DELETE_TOMBSTONES_SCRIPT, List.of("3"), List.of());
+    verify(pipeline).eval(
+        ItemChangeListener.DELETE_TOMBSTONES_SCRIPT, List.of("4"), List.of());
+    verify(pipeline).sync();
+    verify(jedis, never()).eval(anyString(), anyList(), anyList());
+  }
+
+  @Test
+  @DisplayName("Should rebuild the item filter after a bulk load")
+  void testHandle_Rebuild() {
+    PGNotification[] notifications = { notification("REBUILD") };
+
+    itemChangeListener.handle(notifications);
+
+    verify(itemBloomFilter).rebuild();
+    verify(itemBloomFilter, never()).add(anyLong());
+    verify(dataController, never()).refresh(any());
+  }
+
+  @Test
+  @DisplayName("Should re-read large changes in batches")
+  void testHandle_Batches() {
+    PGNotification[] notifications =
+        new PGNotification[ItemChangeListener.MAX_BATCH_SIZE + 1];
+    for (int i = 0; i < notifications.length; i++) {
+      notifications[i] = notification("UPDATE:" + i);
+    }
+
+    itemChangeListener.handle(notifications);
+
+    verify(dataController, times(2)).refresh(any());
+  }
+
+  @Test
+  @DisplayName("Should tombstone large deletes in batches")
+  void testHandle_TombstoneBatches() {
+    PGNotification[] notifications =
+        new PGNotification[ItemChangeListener.MAX_BATCH_SIZE + 1];
+    for (int i = 0; i < notifications.length; i++) {
+      notifications[i] = notification("DELETE:" + i);
+    }
+
+    itemChangeListener.handle(notifications);
+
+    verify(dataController, times(2)).cacheTombstones(any());
+    verify(dataController, never()).cacheTombstone(anyString());
+  }
+}
@@ -17,17 +17,24 @@
 package app;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import org.hamcrest.Matchers;
 import org.json.JSONObject;
@@ -54,7 +61,8 @@ class ItemControllerTest {
     long itemId = 1;
     Item item = new Item(1L, "ItemName", "ItemDescription", 100.0);
 
-    given(dataController.get(itemId)).willReturn(item); // Simulate DataController behavior
+    given(dataController.getBody(itemId))
+        .willReturn(ItemBody.fromItem(item)); // Simulate DataController behavior
 
     // Act: Perform GET /item/1
     mockMvc
@@ -77,8 +85,48 @@ class ItemControllerTest {
                             "\"description\":\"ItemDescription\""))) // Assert description
         .andExpect(content().string(Matchers.containsString("\"price\":100"))); // Assert price
 
-    // Assert: Verify DataController's get method was called with the correct ID
-    verify(dataController).get(itemId);
+    // Assert: Verify DataController's getBody method was called with the correct ID
+    verify(dataController).getBody(itemId);
+  }
+
+  @Test
+  @DisplayName("Test reading a cached item as the bytes that were cached")
+  void testReadItem_CachedBody() throws Exception {
+    // Arrange: The item is cached as JSON, with the fromCache flag false
+    Item item = new Item(1L, "ItemName", "ItemDescription", 100.0, 3L);
+    byte[] cached = item.toJsonObject().toString().getBytes(StandardCharsets.UTF_8);
+    given(dataController.getBody(1L)).willReturn(ItemBody.fromCached(cached));
+
+    // Act: Perform GET /item/1
+    item.setFromCache(true);
+    mockMvc
+        .perform(get("/api/item/{id}", 1L))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "W/\"3\""))
+        .andExpect(content().json(item.toJsonObject().toString(), true));
+
+    // Assert: The item wasn't parsed and encoded again
+    verify(dataController, never()).get(anyLong());
+  }
+
+  @Test
+  @DisplayName("Test reading an item that hasn't changed since the client's copy")
+  void testReadItem_NotModified() throws Exception {
+    // Arrange: The item is read from the database at version 3
+    given(dataController.getBody(1L))
+        .willReturn(ItemBody.fromItem(new Item(1L, "ItemName", "ItemDescription", 100.0, 3L)));
+
+    // Act: Perform GET /item/1 with the ETag of version 3
+    mockMvc
+        .perform(get("/api/item/{id}", 1L).header("If-None-Match", "W/\"3\""))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+
+    // Act: Perform GET /item/1 with the ETag of an older version
+    mockMvc
+        .perform(get("/api/item/{id}", 1L).header("If-None-Match", "W/\"2\""))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "W/\"3\""));
   }
 
   @Test
@@ -86,15 +134,15 @@ class ItemControllerTest {
   void testReadItem_NotFound() throws Exception {
     // Arrange: DataController returns null for the provided ID
     long itemId = 2;
-    given(dataController.get(itemId)).willReturn(null); // Simulate item not found
+    given(dataController.getBody(itemId)).willReturn(null); // Simulate item not found
 
     // Act: Perform GET /item/2
     mockMvc
         .perform(get("/api/item/{id}", itemId))
         .andExpect(status().isNotFound()); // Assert HTTP status is 404 Not Found
 
-    // Assert: Verify DataController's get method was called
-    verify(dataController).get(itemId);
+    // Assert: Verify DataController's getBody method was called
+    verify(dataController).getBody(itemId);
   }
 
   @Test
@@ -152,6 +200,54 @@ class ItemControllerTest {
     verify(dataController).getMultiple(10);
   }
 
+  @Test
+  @DisplayName("Test reading a page of items")
+  void testListItems() throws Exception {
+    // Arrange: DataController returns a full page with a next cursor
+    ItemPage page = new ItemPage(
+        List.of(
+            new Item(3L, "Item3", "Description3", 30.0),
+            new Item(4L, "Item4", "Description4", 40.0)),
+        4L);
+
+    given(dataController.getPage(2L, 2)).willReturn(page);
+
+    // Act: Perform GET /item?after=2&limit=2
+    mockMvc
+        .perform(get("/api/item").param("after", "2").param("limit", "2"))
+        .andExpect(status().isOk()) // Assert HTTP status is 200 OK
+        .andExpect(jsonPath("$.items", Matchers.hasSize(2)))
+        .andExpect(jsonPath("$.items[0].id").value(3))
+        .andExpect(jsonPath("$.next").value(4));
+  }
+
+  @Test
+  @DisplayName("Test reading a page of items with an invalid limit")
+  void testListItems_InvalidLimit() throws Exception {
+    // Act & Assert: Perform GET /item with a limit above the maximum
+    mockMvc
+        .perform(get("/api/item").param("limit", "1000"))
+        .andExpect(status().isBadRequest());
+
+    // Assert: Verify DataController's getPage method was not called
+    verify(dataController, never()).getPage(anyLong(), anyInt());
+  }
+
+  @Test
+  @DisplayName("Test searching items")
+  void testSearchItems() throws Exception {
+    // Arrange: DataController returns one matching item
+    given(dataController.search("blue chair", 20))
+        .willReturn(List.of(new Item(3L, "Blue Chair", "Seat", 30.0)));
+
+    // Act: Perform GET /item/search?q=blue chair
+    mockMvc
+        .perform(get("/api/item/search").param("q", "blue chair"))
+        .andExpect(status().isOk()) // Assert HTTP status is 200 OK
+        .andExpect(jsonPath("$.items", Matchers.hasSize(1)))
+        .andExpect(jsonPath("$.items[0].name").value("Blue Chair"));
+  }
+
   @Test
   @DisplayName("Test creating a new item")
   void testCreateItem() throws Exception {
@@ -204,6 +300,106 @@ class ItemControllerTest {
     verify(dataController, never()).create(any());
   }
 
+  @Test
+  @DisplayName("Test creating items in bulk")
+  void testBulkCreate() throws Exception {
+    // Arrange: DataController creates both items with a single insert
+    given(dataController.createAll(anyList())).willReturn(List.of(7L, 8L));
+
+    // Act: Perform POST /item/bulk with a JSON array of two items
+    mockMvc
+        .perform(
+            post("/api/item/bulk")
+                .contentType("application/json")
+                .content("[{\"name\":\"A\",\"description\":\"First\",\"price\":1.5},"
+                    + "{\"name\":\"B\",\"description\":\"Second\",\"price\":2}]"))
+        .andExpect(status().isOk())
+        .andExpect(content().string("{\"ids\":[7,8]}"));
+
+    // Assert: Both items were created in one call, in order
+    verify(dataController).createAll(
+        argThat(items -> items.size() == 2
+            && items.get(0).getName().equals("A")
+            && items.get(1).getPrice() == 2.0));
+  }
+
+  @Test
+  @DisplayName("Test creating items in bulk with an invalid item")
+  void testBulkCreate_Validations() throws Exception {
+    // Act: Perform POST /item/bulk where the second item has no price
+    mockMvc
+        .perform(
+            post("/api/item/bulk")
+                .contentType("application/json")
+                .content("[{\"name\":\"A\",\"description\":\"First\",\"price\":1.5},"
+                    + "{\"name\":\"B\",\"description\":\"Second\"}]"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error").value("Item 1 is invalid"))
+        .andExpect(jsonPath("$.ids").isEmpty());
+
+    // Assert: Nothing was created, since the first chunk wasn't complete
+    verify(dataController, never()).createAll(anyList());
+  }
+
+  @Test
+  @DisplayName("Test creating items in bulk without a JSON array")
+  void testBulkCreate_NotArray() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/item/bulk")
+                .contentType("application/json")
+                .content("{\"name\":\"A\"}"))
+        .andExpect(status().isBadRequest());
+
+    verify(dataController, never()).createAll(anyList());
+  }
+
+  @Test
+  @DisplayName("Test updating an item")
+  void testUpdateItem() throws Exception {
+    // Arrange: DataController updates the item to version 2
+    Item item = new Item("UpdatedItem", "UpdatedDescription", 300.0);
+
+    given(dataController.update(eq(5L), any(Item.class))).willReturn(2L);
+
+    // Act: Perform PUT /item/5
+    JSONObject itemJson = item.toJsonObject();
+    itemJson.remove("id");
+    mockMvc
+        .perform(
+            put("/api/item/{id}", 5)
+                .contentType("application/json")
+                .content(itemJson.toString()))
+        .andExpect(status().isOk()) // Assert HTTP status is 200 OK
+        .andExpect(jsonPath("$.id").value(5))
+        .andExpect(jsonPath("$.version").value(2));
+
+    // Assert: Verify DataController's update method was called with the new
+    // values
+    verify(dataController).update(
+        eq(5L),
+        argThat(
+            argument -> argument.getName().equals("UpdatedItem")
+                && argument.getPrice() == 300.0));
+  }
+
+  @Test
+  @DisplayName("Test updating an item that does not exist")
+  void testUpdateItem_NotFound() throws Exception {
+    // Arrange: DataController returns null for the provided ID
+    given(dataController.update(eq(5L), any(Item.class))).willReturn(null);
+
+    // Act & Assert: Perform PUT /item/5 and expect 404 Not Found
+    mockMvc
+        .perform(
+            put("/api/item/{id}", 5)
+                .contentType("application/json")
+                .content(
+                    "{\"name\":\"Item\",\"description\":\"Desc\","
+                        + "\"price\":1.0}"))
+        .andExpect(status().isNotFound());
+  }
+
   @Test
   @DisplayName("Test deleting an item")
   void testDeleteItem() throws Exception {
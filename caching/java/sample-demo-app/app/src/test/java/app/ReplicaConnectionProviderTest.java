@@ -0,0 +1,125 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package app;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.CommandObject;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaConnectionProviderTest {
+
+  @Mock
+  private CircuitBreakingConnectionProvider primary;
+
+  @Mock
+  private CircuitBreakingConnectionProvider firstReplica;
+
+  @Mock
+  private CircuitBreakingConnectionProvider secondReplica;
+
+  @Mock
+  private Connection primaryConnection;
+
+  @Mock
+  private Connection firstConnection;
+
+  @Mock
+  private Connection secondConnection;
+
+  private ReplicaConnectionProvider provider;
+
+  @BeforeEach
+  void setUp() {
+    lenient().when(firstReplica.getNode()).thenReturn("replica-1:6379");
+    lenient().when(secondReplica.getNode()).thenReturn("replica-2:6379");
+    lenient().when(primary.getConnection()).thenReturn(primaryConnection);
+    lenient().when(firstReplica.getConnection()).thenReturn(firstConnection);
+    lenient().when(secondReplica.getConnection()).thenReturn(secondConnection);
+
+    // Staleness is only checked when the tests call checkStaleness()
+    provider = new ReplicaConnectionProvider(
+        primary, List.of(firstReplica, secondReplica), 2000, 3_600_000);
+  }
+
+  @AfterEach
+  void tearDown() {
+    provider.close();
+  }
+
+  private void givenHeartbeat(Connection connection, long heartbeat) {
+    given(connection.executeCommand(any(CommandObject.class)))
+        .willReturn(Long.toString(heartbeat));
+  }
+
+  @Test
+  @DisplayName("Should read from the primary until replicas are checked")
+  void testBeforeCheck() {
+    assertSame(primaryConnection, provider.getConnection());
+  }
+
+  @Test
+  @DisplayName("Should spread reads across replicas within the tolerance")
+  void testRoundRobin() {
+    givenHeartbeat(firstConnection, System.currentTimeMillis());
+    givenHeartbeat(secondConnection, System.currentTimeMillis());
+    provider.checkStaleness();
+
+    assertSame(firstConnection, provider.getConnection());
+    assertSame(secondConnection, provider.getConnection());
+    assertSame(firstConnection, provider.getConnection());
+  }
+
+  @Test
+  @DisplayName("Should skip replicas staler than the tolerance")
+  void testStaleReplica() {
+    givenHeartbeat(firstConnection, System.currentTimeMillis() - 60_000);
+    givenHeartbeat(secondConnection, System.currentTimeMillis());
+    provider.checkStaleness();
+
+    assertSame(secondConnection, provider.getConnection());
+    assertSame(secondConnection, provider.getConnection());
+  }
+
+  @Test
+  @DisplayName("Should fall back to the primary when no replica is reachable")
+  void testUnreachableReplicas() {
+    givenHeartbeat(firstConnection, System.currentTimeMillis());
+    givenHeartbeat(secondConnection, System.currentTimeMillis());
+    provider.checkStaleness();
+
+    given(firstReplica.getConnection())
+        .willThrow(new JedisConnectionException("Breaker open"));
+    given(secondReplica.getConnection())
+        .willThrow(new JedisConnectionException("Breaker open"));
+
+    assertSame(primaryConnection, provider.getConnection());
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/**
+ * Responsible for handling the data operations without blocking.
+ * Handles checking cache first, then database, and updating the cache, with
+ * the same cache-aside semantics as the servlet app.
+ */
+
+package app;
+
+import io.lettuce.core.api.reactive.RedisReactiveCommands;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Controller
+public class DataController {
+
+  // Default TTL for cached data is 60 seconds (1 minute)
+  public static final Long DEFAULT_TTL = 60L;
+
+  private final ItemsRepository itemsRepository;
+  private final RedisReactiveCommands<String, String> redis;
+
+  public DataController(
+      ItemsRepository itemsRepository,
+      RedisReactiveCommands<String, String> redis) {
+    this.itemsRepository = itemsRepository;
+    this.redis = redis;
+  }
+
+  public Mono<Item> get(long id) {
+    String idString = Long.toString(id);
+
+    // Check if the data exists in the cache first. Cache errors are treated as
+    // a miss so the database is still queried.
+    Mono<Item> cached = redis.get(idString)
+        .map(cachedValue -> {
+          Item cachedItem = Item.fromJsonString(cachedValue);
+          cachedItem.setFromCache(true);
+          return cachedItem;
+        })
+        .onErrorResume(DataController::cacheError);
+
+    // On a miss, read from the database and cache the result with the
+    // default TTL. If the data doesn't exist in the database, return empty.
+    return cached.switchIfEmpty(Mono.defer(() -> itemsRepository.get(id)
+        .flatMap(item -> redis
+            .setex(idString, DEFAULT_TTL, item.toJsonObject().toString())
+            .onErrorResume(DataController::cacheError)
+            .thenReturn(item))));
+  }
+
+  public Flux<Item> getMultiple(int amount) {
+    // Get multiple items from the database
+    return itemsRepository.getMultiple(amount);
+  }
+
+  public Mono<Long> create(Item item) {
+    // Create the data in the database, then cache it with the default TTL
+    return itemsRepository.create(item)
+        .flatMap(itemId -> {
+          // Clone the item with the generated ID
+          Item createdItem = new Item(
+              itemId,
+              item.getName(),
+              item.getDescription(),
+              item.getPrice());
+
+          return redis
+              .setex(
+                  Long.toString(itemId),
+                  DEFAULT_TTL,
+                  createdItem.toJsonObject().toString())
+              .onErrorResume(DataController::cacheError)
+              .thenReturn(itemId);
+        });
+  }
+
+  public Mono<Void> delete(long id) {
+    // Delete the data from the database, then from the cache if it exists
+    return itemsRepository.delete(id)
+        .then(redis.del(Long.toString(id))
+            .doOnNext(totalDeleted -> {
+              if (totalDeleted == 0) {
+                System.err.println("Error with cache: Item not found in cache");
+              }
+            })
+            .onErrorResume(DataController::cacheError))
+        .then();
+  }
+
+  public Mono<Boolean> exists(long id) {
+    // Check if the data exists in the cache or the database (check the cache
+    // first)
+    return redis.exists(Long.toString(id))
+        .map(total -> total > 0)
+        .onErrorResume(e -> cacheError(e).thenReturn(false))
+        .flatMap(cacheExists -> cacheExists
+            ? Mono.just(true)
+            : itemsRepository.exists(id));
+  }
+
+  private static <T> Mono<T> cacheError(Throwable e) {
+    // If there's an error with the cache, log the error and continue
+    System.err.println("Error with cache: " + e.getMessage());
+    return Mono.empty();
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/**
+ * Provides a non-blocking RESTful API for interacting with the application's
+ * data.
+ *
+ * The controller contains four routes:
+ * - GET /api/item/{id} - Get an item by ID
+ * - GET /api/item/random - Get random items
+ * - POST /api/item/create - Create a new item
+ * - DELETE /api/item/delete/{id} - Delete an item by ID
+ */
+
+package app;
+
+import jakarta.validation.Valid;
+import org.json.JSONObject;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/item")
+public class ItemController {
+
+  public static final int TOTAL_RANDOM_ITEMS = 10;
+
+  private final DataController dataController;
+
+  public ItemController(DataController dataController) {
+    this.dataController = dataController;
+  }
+
+  @GetMapping("/{id}")
+  public Mono<ResponseEntity<String>> read(@PathVariable Long id) {
+    return dataController.get(id)
+        .map(item -> ResponseEntity.ok(item.toJsonObject().toString()))
+        .defaultIfEmpty(ResponseEntity.notFound().build());
+  }
+
+  @GetMapping("/random")
+  public Mono<ResponseEntity<String>> read() {
+    return dataController.getMultiple(TOTAL_RANDOM_ITEMS)
+        .map(Item::toJsonObject)
+        .collectList()
+        .map(items -> ResponseEntity.ok(
+            new JSONObject().put("items", items).toString()));
+  }
+
+  @PostMapping("/create")
+  public Mono<ResponseEntity<String>> create(@Valid @RequestBody Item item) {
+    /** Create a new item */
+    Item createdItem = new Item(
+        item.getName(),
+        item.getDescription(),
+        item.getPrice());
+
+    /** Save the item and return a successful response */
+    return dataController.create(createdItem)
+        .map(itemId -> ResponseEntity.ok(
+            JSONObject.valueToString(new JSONObject().put("id", itemId))));
+  }
+
+  @DeleteMapping("/delete/{id}")
+  public Mono<ResponseEntity<String>> delete(@PathVariable long id) {
+    return dataController.delete(id)
+        .thenReturn(ResponseEntity.ok(
+            JSONObject.valueToString(new JSONObject().put("id", id))));
+  }
+}
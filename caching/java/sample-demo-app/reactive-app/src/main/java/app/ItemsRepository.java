@@ -0,0 +1,93 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/**
+ * Handles CRUD operations for the items table without blocking the calling
+ * thread.
+ */
+
+package app;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public class ItemsRepository {
+
+  // Columns read into an item, leaving out the generated search column
+  private static final String ITEM_COLUMNS = "id, name, description, price";
+
+  private final DatabaseClient databaseClient;
+
+  public ItemsRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  public Mono<Item> get(long id) {
+    return databaseClient
+        .sql("SELECT " + ITEM_COLUMNS + " FROM items WHERE id = :id")
+        .bind("id", id)
+        .map(ItemsRepository::toItem)
+        .one();
+  }
+
+  public Flux<Item> getMultiple(int amount) {
+    return databaseClient
+        .sql("SELECT " + ITEM_COLUMNS
+            + " FROM items ORDER BY random() LIMIT :amount")
+        .bind("amount", amount)
+        .map(ItemsRepository::toItem)
+        .all();
+  }
+
+  public Mono<Long> create(Item item) {
+    return databaseClient
+        .sql("INSERT INTO items (name, description, price) "
+            + "VALUES (:name, :description, :price) RETURNING id")
+        .bind("name", item.getName())
+        .bind("description", item.getDescription())
+        .bind("price", item.getPrice())
+        .map(row -> row.get("id", Long.class))
+        .one();
+  }
+
+  public Mono<Void> delete(long id) {
+    return databaseClient
+        .sql("DELETE FROM items WHERE id = :id")
+        .bind("id", id)
+        .then();
+  }
+
+  public Mono<Boolean> exists(long id) {
+    return databaseClient
+        .sql("SELECT EXISTS(SELECT 1 FROM items WHERE id = :id)")
+        .bind("id", id)
+        .map(row -> Boolean.TRUE.equals(row.get(0, Boolean.class)))
+        .one();
+  }
+
+  private static Item toItem(Readable row) {
+    return new Item(
+        row.get("id", Long.class),
+        row.get("name", String.class),
+        row.get("description", String.class),
+        row.get("price", Double.class));
+  }
+}
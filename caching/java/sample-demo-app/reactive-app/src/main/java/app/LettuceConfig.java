@@ -0,0 +1,88 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/**
+ * Configuration for the Lettuce client to connect to the Valkey server.
+ * A single multiplexed connection serves every request without blocking a
+ * thread per command.
+ */
+
+package app;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.reactive.RedisReactiveCommands;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LettuceConfig {
+
+  // Redis server configuration properties
+  @Value("${VALKEY_HOST:localhost}") // Default to localhost if not set
+  private String redisHost;
+
+  @Value("${VALKEY_PORT:6379}") // Default to 6379 if not set
+  private int redisPort;
+
+  @Value("${VALKEY_PASSWORD:}") // Empty by default if not set
+  private String redisPassword;
+
+  @Bean(destroyMethod = "shutdown")
+  public RedisClient redisClient() {
+    // Validate mandatory properties
+    if (redisHost == null || redisHost.isEmpty()) {
+      throw new IllegalArgumentException(
+          "Redis host (VALKEY_HOST) is not configured");
+    }
+    if (redisPort <= 0 || redisPort > 65535) {
+      throw new IllegalArgumentException("Redis port (VALKEY_PORT) is invalid");
+    }
+
+    RedisURI.Builder uri = RedisURI.builder()
+        .withHost(redisHost)
+        .withPort(redisPort);
+
+    // Authenticate if a password is set
+    if (!redisPassword.isEmpty()) {
+      uri.withPassword(redisPassword.toCharArray());
+    }
+
+    return RedisClient.create(uri.build());
+  }
+
+  @Bean(destroyMethod = "close")
+  public StatefulRedisConnection<String, String> redisConnection(
+      RedisClient redisClient) {
+    // Verify the connection to the Redis server
+    try {
+      return redisClient.connect();
+    } catch (Exception e) {
+      throw new RuntimeException(
+          "Failed to connect to Redis server at " + redisHost + ":" + redisPort,
+          e);
+    }
+  }
+
+  @Bean
+  public RedisReactiveCommands<String, String> redisCommands(
+      StatefulRedisConnection<String, String> redisConnection) {
+    return redisConnection.reactive();
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/**
+ * Configuration for the R2DBC ConnectionFactory to connect to the PostgreSQL
+ * server. Connections are pooled, so the pool size bounds how many queries
+ * can run at once.
+ */
+
+package app;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class R2dbcConfig {
+
+  // Database configuration properties with environment variable fallback
+  @Value("${DB_HOST:localhost}")
+  private String host;
+
+  @Value("${DB_PORT:5432}")
+  private int port;
+
+  @Value("${DB_NAME:postgres}")
+  private String database;
+
+  @Value("${DB_USERNAME:postgres}")
+  private String username;
+
+  @Value("${DB_PASSWORD:}")
+  private String password;
+
+  // Connection pool configuration properties
+  @Value("${DB_POOL_SIZE:10}") // Maximum number of pooled connections
+  private int poolSize;
+
+  @Value("${DB_POOL_MAX_WAIT_MS:2000}") // Wait for a free connection
+  private long poolMaxWaitMillis;
+
+  @Bean(destroyMethod = "dispose")
+  public ConnectionPool connectionFactory() {
+    // Validate mandatory properties
+    if (host == null || host.isEmpty()) {
+      throw new IllegalArgumentException(
+        "Database host (DB_HOST) is not configured"
+      );
+    }
+    if (username == null || username.isEmpty()) {
+      throw new IllegalArgumentException(
+        "Database username (DB_USERNAME) is not configured"
+      );
+    }
+    if (poolSize <= 0) {
+      throw new IllegalArgumentException(
+        "Database pool size (DB_POOL_SIZE) is invalid"
+      );
+    }
+
+    // Set up the ConnectionFactory
+    ConnectionFactory connectionFactory = new PostgresqlConnectionFactory(
+        PostgresqlConnectionConfiguration.builder()
+            .host(host)
+            .port(port)
+            .database(database)
+            .username(username)
+            .password(password)
+            .build());
+
+    return new ConnectionPool(
+        ConnectionPoolConfiguration.builder(connectionFactory)
+            .maxSize(poolSize)
+            .maxAcquireTime(Duration.ofMillis(poolMaxWaitMillis))
+            .build());
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package app;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import io.lettuce.core.RedisException;
+import io.lettuce.core.api.reactive.RedisReactiveCommands;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class DataControllerTest {
+
+  @Mock
+  private ItemsRepository itemsRepository;
+
+  @Mock
+  private RedisReactiveCommands<String, String> redis;
+
+  private DataController dataController;
+
+  @BeforeEach
+  void setUp() {
+    dataController = new DataController(itemsRepository, redis);
+  }
+
+  // ----------------------------------------------------
+  // get() tests
+  // ----------------------------------------------------
+  @Nested
+  @DisplayName("Testing get() method")
+  class GetTests {
+
+    @Test
+    @DisplayName("Should return item from cache if it exists in cache")
+    void testGet_ItemInCache() {
+      String cachedData =
+          "{\"id\":1,\"name\":\"Cached Item\",\"description\":\"Cached description\",\"price\":10.5}";
+
+      given(redis.get("1")).willReturn(Mono.just(cachedData));
+
+      StepVerifier.create(dataController.get(1))
+          .expectNextMatches(item -> item.isFromCache()
+              && item.getName().equals("Cached Item"))
+          .verifyComplete();
+
+      verify(itemsRepository, never()).get(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should return item from database and cache it if not in cache")
+    void testGet_ItemNotInCache() {
+      Item dbItem = new Item(2L, "Database Item", "From DB", 15.99);
+
+      given(redis.get("2")).willReturn(Mono.empty());
+      given(itemsRepository.get(2)).willReturn(Mono.just(dbItem));
+      given(redis.setex("2", DataController.DEFAULT_TTL,
+          dbItem.toJsonObject().toString())).willReturn(Mono.just("OK"));
+
+      StepVerifier.create(dataController.get(2))
+          .expectNextMatches(item -> !item.isFromCache()
+              && item.getName().equals("Database Item"))
+          .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should return empty if item does not exist")
+    void testGet_ItemNotFound() {
+      given(redis.get("3")).willReturn(Mono.empty());
+      given(itemsRepository.get(3)).willReturn(Mono.empty());
+
+      StepVerifier.create(dataController.get(3)).verifyComplete();
+
+      verify(redis, never()).setex(anyString(), anyLong(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the database if the cache fails")
+    void testGet_CacheError() {
+      Item dbItem = new Item(4L, "Database Item", "From DB", 15.99);
+
+      given(redis.get("4"))
+          .willReturn(Mono.error(new RedisException("Cache down")));
+      given(itemsRepository.get(4)).willReturn(Mono.just(dbItem));
+      given(redis.setex(eq("4"), eq(DataController.DEFAULT_TTL), anyString()))
+          .willReturn(Mono.error(new RedisException("Cache down")));
+
+      StepVerifier.create(dataController.get(4))
+          .expectNext(dbItem)
+          .verifyComplete();
+    }
+  }
+
+  // ----------------------------------------------------
+  // create() tests
+  // ----------------------------------------------------
+  @Nested
+  @DisplayName("Testing create() method")
+  class CreateTests {
+
+    @Test
+    @DisplayName("Should create item in database and cache it")
+    void testCreate() {
+      Item newItem = new Item("New Item", "New Description", 20.0);
+      Item createdItem = new Item(5L, "New Item", "New Description", 20.0);
+
+      given(itemsRepository.create(newItem)).willReturn(Mono.just(5L));
+      given(redis.setex("5", DataController.DEFAULT_TTL,
+          createdItem.toJsonObject().toString())).willReturn(Mono.just("OK"));
+
+      StepVerifier.create(dataController.create(newItem))
+          .expectNext(5L)
+          .verifyComplete();
+    }
+  }
+
+  // ----------------------------------------------------
+  // delete() tests
+  // ----------------------------------------------------
+  @Nested
+  @DisplayName("Testing delete() method")
+  class DeleteTests {
+
+    @Test
+    @DisplayName("Should delete item from database and cache")
+    void testDelete() {
+      given(itemsRepository.delete(6)).willReturn(Mono.empty());
+      given(redis.del("6")).willReturn(Mono.just(1L));
+
+      StepVerifier.create(dataController.delete(6)).verifyComplete();
+
+      verify(redis).del("6");
+    }
+
+    @Test
+    @DisplayName("Should complete even if the cache fails")
+    void testDelete_CacheError() {
+      given(itemsRepository.delete(7)).willReturn(Mono.empty());
+      given(redis.del("7"))
+          .willReturn(Mono.error(new RedisException("Cache down")));
+
+      StepVerifier.create(dataController.delete(7)).verifyComplete();
+    }
+  }
+
+  // ----------------------------------------------------
+  // exists() tests
+  // ----------------------------------------------------
+  @Nested
+  @DisplayName("Testing exists() method")
+  class ExistsTests {
+
+    @Test
+    @DisplayName("Should return true if item exists in cache")
+    void testExists_InCache() {
+      given(redis.exists("8")).willReturn(Mono.just(1L));
+
+      StepVerifier.create(dataController.exists(8))
+          .expectNext(true)
+          .verifyComplete();
+
+      verify(itemsRepository, never()).exists(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should check the database if item is not in cache")
+    void testExists_InDatabase() {
+      given(redis.exists("9")).willReturn(Mono.just(0L));
+      given(itemsRepository.exists(9)).willReturn(Mono.just(true));
+
+      StepVerifier.create(dataController.exists(9))
+          .expectNext(true)
+          .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should check the database if the cache fails")
+    void testExists_CacheError() {
+      given(redis.exists("10"))
+          .willReturn(Mono.error(new RedisException("Cache down")));
+      given(itemsRepository.exists(10)).willReturn(Mono.just(false));
+
+      StepVerifier.create(dataController.exists(10))
+          .expectNext(false)
+          .verifyComplete();
+    }
+  }
+}
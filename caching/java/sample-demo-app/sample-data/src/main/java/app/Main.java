@@ -17,11 +17,27 @@
 package app;
 
 import com.github.javafaker.Faker;
+import com.zaxxer.hikari.HikariDataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 public final class Main {
@@ -31,18 +47,40 @@ public final class Main {
         "This is a utility class and cannot be instantiated");
   }
 
-  /** Maximum number of entries to generate. */
-  private static final int MAX_GENERATED_ENTRIES = 15000;
-  /** Faker instance for generating random data. */
-  private static final Faker FAKER = new Faker();
-  /** Random number generator for generating random data. */
-  private static final Random RANDOM = new Random();
+  /** Default number of entries to generate. */
+  private static final int DEFAULT_GENERATED_ENTRIES = 15000;
+  /** Default number of rows generated and written as one chunk. */
+  private static final int DEFAULT_CHUNK_SIZE = 5000;
+  /** Default number of parallel COPY streams. */
+  private static final int DEFAULT_WRITERS = 2;
+  /** Chunks that may wait per writer, which bounds memory use. */
+  private static final int QUEUED_CHUNKS_PER_WRITER = 2;
   /** Sleep time in milliseconds before retrying to connect. */
   private static final int SLEEP_TIME = 5000;
+  /** Interval in milliseconds between progress reports. */
+  private static final long REPORT_INTERVAL = 5000;
+  /** How long a producer waits for room in the queue before rechecking. */
+  private static final long OFFER_TIMEOUT = 1000;
   /** Bound on price. */
   private static final int PRICE_BOUND = 10000;
   /** Scaling factor for price. */
-  private static final int PRICE_SCALE = 100;
+  private static final double PRICE_SCALE = 100.0;
+  /** Statement the rows are streamed to, in COPY's text format. */
+  private static final String COPY_SQL =
+      "COPY items (name, description, price) FROM STDIN";
+
+  /** Setting that stops the notify trigger firing for a session. */
+  private static final String SKIP_NOTIFY_SQL =
+      "SET app.skip_item_notify = on";
+  /** Tells the application to rebuild what the skipped NOTIFYs would update. */
+  private static final String REBUILD_NOTIFY_SQL =
+      "NOTIFY item_changes, 'REBUILD'";
+
+  /** Rows of COPY text, ready to be written. */
+  private record Chunk(byte[] data, int rows) { }
+
+  /** Chunk that tells a writer there are no more rows. */
+  private static final Chunk END = new Chunk(new byte[0], 0);
 
   /**
    * Main method to start sample-data application.
@@ -78,31 +116,256 @@ public final class Main {
     System.exit(0); // Clean shutdown
   }
 
-
+  /**
+   * Generates the items on parallel producers and streams them to the
+   * database with COPY. Producers claim chunks of rows and hand them to the
+   * writers through a bounded queue, so memory use doesn't grow with the
+   * number of items.
+   *
+   * @param jdbcTemplate Template whose pool provides the writers' connections
+   */
   private static void populateItems(final JdbcTemplate jdbcTemplate) {
-    String sql = "INSERT INTO items" + " (name, description, price) VALUES (?, ?, ?)";
+    long entries = getEnv("SAMPLE_ITEMS", DEFAULT_GENERATED_ENTRIES);
+    int chunkSize = (int) getEnv("SAMPLE_CHUNK_SIZE", DEFAULT_CHUNK_SIZE);
+    int producers = (int) getEnv(
+        "SAMPLE_PRODUCERS", Runtime.getRuntime().availableProcessors());
+    int writers = (int) getEnv("SAMPLE_WRITERS", DEFAULT_WRITERS);
+    if (entries < 0 || chunkSize <= 0 || producers <= 0 || writers <= 0) {
+      throw new IllegalArgumentException(
+          "SAMPLE_ITEMS must not be negative, and SAMPLE_CHUNK_SIZE, "
+              + "SAMPLE_PRODUCERS and SAMPLE_WRITERS must be positive");
+    }
+    System.out.println("Generating " + entries + " items with " + producers
+        + " producers and " + writers + " COPY streams...");
 
-    // Prepare batch arguments
-    List<Object[]> batchArgs = new ArrayList<>();
-    for (int i = 0; i < MAX_GENERATED_ENTRIES; i++) {
-      String name = generateProductName();
-      String description = generateDescription();
-      double price = RANDOM.nextInt(PRICE_BOUND) / PRICE_SCALE;
+    // The notify trigger would send a NOTIFY for every row, which the
+    // application handles one at a time. Unless SAMPLE_NOTIFY is set, the
+    // COPY sessions skip it, so other clients' changes are still announced,
+    // and a single REBUILD is sent once the load ends.
+    boolean skipNotify = !Boolean.parseBoolean(System.getenv("SAMPLE_NOTIFY"));
 
-      batchArgs.add(new Object[] {
-          name, description, price });
+    BlockingQueue<Chunk> chunks =
+        new ArrayBlockingQueue<>(writers * QUEUED_CHUNKS_PER_WRITER);
+    AtomicLong nextRow = new AtomicLong();
+    AtomicLong written = new AtomicLong();
+    AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    long start = System.nanoTime();
+
+    ScheduledExecutorService reporter =
+        Executors.newSingleThreadScheduledExecutor();
+    reporter.scheduleAtFixedRate(
+        () -> report("Written", written.get(), entries, start),
+        REPORT_INTERVAL, REPORT_INTERVAL, TimeUnit.MILLISECONDS);
+    ExecutorService producerPool = Executors.newFixedThreadPool(producers);
+    ExecutorService writerPool = Executors.newFixedThreadPool(writers);
+
+    try {
+      List<Future<?>> writerTasks = new ArrayList<>();
+      for (int i = 0; i < writers; i++) {
+        writerTasks.add(writerPool.submit(() -> {
+          try {
+            writeChunks(jdbcTemplate, chunks, written, skipNotify);
+          } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+            throw e;
+          }
+        }));
+      }
+      List<Future<?>> producerTasks = new ArrayList<>();
+      for (int i = 0; i < producers; i++) {
+        producerTasks.add(producerPool.submit(() -> {
+          produceChunks(entries, chunkSize, nextRow, chunks, failure);
+          return null;
+        }));
+      }
+
+      awaitAll(producerTasks);
+      for (int i = 0; i < writers && failure.get() == null; i++) {
+        // A failed writer no longer takes chunks, so keep checking for one
+        while (failure.get() == null
+            && !chunks.offer(END, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+          continue;
+        }
+      }
+      if (failure.get() == null) {
+        awaitAll(writerTasks);
+      }
+      if (failure.get() != null) {
+        // The other writers are stopped in finally, cancelling their COPY
+        throw failure.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } finally {
+      producerPool.shutdownNow();
+      writerPool.shutdownNow();
+      reporter.shutdownNow();
+      if (skipNotify && written.get() > 0) {
+        // Sent even if the load failed, since streams that finished committed
+        // their rows. A failure here mustn't hide the load's own failure.
+        try {
+          jdbcTemplate.execute(REBUILD_NOTIFY_SQL);
+          System.out.println("Sent REBUILD to the application");
+        } catch (RuntimeException e) {
+          System.err.println("Could not send REBUILD: " + e.getMessage());
+        }
+      }
     }
 
-    // Execute batch update
-    jdbcTemplate.batchUpdate(sql, batchArgs);
+    report("Inserted", written.get(), entries, start);
   }
 
-  private static String generateProductName() {
-    return FAKER.commerce().productName();
+  /**
+   * Claims chunks of rows until all entries are claimed, and queues each as
+   * COPY text. Faker isn't thread-safe, so each producer has its own.
+   *
+   * @param entries   Total number of rows to generate
+   * @param chunkSize Number of rows per chunk
+   * @param nextRow   Index of the next unclaimed row
+   * @param chunks    Queue the chunks are handed to the writers through
+   * @param failure   Set if a writer failed, which stops the producers
+   * @throws InterruptedException if interrupted while waiting for room
+   */
+  private static void produceChunks(
+      final long entries,
+      final int chunkSize,
+      final AtomicLong nextRow,
+      final BlockingQueue<Chunk> chunks,
+      final AtomicReference<RuntimeException> failure)
+      throws InterruptedException {
+    Faker faker = new Faker();
+    StringBuilder text = new StringBuilder();
+    while (failure.get() == null) {
+      long first = nextRow.getAndAdd(chunkSize);
+      if (first >= entries) {
+        return;
+      }
+      int rows = (int) Math.min(chunkSize, entries - first);
+
+      text.setLength(0);
+      for (int i = 0; i < rows; i++) {
+        appendField(text, faker.commerce().productName()).append('\t');
+        appendField(text, faker.lorem().paragraph()).append('\t');
+        text.append(ThreadLocalRandom.current().nextInt(PRICE_BOUND)
+            / PRICE_SCALE).append('\n');
+      }
+      Chunk chunk =
+          new Chunk(text.toString().getBytes(StandardCharsets.UTF_8), rows);
+
+      while (!chunks.offer(chunk, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+        if (failure.get() != null) {
+          return;
+        }
+      }
+    }
   }
 
-  private static String generateDescription() {
-    return FAKER.lorem().paragraph();
+  /**
+   * Streams queued chunks to the database over one COPY, until it takes the
+   * end marker.
+   *
+   * @param jdbcTemplate Template providing the connection
+   * @param chunks       Queue the chunks are taken from
+   * @param written      Number of rows written so far, for progress reports
+   * @param skipNotify   Whether the session skips the notify trigger
+   */
+  private static void writeChunks(
+      final JdbcTemplate jdbcTemplate,
+      final BlockingQueue<Chunk> chunks,
+      final AtomicLong written,
+      final boolean skipNotify) {
+    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      if (skipNotify) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute(SKIP_NOTIFY_SQL);
+        }
+      }
+      CopyIn copyIn = connection.unwrap(PGConnection.class)
+          .getCopyAPI()
+          .copyIn(COPY_SQL);
+      try {
+        for (Chunk chunk = chunks.take(); chunk != END; chunk = chunks.take()) {
+          copyIn.writeToCopy(chunk.data(), 0, chunk.data().length);
+          written.addAndGet(chunk.rows());
+        }
+        copyIn.endCopy();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      } finally {
+        if (copyIn.isActive()) {
+          copyIn.cancelCopy();
+        }
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Appends a value as a field of COPY's text format, escaping the
+   * characters that separate fields and rows.
+   *
+   * @param text  Text the field is appended to
+   * @param value Value of the field
+   * @return The text
+   */
+  private static StringBuilder appendField(
+      final StringBuilder text, final String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\' -> text.append("\\\\");
+        case '\t' -> text.append("\\t");
+        case '\n' -> text.append("\\n");
+        case '\r' -> text.append("\\r");
+        default -> text.append(c);
+      }
+    }
+    return text;
+  }
+
+  /**
+   * Waits for every task, and rethrows the first failure.
+   *
+   * @param tasks Tasks to wait for
+   * @throws InterruptedException if interrupted while waiting
+   */
+  private static void awaitAll(final List<Future<?>> tasks)
+      throws InterruptedException {
+    for (Future<?> task : tasks) {
+      try {
+        task.get();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+          throw cause;
+        }
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Prints how many rows have been written, and the throughput so far.
+   *
+   * @param label   What has happened to the rows
+   * @param rows    Number of rows written
+   * @param entries Total number of rows
+   * @param start   When generation started, from {@link System#nanoTime()}
+   */
+  private static void report(
+      final String label, final long rows, final long entries,
+      final long start) {
+    double seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+    System.out.printf("%s %d of %d items in %.1f s (%.0f rows/s)%n",
+        label, rows, entries, seconds, rows / seconds);
+  }
+
+  private static long getEnv(final String name, final long defaultValue) {
+    String value = System.getenv(name);
+    return value == null || value.isBlank()
+        ? defaultValue
+        : Long.parseLong(value.trim());
   }
 
   private static JdbcTemplate configureJdbcTemplate() {
@@ -116,13 +379,18 @@ public final class Main {
         .getenv()
         .getOrDefault("DB_PASSWORD", "password");
 
+    HikariDataSource dataSource = DataSourceBuilder.create()
+        .type(HikariDataSource.class)
+        .url(jdbcUrl)
+        .username(jdbcUsername)
+        .password(jdbcPassword)
+        .build();
+    // Each COPY stream holds a connection for as long as it runs
+    dataSource.setMaximumPoolSize(
+        (int) Math.max(1, getEnv("SAMPLE_WRITERS", DEFAULT_WRITERS)));
+
     JdbcTemplate jdbcTemplate = new JdbcTemplate();
-    jdbcTemplate.setDataSource(
-        DataSourceBuilder.create()
-            .url(jdbcUrl)
-            .username(jdbcUsername)
-            .password(jdbcPassword)
-            .build());
+    jdbcTemplate.setDataSource(dataSource);
     return jdbcTemplate;
   }
 
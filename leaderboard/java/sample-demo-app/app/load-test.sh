@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+# Copyright 2025 Google LLC
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#      http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+# Load test for GET /api/leaderboard. Run it once against the app started
+# normally and once with SPRING_PROFILES_ACTIVE=virtual-threads, then compare
+# the "Requests/sec" and "99% in" lines. Requires https://github.com/rakyll/hey.
+#
+# Usage: ./load-test.sh [base-url]
+
+set -euo pipefail
+
+BASE_URL="${1:-http://localhost:8080}"
+REQUESTS="${REQUESTS:-20000}"
+CONCURRENCY="${CONCURRENCY:-400}"
+
+# Warm up the JIT and the connection pools
+hey -n 1000 -c 50 "$BASE_URL/api/leaderboard" > /dev/null
+
+hey -n "$REQUESTS" -c "$CONCURRENCY" "$BASE_URL/api/leaderboard"
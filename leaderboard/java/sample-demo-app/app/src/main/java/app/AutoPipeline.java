@@ -0,0 +1,139 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package app;
+
+import java.util.function.Function;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
+
+/**
+ * Batches independent Valkey commands issued while handling a request into a
+ * single round trip. Commands are queued as they are issued and return a
+ * {@link Deferred} result. The first {@link Deferred#get()} on a result that
+ * has not been sent yet flushes every command queued so far, so callers can
+ * write straight-line code and only pay a round trip when they need a value.
+ *
+ * <p>The pipeline borrows a pooled connection on the first queued command and
+ * returns it on {@link #close()}. Instances are not thread-safe and are meant
+ * to live for a single controller method.
+ */
+final class AutoPipeline implements AutoCloseable {
+
+  /** Client the pipeline borrows its connection from. */
+  private final UnifiedJedis jedis;
+
+  /** Pipeline for the current request, opened on the first command. */
+  private AbstractPipeline pipeline;
+
+  /** Number of commands queued since the last flush. */
+  private int pendingCommands;
+
+  /** Number of flushes so far, each one a single round trip. */
+  private int flushCount;
+
+  /**
+   * Constructs a new AutoPipeline.
+   *
+   * @param redisClient Redis client to borrow a connection from
+   */
+  AutoPipeline(final UnifiedJedis redisClient) {
+    this.jedis = redisClient;
+  }
+
+  /**
+   * Queues a command to be sent with the next flush.
+   *
+   * @param command Function issuing the command on the pipeline
+   * @param <T>     The type of the command's result
+   * @return The deferred result of the command
+   */
+  <T> Deferred<T> queue(final Function<AbstractPipeline, Response<T>> command) {
+    if (pipeline == null) {
+      pipeline = jedis.pipelined();
+    }
+
+    pendingCommands++;
+    return new Deferred<>(command.apply(pipeline), flushCount);
+  }
+
+  /** Sends every queued command in a single round trip. */
+  void flush() {
+    if (pendingCommands == 0) {
+      return;
+    }
+
+    pipeline.sync();
+    pendingCommands = 0;
+    flushCount++;
+  }
+
+  /**
+   * Gets the number of round trips made so far.
+   *
+   * @return The number of flushes
+   */
+  int getFlushCount() {
+    return flushCount;
+  }
+
+  /** Returns the pipeline's connection to the pool. */
+  @Override
+  public void close() {
+    if (pipeline != null) {
+      pipeline.close();
+    }
+  }
+
+  /**
+   * The result of a queued command, available once its batch is flushed.
+   *
+   * @param <T> The type of the command's result
+   */
+  final class Deferred<T> {
+
+    /** The pipeline response backing this result. */
+    private final Response<T> response;
+
+    /** The flush that sends this command. */
+    private final int batch;
+
+    /**
+     * Constructs a new Deferred.
+     *
+     * @param pipelineResponse The pipeline response backing this result
+     * @param flush            The flush that sends this command
+     */
+    private Deferred(final Response<T> pipelineResponse, final int flush) {
+      this.response = pipelineResponse;
+      this.batch = flush;
+    }
+
+    /**
+     * Gets the result, flushing the queued commands if it was not sent yet.
+     *
+     * @return The result of the command
+     */
+    T get() {
+      if (batch >= flushCount) {
+        flush();
+      }
+      return response.get();
+    }
+  }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package app;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.CommandObject;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.ConnectionFactory;
+import redis.clients.jedis.DefaultJedisSocketFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisClientConfig;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.providers.PooledConnectionProvider;
+
+/**
+ * Connection pool that puts a circuit breaker in front of every Valkey call.
+ * Commands, pipelines and transactions all borrow a connection from here, so
+ * while the breaker is open they fail immediately instead of waiting for a
+ * socket timeout. They fail with a {@link JedisConnectionException}, like an
+ * unreachable server, so the existing {@link JedisException} handling in
+ * {@link DataController} applies.
+ *
+ * <p>Once the breaker's open wait has passed, a few calls are let through
+ * half-open to probe Valkey, and their results decide whether it closes
+ * again. A pipeline or transaction counts as one call. Only connection
+ * failures and timeouts count as failures; error replies from the server
+ * mean Valkey is up.
+ *
+ * <p>The latency of every call is published as valkey.command, tagged with
+ * the node and its role, so the share of reads served by replicas is visible.
+ */
+final class CircuitBreakingConnectionProvider
+    extends PooledConnectionProvider {
+
+  /** Breaker shared by every connection in the pool. */
+  private final CircuitBreaker circuitBreaker;
+
+  /** The node's host:port, as tagged on its metrics. */
+  private final String node;
+
+  /**
+   * Constructs a new CircuitBreakingConnectionProvider.
+   *
+   * @param hostAndPort    Address of the Valkey server
+   * @param clientConfig   Timeouts and credentials for each connection
+   * @param poolConfig     Configuration of the connection pool
+   * @param breaker        Circuit breaker guarding the connections
+   * @param role           The node's role, primary or replica
+   */
+  CircuitBreakingConnectionProvider(
+      final HostAndPort hostAndPort,
+      final JedisClientConfig clientConfig,
+      final GenericObjectPoolConfig<Connection> poolConfig,
+      final CircuitBreaker breaker,
+      final String role) {
+    super(new BreakerConnectionFactory(hostAndPort, clientConfig, breaker,
+        Timer.builder("valkey.command")
+            .description("Latency of Valkey commands and pipelines")
+            .tag("node", hostAndPort.toString())
+            .tag("role", role)
+            .register(Metrics.globalRegistry)),
+        poolConfig);
+    this.circuitBreaker = breaker;
+    this.node = hostAndPort.toString();
+  }
+
+  /**
+   * Gets the node this pool connects to.
+   *
+   * @return The node's host:port
+   */
+  String getNode() {
+    return node;
+  }
+
+  /**
+   * Borrows a connection, unless the breaker is open.
+   *
+   * @return A pooled connection
+   * @throws JedisConnectionException if the breaker is open, or a new
+   *                                  connection could not be opened
+   */
+  @Override
+  public Connection getConnection() {
+    // Don't even borrow a connection while the breaker is open
+    CircuitBreaker.State state = circuitBreaker.getState();
+    if (state == CircuitBreaker.State.OPEN
+        || state == CircuitBreaker.State.FORCED_OPEN) {
+      throw notPermitted(circuitBreaker);
+    }
+
+    long start = System.nanoTime();
+    try {
+      Connection connection = super.getConnection();
+      ((BreakerConnection) connection).borrow();
+      return connection;
+    } catch (JedisException e) {
+      // Failing to open a new connection counts against the breaker too
+      circuitBreaker.onError(
+          System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+      throw e;
+    }
+  }
+
+  /**
+   * Borrows a connection for a command, unless the breaker is open.
+   *
+   * @param args The command's arguments
+   * @return A pooled connection
+   */
+  @Override
+  public Connection getConnection(final CommandArguments args) {
+    return getConnection();
+  }
+
+  /**
+   * Creates the exception thrown for calls the breaker doesn't permit.
+   *
+   * @param breaker The breaker that rejected the call
+   * @return A connection exception caused by the rejection
+   */
+  private static JedisConnectionException notPermitted(
+      final CircuitBreaker breaker) {
+    CallNotPermittedException e =
+        CallNotPermittedException.createCallNotPermittedException(breaker);
+    return new JedisConnectionException(e.getMessage(), e);
+  }
+
+  /** Creates pooled connections that report to the breaker. */
+  private static final class BreakerConnectionFactory
+      extends ConnectionFactory {
+
+    /** Address of the Valkey server. */
+    private final HostAndPort hostAndPort;
+
+    /** Timeouts and credentials for each connection. */
+    private final JedisClientConfig clientConfig;
+
+    /** Breaker the connections report to. */
+    private final CircuitBreaker circuitBreaker;
+
+    /** Timer the connections record their latency with. */
+    private final Timer latency;
+
+    /**
+     * Constructs a new BreakerConnectionFactory.
+     *
+     * @param address Address of the Valkey server
+     * @param config  Timeouts and credentials for each connection
+     * @param breaker Breaker the connections report to
+     * @param timer   Timer the connections record their latency with
+     */
+    BreakerConnectionFactory(
+        final HostAndPort address,
+        final JedisClientConfig config,
+        final CircuitBreaker breaker,
+        final Timer timer) {
+      super(address, config);
+      this.hostAndPort = address;
+      this.clientConfig = config;
+      this.circuitBreaker = breaker;
+      this.latency = timer;
+    }
+
+    /**
+     * Opens a new connection to Valkey.
+     *
+     * @return The pooled connection
+     */
+    @Override
+    public PooledObject<Connection> makeObject() {
+      return new DefaultPooledObject<>(new BreakerConnection(
+          new DefaultJedisSocketFactory(hostAndPort, clientConfig),
+          clientConfig, circuitBreaker, latency));
+    }
+  }
+
+  /** Connection that records the outcome of its calls with the breaker. */
+  private static final class BreakerConnection extends Connection {
+
+    /** Breaker the outcomes are recorded with. */
+    private final CircuitBreaker circuitBreaker;
+
+    /** Timer the latency of calls is recorded with. */
+    private final Timer latency;
+
+    /**
+     * Whether the connection is borrowed. Only the borrower's calls go through
+     * the breaker; the handshake and the pool's validation pings don't.
+     */
+    private boolean borrowed;
+
+    /** Whether a permission was taken and its outcome not yet recorded. */
+    private boolean permitted;
+
+    /**
+     * Constructs a new BreakerConnection.
+     *
+     * @param socketFactory Factory for the connection's socket
+     * @param clientConfig  Timeouts and credentials for the connection
+     * @param breaker       Breaker the outcomes are recorded with
+     * @param timer         Timer the latency of calls is recorded with
+     */
+    BreakerConnection(
+        final DefaultJedisSocketFactory socketFactory,
+        final JedisClientConfig clientConfig,
+        final CircuitBreaker breaker,
+        final Timer timer) {
+      super(socketFactory, clientConfig);
+      this.circuitBreaker = breaker;
+      this.latency = timer;
+    }
+
+    /** Marks the connection as borrowed from the pool. */
+    void borrow() {
+      borrowed = true;
+    }
+
+    /**
+     * Sends a command and reads its reply, if the breaker permits it.
+     *
+     * @param <T>           The type of the reply
+     * @param commandObject The command to send
+     * @return The command's reply
+     */
+    @Override
+    public <T> T executeCommand(final CommandObject<T> commandObject) {
+      if (!borrowed) {
+        return super.executeCommand(commandObject);
+      }
+      acquirePermission();
+      long start = System.nanoTime();
+      try {
+        T result = super.executeCommand(commandObject);
+        record(System.nanoTime() - start, null);
+        return result;
+      } catch (RuntimeException e) {
+        record(System.nanoTime() - start, e);
+        throw e;
+      }
+    }
+
+    /**
+     * Sends a command without reading its reply, as pipelines and transactions
+     * do. The first command of each batch takes a permission, just like a
+     * single command, so while half-open a batch only gets through as a probe.
+     *
+     * @param args The command's arguments
+     */
+    @Override
+    public void sendCommand(final CommandArguments args) {
+      if (borrowed && !permitted) {
+        acquirePermission();
+      }
+      super.sendCommand(args);
+    }
+
+    /**
+     * Reads the replies of pipelined commands, which settles the permission
+     * their batch took.
+     *
+     * @param count The number of replies to read
+     * @return The replies
+     */
+    @Override
+    public List<Object> getMany(final int count) {
+      if (!borrowed) {
+        return super.getMany(count);
+      }
+      long start = System.nanoTime();
+      try {
+        List<Object> replies = super.getMany(count);
+        record(System.nanoTime() - start, null);
+        return replies;
+      } catch (RuntimeException e) {
+        record(System.nanoTime() - start, e);
+        throw e;
+      }
+    }
+
+    /**
+     * Returns the connection to the pool. A permission whose replies were never
+     * read, like a transaction's EXEC, is handed back rather than left to hold
+     * a half-open probe.
+     */
+    @Override
+    public void close() {
+      if (permitted) {
+        permitted = false;
+        circuitBreaker.releasePermission();
+      }
+      borrowed = false;
+      super.close();
+    }
+
+    /**
+     * Takes a permission from the breaker. Half-open, only the permitted
+     * number of probes get one.
+     */
+    private void acquirePermission() {
+      if (!circuitBreaker.tryAcquirePermission()) {
+        throw notPermitted(circuitBreaker);
+      }
+      permitted = true;
+    }
+
+    /**
+     * Records a call's latency, and its outcome with the breaker if it took a
+     * permission.
+     *
+     * @param nanos The call's duration in nanoseconds
+     * @param error The call's error, or {@code null} if it succeeded
+     */
+    private void record(final long nanos, final RuntimeException error) {
+      latency.record(nanos, TimeUnit.NANOSECONDS);
+      if (!permitted) {
+        return;
+      }
+      permitted = false;
+      if (error == null) {
+        circuitBreaker.onSuccess(nanos, TimeUnit.NANOSECONDS);
+      } else {
+        circuitBreaker.onError(nanos, TimeUnit.NANOSECONDS, error);
+      }
+    }
+  }
+}
@@ -21,7 +21,7 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Controller;
-import redis.clients.jedis.Jedis;
+import redis.clients.jedis.UnifiedJedis;
 import redis.clients.jedis.exceptions.JedisException;
 import redis.clients.jedis.resps.Tuple;
 
@@ -36,18 +36,27 @@ public class DataController {
   private final LeaderboardRepository leaderboardRepository;
 
   /** Redis client for caching leaderboard data. */
-  private final Jedis jedis;
+  private final UnifiedJedis jedis;
+
+  /**
+   * Reader for reads that tolerate replication lag, spread across the read
+   * replicas when there are any and hedged against a slow primary.
+   */
+  private final HedgedReader hedgedReader;
 
   /**
    * Constructs a new DataController.
    *
    * @param redisClient Redis client for caching
+   * @param reader      Reader for reads that tolerate replication lag
    * @param repository  Repository for persistence
    */
-  public DataController(final Jedis redisClient,
+  public DataController(final UnifiedJedis redisClient,
+      final HedgedReader reader,
       final LeaderboardRepository repository) {
     this.leaderboardRepository = repository;
     this.jedis = redisClient;
+    this.hedgedReader = reader;
   }
 
   /**
@@ -73,11 +82,15 @@ public class DataController {
               + "pageSize must be > 0");
     }
 
-    String cacheKey = Global.LEADERBOARD_ENTRIES_KEY;
-    long maxPosition = position + pageSize - 1;
-
     try {
-      // Initialize the cache if it's empty
+      LeaderboardResponse response = hedgedReader.read(
+          client -> readLeaderboard(client, position, orderBy, pageSize,
+              username, FromCacheType.FULL_CACHE.getValue()));
+      if (response != null) {
+        return response;
+      }
+
+      // The cache is empty, so load it from the database and read again
       boolean cacheUpdated = this.initializeCache();
 
       // Set the cache status for the front end
@@ -85,112 +98,195 @@ public class DataController {
           ? FromCacheType.FROM_DB.getValue()
           : FromCacheType.FULL_CACHE.getValue();
 
-      // Get total size once
-      long totalSize = jedis.zcard(cacheKey);
+      // Read what was just loaded from the primary, as replicas may lag
+      response = readLeaderboard(jedis,
+          position, orderBy, pageSize, username, cacheStatus);
+      if (response != null) {
+        return response;
+      }
+
+      return new LeaderboardResponse(new ArrayList<>(), cacheStatus, 0);
+
+    } catch (JedisException e) {
+      // Log and handle Redis failures
+      throw new DataControllerException("Failed to retrieve leaderboard", e);
+    }
+  }
+
+  /**
+   * Reads a page of the leaderboard from the cache. Reads that don't depend on
+   * each other are queued on an {@link AutoPipeline}, so a page without a
+   * username costs a single round trip and a page around a user costs two.
+   *
+   * @param client      The client to read with.
+   * @param position    The starting position of the entries to search.
+   * @param orderBy     The order of the entries.
+   * @param pageSize    The number of entries to return.
+   * @param username    The username to check the rank of.
+   * @param cacheStatus The cache status to report to the front end.
+   * @return The leaderboard entries, or {@code null} if the cache is empty.
+   */
+  private LeaderboardResponse readLeaderboard(final UnifiedJedis client,
+      final long position, final OrderByType orderBy,
+      final long pageSize, final String username, final int cacheStatus) {
+
+    String cacheKey = Global.LEADERBOARD_ENTRIES_KEY;
+    long maxPosition = position + pageSize - 1;
+    boolean isDescending = orderBy == OrderByType.HIGH_TO_LOW;
+
+    try (AutoPipeline pipeline = new AutoPipeline(client)) {
+      // Queue the total size, the user's rank and, when the page doesn't
+      // depend on the rank, the page itself so they share one round trip
+      AutoPipeline.Deferred<Long> totalSizeResult =
+          pipeline.queue(p -> p.zcard(cacheKey));
+      AutoPipeline.Deferred<Long> userRankResult = username == null
+          ? null
+          : pipeline.queue(p -> p.zrevrank(cacheKey, username));
+      AutoPipeline.Deferred<List<Tuple>> entriesResult = username == null
+          ? queueEntries(pipeline, cacheKey, position, maxPosition,
+              isDescending)
+          : null;
+
+      long totalSize = totalSizeResult.get();
+      if (totalSize == 0) {
+        return null;
+      }
 
       // If we have a username, search for the user's rank
-      if (username != null) {
-        Long userRank = jedis.zrevrank(cacheKey, username);
-        if (userRank != null) {
-          long startPos;
-          long endPos;
-          long totalResults;
-          if (orderBy == OrderByType.HIGH_TO_LOW) {
-            startPos = userRank + position;
-            endPos = startPos + pageSize - 1;
-            // For descending order, total results is from user's position to the end
-            totalResults = totalSize - userRank;
-          } else {
-            long userPosInAscending = totalSize - userRank - 1;
-            startPos = userPosInAscending + position;
-            endPos = startPos + pageSize - 1;
-            // For ascending order, total results is from start to user's position
-            totalResults = userPosInAscending + 1;
-          }
-
-          // Ensure we don't exceed the total size
-          if (endPos >= totalSize) {
-            endPos = totalSize - 1;
-          }
-
-          // If start position is beyond end position, return empty list
-          if (startPos > endPos) {
-            return new LeaderboardResponse(
-                new ArrayList<>(),
-                cacheStatus,
-                totalResults);
-          }
+      Long userRank = userRankResult == null ? null : userRankResult.get();
+      if (userRank != null) {
+        long startPos;
+        long endPos;
+        long totalResults;
+        if (isDescending) {
+          startPos = userRank + position;
+          endPos = startPos + pageSize - 1;
+          // For descending order, total results is from user's position to the end
+          totalResults = totalSize - userRank;
+        } else {
+          long userPosInAscending = totalSize - userRank - 1;
+          startPos = userPosInAscending + position;
+          endPos = startPos + pageSize - 1;
+          // For ascending order, total results is from start to user's position
+          totalResults = userPosInAscending + 1;
+        }
 
+        // Ensure we don't exceed the total size
+        if (endPos >= totalSize) {
+          endPos = totalSize - 1;
+        }
+
+        // If start position is beyond end position, return empty list
+        if (startPos > endPos) {
           return new LeaderboardResponse(
-              getEntries(cacheKey, startPos, endPos,
-                  orderBy == OrderByType.HIGH_TO_LOW),
+              new ArrayList<>(),
               cacheStatus,
               totalResults);
         }
+
+        List<LeaderboardEntry> entries = toEntries(
+            getEntries(queueEntries(
+                pipeline, cacheKey, startPos, endPos, isDescending)),
+            startPos,
+            totalSize,
+            isDescending);
+        LOGGER.debug("Read leaderboard page in {} round trips",
+            pipeline.getFlushCount());
+        return new LeaderboardResponse(entries, cacheStatus, totalResults);
       }
 
-      // Get the leaderboard entries depending on the order
-      List<LeaderboardEntry> leaderboardList = getEntries(
-          cacheKey,
-          position,
-          maxPosition,
-          orderBy == OrderByType.HIGH_TO_LOW);
+      // The user has no rank, so fall back to the regular page
+      if (entriesResult == null) {
+        entriesResult = queueEntries(
+            pipeline, cacheKey, position, maxPosition, isDescending);
+      }
 
+      List<LeaderboardEntry> leaderboardList = toEntries(
+          getEntries(entriesResult), position, totalSize, isDescending);
+      LOGGER.debug("Read leaderboard page in {} round trips",
+          pipeline.getFlushCount());
       return new LeaderboardResponse(leaderboardList, cacheStatus, totalSize);
-
-    } catch (JedisException e) {
-      // Log and handle Redis failures
-      throw new DataControllerException("Failed to retrieve leaderboard", e);
     }
   }
 
-  private List<LeaderboardEntry> getEntries(
+  /**
+   * Queues a read of the entries between two positions.
+   *
+   * @param pipeline     The pipeline to queue the read on.
+   * @param cacheKey     The key of the leaderboard sorted set.
+   * @param position     The first position to read.
+   * @param maxPosition  The last position to read.
+   * @param isDescending Whether the entries are read from highest to lowest.
+   * @return The deferred entries.
+   */
+  private static AutoPipeline.Deferred<List<Tuple>> queueEntries(
+      final AutoPipeline pipeline,
       final String cacheKey,
       final long position,
       final long maxPosition,
       final boolean isDescending) {
 
-    try {
-      // Define an object
-      List<Tuple> entries = new ArrayList<>();
-
-      // Use zrevrangeWithScores to get the entries in descending order
-      if (isDescending) {
-        entries = new ArrayList<>(
-            jedis.zrevrangeWithScores(cacheKey, position, maxPosition));
-      }
+    // Use zrevrangeWithScores to get the entries in descending order and
+    // zrangeWithScores to get them in ascending order
+    if (isDescending) {
+      return pipeline.queue(
+          p -> p.zrevrangeWithScores(cacheKey, position, maxPosition));
+    }
+    return pipeline.queue(
+        p -> p.zrangeWithScores(cacheKey, position, maxPosition));
+  }
 
-      // If zrangeWithScores is used, the entries are in ascending order
-      if (!isDescending) {
-        entries = new ArrayList<>(
-            jedis.zrangeWithScores(cacheKey, position, maxPosition));
-      }
+  /**
+   * Waits for queued entries to be read.
+   *
+   * @param entriesResult The deferred entries.
+   * @return The entries read from the sorted set.
+   * @throws DataControllerException if the entries could not be read
+   */
+  private static List<Tuple> getEntries(
+      final AutoPipeline.Deferred<List<Tuple>> entriesResult) {
+    try {
+      return entriesResult.get();
+    } catch (JedisException e) {
+      // Log and handle Redis failures
+      throw new DataControllerException(
+          "Failed to retrieve leaderboard entries", e);
+    }
+  }
 
-      List<LeaderboardEntry> newEntries = new ArrayList<>();
-      long totalSize = !isDescending ? jedis.zcard(cacheKey) : 0;
+  /**
+   * Converts a range of the sorted set into leaderboard entries.
+   *
+   * @param entries      The entries read from the sorted set.
+   * @param position     The position of the first entry in the range.
+   * @param totalSize    The total number of entries in the leaderboard.
+   * @param isDescending Whether the entries were read from highest to lowest.
+   * @return The leaderboard entries with their overall positions.
+   */
+  private static List<LeaderboardEntry> toEntries(
+      final List<Tuple> entries,
+      final long position,
+      final long totalSize,
+      final boolean isDescending) {
 
-      for (int i = 0; i < entries.size(); i++) {
-        Tuple e = entries.get(i);
+    List<LeaderboardEntry> newEntries = new ArrayList<>();
 
-        long overallPosition = position + i;
-        if (!isDescending) {
-          overallPosition = totalSize - overallPosition - 1;
-        }
+    for (int i = 0; i < entries.size(); i++) {
+      Tuple e = entries.get(i);
 
-        newEntries.add(
-            new LeaderboardEntry(
-                e.getElement(),
-                e.getScore(),
-                overallPosition));
+      long overallPosition = position + i;
+      if (!isDescending) {
+        overallPosition = totalSize - overallPosition - 1;
       }
 
-      return newEntries;
-
-    } catch (JedisException e) {
-      // Log and handle Redis failures
-      throw new DataControllerException(
-          "Failed to retrieve leaderboard entries", e);
+      newEntries.add(
+          new LeaderboardEntry(
+              e.getElement(),
+              e.getScore(),
+              overallPosition));
     }
+
+    return newEntries;
   }
 
   /**
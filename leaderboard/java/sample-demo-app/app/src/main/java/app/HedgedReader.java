@@ -0,0 +1,343 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package app;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import redis.clients.jedis.UnifiedJedis;
+
+/**
+ * Hedges leaderboard reads against occasional slow Valkey responses, e.g.
+ * while the primary forks for a snapshot. When enabled, a read goes to the
+ * primary first. If it hasn't answered within the p95 latency of recent
+ * primary reads, the same read is sent to the read client, which spreads reads
+ * across the replicas, and whichever answers first wins. The slower read still
+ * completes in the background, and its result is dropped.
+ *
+ * <p>Hedges are capped by a budget, a percentage of all reads, so a primary
+ * that is slow for every read can't double the load on Valkey. Hedges sent and
+ * won are published as valkey.hedge.sent and valkey.hedge.won.
+ *
+ * <p>Reads run on a pool of at most as many threads as there are pooled
+ * connections. Until the hedge delay is known, and whenever every thread is
+ * busy, the primary is read on the calling thread without a hedge, and a hedge
+ * that finds every thread busy isn't sent.
+ *
+ * <p>When disabled, reads go straight to the read client. So do they when the
+ * read client is the primary itself, as a hedge would only be another read
+ * from the node that is already slow.
+ */
+final class HedgedReader implements AutoCloseable {
+
+  /** Number of recent primary read latencies the p95 is taken over. */
+  private static final int SAMPLES = 1000;
+
+  /** Reads aren't hedged until this many primary reads have been timed. */
+  private static final int MIN_SAMPLES = 100;
+
+  /** How often the p95 is recomputed. */
+  private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * Unused budget is kept for at most this many hedges, so a quiet period
+   * can't save up for a burst.
+   */
+  private static final double MAX_TOKENS = 10;
+
+  /** Percentile of primary read latency that triggers a hedge. */
+  private static final double PERCENTILE = 0.95;
+
+  /** How long an idle read thread is kept, in seconds. */
+  private static final long KEEP_ALIVE_SECONDS = 60;
+
+  /**
+   * Result of whichever read answered first.
+   *
+   * @param <T>    The type of the read's result
+   * @param result The read's result
+   * @param hedged Whether the hedge answered first
+   */
+  private record Answer<T>(T result, boolean hedged) { }
+
+  /** Client the reads go to first. */
+  private final UnifiedJedis primary;
+
+  /** Client the hedges go to, spread across the replicas. */
+  private final UnifiedJedis readClient;
+
+  /** Hedges allowed per read. */
+  private final double budgetRatio;
+
+  /** Shortest time a read waits for the primary before it's hedged. */
+  private final long minDelayNanos;
+
+  /** Runs the reads, or {@code null} when hedging is disabled. */
+  private final ThreadPoolExecutor executor;
+
+  /** Counter of hedges sent. */
+  private final Counter sent;
+
+  /** Counter of hedges answered before the primary. */
+  private final Counter won;
+
+  /** Ring of recent primary read latencies, in nanoseconds. */
+  private final long[] samples = new long[SAMPLES];
+
+  /** Number of latencies in the ring. */
+  private int sampleCount;
+
+  /** Position in the ring of the next latency. */
+  private int nextSample;
+
+  /** Hedges the budget currently allows. */
+  private double tokens;
+
+  /** Time a read waits before it's hedged, in nanoseconds. */
+  private volatile long delayNanos = Long.MAX_VALUE;
+
+  /** When the delay was last recomputed. */
+  private volatile long refreshedAt = System.nanoTime();
+
+  /**
+   * Constructs a new HedgedReader.
+   *
+   * @param primaryClient  Client the reads go to first
+   * @param hedgeClient    Client the hedges go to
+   * @param enabled        Whether reads are hedged
+   * @param budgetPercent  Hedges allowed, as a percentage of reads
+   * @param minDelayMillis Shortest time a read waits before it's hedged
+   * @param maxThreads     Most reads and hedges run at once
+   */
+  HedgedReader(
+      final UnifiedJedis primaryClient,
+      final UnifiedJedis hedgeClient,
+      final boolean enabled,
+      final double budgetPercent,
+      final long minDelayMillis,
+      final int maxThreads) {
+    this.primary = primaryClient;
+    this.readClient = hedgeClient;
+    this.budgetRatio = budgetPercent / 100;
+    this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+
+    if (!enabled || readClient == primary) {
+      executor = null;
+      sent = null;
+      won = null;
+      return;
+    }
+    // Reads are handed straight to an idle thread, and rejected rather than
+    // queued when every thread is busy
+    executor = new ThreadPoolExecutor(
+        maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+        new SynchronousQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(runnable, "valkey-hedged-read");
+          thread.setDaemon(true);
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut(true);
+    sent = Counter.builder("valkey.hedge.sent")
+        .description("Reads duplicated to a replica after a slow primary")
+        .register(Metrics.globalRegistry);
+    won = Counter.builder("valkey.hedge.won")
+        .description("Hedged reads answered by the replica first")
+        .register(Metrics.globalRegistry);
+  }
+
+  /**
+   * Runs a read, hedged if the primary is slow and the budget allows it.
+   *
+   * @param <T>     The type of the read's result
+   * @param command The read, given the client to run it with
+   * @return The result of the first read to succeed
+   */
+  <T> T read(final Function<UnifiedJedis, T> command) {
+    if (executor == null) {
+      return command.apply(readClient);
+    }
+
+    long start = System.nanoTime();
+    earnToken();
+    if (start - refreshedAt > REFRESH_NANOS) {
+      refreshDelay();
+    }
+
+    // Reads can't be hedged until enough of them have been timed
+    if (delayNanos == Long.MAX_VALUE) {
+      return readPrimary(command, start);
+    }
+
+    CompletableFuture<T> primaryRead;
+    try {
+      primaryRead = CompletableFuture.supplyAsync(
+          () -> command.apply(primary), executor);
+    } catch (RejectedExecutionException e) {
+      // Every thread is busy, so read on this one without a hedge
+      return readPrimary(command, start);
+    }
+    // Slow reads are timed too, even when a hedge wins
+    primaryRead.thenRun(() -> record(System.nanoTime() - start));
+
+    try {
+      return primaryRead.get(delayNanos, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      if (!spendToken()) {
+        return join(primaryRead);
+      }
+    } catch (ExecutionException e) {
+      throw unwrap(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+
+    CompletableFuture<T> hedgeRead;
+    try {
+      hedgeRead = CompletableFuture.supplyAsync(
+          () -> command.apply(readClient), executor);
+    } catch (RejectedExecutionException e) {
+      // Every thread is busy, so wait for the primary
+      return join(primaryRead);
+    }
+    sent.increment();
+
+    // The first successful read wins. If both fail, the primary's error is
+    // thrown.
+    CompletableFuture<Answer<T>> first = new CompletableFuture<>();
+    primaryRead.thenAccept(
+        result -> first.complete(new Answer<>(result, false)));
+    hedgeRead.thenAccept(
+        result -> first.complete(new Answer<>(result, true)));
+    primaryRead.exceptionally(error -> {
+      hedgeRead.whenComplete((result, hedgeError) -> {
+        if (hedgeError != null) {
+          first.completeExceptionally(error);
+        }
+      });
+      return null;
+    });
+    Answer<T> answer = join(first);
+    if (answer.hedged()) {
+      won.increment();
+    }
+    return answer.result();
+  }
+
+  /**
+   * Reads from the primary on the calling thread, and times the read.
+   *
+   * @param <T>     The type of the read's result
+   * @param command The read, given the client to run it with
+   * @param start   When the read started, from {@link System#nanoTime()}
+   * @return The read's result
+   */
+  private <T> T readPrimary(
+      final Function<UnifiedJedis, T> command, final long start) {
+    T result = command.apply(primary);
+    record(System.nanoTime() - start);
+    return result;
+  }
+
+  /** Stops the reads' threads. */
+  @Override
+  public void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Records the latency of a primary read.
+   *
+   * @param nanos The read's duration in nanoseconds
+   */
+  private synchronized void record(final long nanos) {
+    samples[nextSample] = nanos;
+    nextSample = (nextSample + 1) % SAMPLES;
+    sampleCount = Math.min(sampleCount + 1, SAMPLES);
+  }
+
+  /** Recomputes the hedge delay from the recent primary read latencies. */
+  private synchronized void refreshDelay() {
+    refreshedAt = System.nanoTime();
+    if (sampleCount < MIN_SAMPLES) {
+      return;
+    }
+    long[] sorted = Arrays.copyOf(samples, sampleCount);
+    Arrays.sort(sorted);
+    long p95 = sorted[(int) Math.ceil(sampleCount * PERCENTILE) - 1];
+    delayNanos = Math.max(minDelayNanos, p95);
+  }
+
+  /** Adds a read's share of the hedge budget. */
+  private synchronized void earnToken() {
+    tokens = Math.min(MAX_TOKENS, tokens + budgetRatio);
+  }
+
+  /**
+   * Takes one hedge from the budget.
+   *
+   * @return Whether the budget allowed a hedge
+   */
+  private synchronized boolean spendToken() {
+    if (tokens < 1) {
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+
+  /**
+   * Waits for a read to complete.
+   *
+   * @param <T>    The type of the read's result
+   * @param future The read
+   * @return The read's result
+   */
+  private static <T> T join(final CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      throw unwrap(e.getCause());
+    }
+  }
+
+  /**
+   * Unwraps a read's error, so Valkey errors are thrown as if the read hadn't
+   * been hedged.
+   *
+   * @param error The read's error
+   * @return The error to throw
+   */
+  private static RuntimeException unwrap(final Throwable error) {
+    if (error instanceof RuntimeException cause) {
+      return cause;
+    }
+    return new IllegalStateException(error);
+  }
+}
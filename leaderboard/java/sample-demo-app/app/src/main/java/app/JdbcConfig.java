@@ -15,17 +15,17 @@
  */
 
 /** Configuration for the JDBC DataSource to
- * connect to the PostgreSQL server.
+ * connect to the PostgreSQL server. Connections are pooled, so the pool
+ * size bounds how many queries can run at once.
  */
 
 package app;
 
+import com.zaxxer.hikari.HikariDataSource;
 import javax.sql.DataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
-
 
 @Configuration
 public class JdbcConfig {
@@ -42,13 +42,21 @@ public class JdbcConfig {
   @Value("${DB_PASSWORD:}")
   private String password;
 
+  /** Maximum number of pooled database connections. */
+  @Value("${DB_POOL_SIZE:10}")
+  private int poolSize;
+
+  /** How long a request waits for a free pooled connection. */
+  @Value("${DB_POOL_MAX_WAIT_MS:2000}")
+  private long poolMaxWaitMillis;
+
   /**
    * Creates and configures the database DataSource.
    *
    * @return configured DataSource
    * @throws IllegalArgumentException if required properties are missing
    */
-  @Bean
+  @Bean(destroyMethod = "close")
   public DataSource dataSource() {
     if (url == null || url.isEmpty()) {
       throw new IllegalArgumentException(
@@ -58,12 +66,18 @@ public class JdbcConfig {
       throw new IllegalArgumentException(
           "Database username (DB_USERNAME) is not configured");
     }
+    if (poolSize <= 0) {
+      throw new IllegalArgumentException(
+          "Database pool size (DB_POOL_SIZE) is invalid");
+    }
 
-    DriverManagerDataSource dataSource = new DriverManagerDataSource();
+    HikariDataSource dataSource = new HikariDataSource();
     dataSource.setDriverClassName("org.postgresql.Driver");
-    dataSource.setUrl(url);
+    dataSource.setJdbcUrl(url);
     dataSource.setUsername(username);
     dataSource.setPassword(password);
+    dataSource.setMaximumPoolSize(poolSize);
+    dataSource.setConnectionTimeout(poolMaxWaitMillis);
 
     return dataSource;
   }
@@ -14,18 +14,63 @@
  * limitations under the License.
  */
 
-/** Configuration for the Jedis client to connect to the Valkey server. */
+/**
+ * Configuration for the Jedis client to connect to the Valkey server.
+ * Requests share a pool of connections, so the pool size bounds how many
+ * commands can be in flight at once. Every call goes through a circuit
+ * breaker, so while Valkey is down requests fail fast instead of each
+ * waiting out the command timeout.
+ *
+ * <p>Writes go to the primary through the jedis client. Reads that tolerate
+ * replication lag can use the readJedis client, which spreads them across the
+ * read replicas in VALKEY_READ_HOSTS. With VALKEY_HEDGE_ENABLED, those reads
+ * go to the primary first and are hedged to the replicas when it's slow.
+ *
+ * <p>With VALKEY_CLUSTER_ENABLED, both clients are a single cluster client that
+ * discovers the cluster from VALKEY_HOST and routes each command to the node
+ * that owns its key's slot. Commands still time out quickly, but the cluster
+ * client manages its own per-node pools, so no circuit-breaking pool is
+ * created, the VALKEY_BREAKER_* settings don't apply, and VALKEY_READ_HOSTS
+ * is ignored.
+ */
 
 package app;
 
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import redis.clients.jedis.Jedis;
+import org.springframework.context.annotation.Primary;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisClientConfig;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
 
 @Configuration
 public class JedisConfig {
 
+  /** Logger for circuit breaker state changes and cluster mode. */
+  private static final Logger LOGGER = LoggerFactory
+      .getLogger(JedisConfig.class);
+
   /** Maximum valid port number for TCP/IP. */
   private static final int MAX_PORT = 65535;
 
@@ -41,13 +86,128 @@ public class JedisConfig {
   @Value("${VALKEY_PASSWORD:}") // Empty by default if not set
   private String redisPassword;
 
+  /** Maximum number of pooled connections to valkey. */
+  @Value("${VALKEY_POOL_SIZE:32}")
+  private int poolSize;
+
+  /** How long a request waits for a free pooled connection. */
+  @Value("${VALKEY_POOL_MAX_WAIT_MS:2000}")
+  private long poolMaxWaitMillis;
+
+  /** Timeout for opening a connection, kept short to fail fast. */
+  @Value("${VALKEY_CONNECT_TIMEOUT_MS:500}")
+  private int connectTimeoutMillis;
+
+  /** Timeout for a command's reply, kept short to fail fast. */
+  @Value("${VALKEY_TIMEOUT_MS:500}")
+  private int commandTimeoutMillis;
+
+  /** Percentage of failed calls that opens the circuit breaker. */
+  @Value("${VALKEY_BREAKER_FAILURE_RATE:50}")
+  private float breakerFailureRate;
+
+  /** Number of recent calls the failure rate is taken over. */
+  @Value("${VALKEY_BREAKER_WINDOW_SIZE:20}")
+  private int breakerWindowSize;
+
+  /** How long the breaker stays open before probing. */
+  @Value("${VALKEY_BREAKER_OPEN_MS:5000}")
+  private long breakerOpenMillis;
+
+  /** Probe calls let through while the breaker is half-open. */
+  @Value("${VALKEY_BREAKER_HALF_OPEN_CALLS:3}")
+  private int breakerHalfOpenCalls;
+
+  /** Comma-separated host[:port] list of read replicas. */
+  @Value("${VALKEY_READ_HOSTS:}")
+  private String readHosts;
+
+  /** How far behind the primary a replica may be and still serve reads. */
+  @Value("${VALKEY_REPLICA_MAX_STALENESS_MS:2000}")
+  private long replicaMaxStalenessMillis;
+
+  /** How often replica staleness is measured. */
+  @Value("${VALKEY_REPLICA_CHECK_MS:500}")
+  private long replicaCheckMillis;
+
+  /** Whether VALKEY_HOST is the discovery endpoint of a cluster. */
+  @Value("${VALKEY_CLUSTER_ENABLED:false}")
+  private boolean clusterEnabled;
+
+  /** Whether leaderboard reads are hedged against a slow primary. */
+  @Value("${VALKEY_HEDGE_ENABLED:false}")
+  private boolean hedgeEnabled;
+
+  /** Hedged reads allowed, as a percentage of all reads. */
+  @Value("${VALKEY_HEDGE_BUDGET_PERCENT:5}")
+  private double hedgeBudgetPercent;
+
+  /** Shortest time a read waits for the primary before it's hedged. */
+  @Value("${VALKEY_HEDGE_MIN_DELAY_MS:1}")
+  private long hedgeMinDelayMillis;
+
   /**
-   * Creates and configures a Jedis client.
+   * Creates the registry of circuit breakers. Only connection failures and
+   * timeouts trip a breaker.
    *
-   * @return Configured Jedis client instance
+   * @return Circuit breaker registry
    */
   @Bean
-  public Jedis jedis() {
+  public CircuitBreakerRegistry circuitBreakerRegistry() {
+    CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+        .failureRateThreshold(breakerFailureRate)
+        .slidingWindowSize(breakerWindowSize)
+        .minimumNumberOfCalls(breakerWindowSize)
+        .waitDurationInOpenState(Duration.ofMillis(breakerOpenMillis))
+        .permittedNumberOfCallsInHalfOpenState(breakerHalfOpenCalls)
+        .automaticTransitionFromOpenToHalfOpenEnabled(true)
+        .recordExceptions(JedisConnectionException.class)
+        .build();
+    return CircuitBreakerRegistry.of(config);
+  }
+
+  /**
+   * Publishes the state and call metrics of every circuit breaker, such as
+   * resilience4j.circuitbreaker.state.
+   *
+   * @param registry Circuit breaker registry
+   * @return Metrics binder for the registry
+   */
+  @Bean
+  public MeterBinder circuitBreakerMetrics(
+      final CircuitBreakerRegistry registry) {
+    return TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry);
+  }
+
+  /**
+   * Creates the pool of connections to the primary, shared by the primary
+   * client and reads that fall back to it. Not created in cluster mode, where
+   * the cluster client pools connections to each node itself.
+   *
+   * @param circuitBreakerRegistry Registry of the Valkey circuit breakers
+   * @return Pool of connections to the primary
+   */
+  @Bean(destroyMethod = "close")
+  @ConditionalOnProperty(name = "VALKEY_CLUSTER_ENABLED",
+      havingValue = "false", matchIfMissing = true)
+  CircuitBreakingConnectionProvider valkeyConnectionProvider(
+      final CircuitBreakerRegistry circuitBreakerRegistry) {
+    return connectionProvider(new HostAndPort(redisHost, redisPort),
+        circuitBreakerRegistry.circuitBreaker("valkey"), "primary");
+  }
+
+  /**
+   * Creates and configures a pooled Jedis client for the primary, or a
+   * cluster client in cluster mode.
+   *
+   * @param provider Pool of connections to the primary, absent in cluster
+   *                 mode
+   * @return Configured Jedis client instance
+   */
+  @Bean(destroyMethod = "close")
+  @Primary
+  public UnifiedJedis jedis(
+      final ObjectProvider<CircuitBreakingConnectionProvider> provider) {
     // Validate mandatory properties
     if (redisHost == null || redisHost.isEmpty()) {
       throw new IllegalArgumentException(
@@ -57,22 +217,152 @@ public class JedisConfig {
       throw new IllegalArgumentException(
           "Redis port (VALKEY_PORT) is invalid");
     }
+    if (poolSize <= 0) {
+      throw new IllegalArgumentException(
+          "Redis pool size (VALKEY_POOL_SIZE) is invalid");
+    }
 
-    Jedis jedis = new Jedis(redisHost, redisPort);
-
-    // Authenticate if a password is set
-    if (!redisPassword.isEmpty()) {
-      jedis.auth(redisPassword);
+    UnifiedJedis jedis;
+    if (clusterEnabled) {
+      LOGGER.warn("Valkey cluster mode: no circuit breaker or replica"
+          + " routing{}",
+          readHosts.isBlank() ? "" : ", ignoring VALKEY_READ_HOSTS");
+      jedis = new JedisCluster(Set.of(new HostAndPort(redisHost, redisPort)),
+          clientConfig(), poolConfig());
+    } else {
+      jedis = new JedisPooled(provider.getObject());
     }
 
     // Verify the connection to the Redis server
     try {
       jedis.ping();
     } catch (Exception e) {
+      jedis.close();
       throw new RuntimeException("Failed to connect to Redis server at "
           + redisHost + ":" + redisPort, e);
     }
 
     return jedis;
   }
+
+  /**
+   * Creates a Jedis client for reads that tolerate replication lag. Without
+   * replicas, it reads from the primary. In cluster mode it's the cluster
+   * client itself, which is safe to close twice.
+   *
+   * @param provider               Pool of connections to the primary, absent
+   *                               in cluster mode
+   * @param circuitBreakerRegistry Registry of the Valkey circuit breakers
+   * @param jedis                  The primary client
+   * @return Jedis client spreading reads across the replicas
+   */
+  @Bean(destroyMethod = "close")
+  public UnifiedJedis readJedis(
+      final ObjectProvider<CircuitBreakingConnectionProvider> provider,
+      final CircuitBreakerRegistry circuitBreakerRegistry,
+      final UnifiedJedis jedis) {
+    if (clusterEnabled) {
+      return jedis;
+    }
+
+    List<CircuitBreakingConnectionProvider> replicas = new ArrayList<>();
+    for (String readHost : readHosts.split(",")) {
+      if (readHost.isBlank()) {
+        continue;
+      }
+      HostAndPort hostAndPort = readHost.contains(":")
+          ? HostAndPort.from(readHost.trim())
+          : new HostAndPort(readHost.trim(), redisPort);
+      CircuitBreaker circuitBreaker = circuitBreakerRegistry
+          .circuitBreaker("valkey-replica-" + hostAndPort);
+      replicas.add(connectionProvider(hostAndPort, circuitBreaker, "replica"));
+    }
+
+    return new UnifiedJedis(new ReplicaConnectionProvider(provider.getObject(),
+        replicas, replicaMaxStalenessMillis, replicaCheckMillis));
+  }
+
+  /**
+   * Creates the reader that hedges reads against a slow primary. When
+   * hedging is disabled, it reads straight from the read client.
+   *
+   * @param jedis     The primary client
+   * @param readJedis Client spreading reads across the replicas
+   * @return Reader for reads that tolerate replication lag
+   */
+  @Bean(destroyMethod = "close")
+  HedgedReader hedgedReader(
+      final UnifiedJedis jedis,
+      @Qualifier("readJedis") final UnifiedJedis readJedis) {
+    if (hedgeBudgetPercent < 0) {
+      throw new IllegalArgumentException(
+          "Hedge budget (VALKEY_HEDGE_BUDGET_PERCENT) is invalid");
+    }
+    if (hedgeMinDelayMillis < 0) {
+      throw new IllegalArgumentException(
+          "Hedge delay (VALKEY_HEDGE_MIN_DELAY_MS) is invalid");
+    }
+    // Without replicas, a hedge would only read from the slow primary again
+    boolean hedge = hedgeEnabled && !clusterEnabled && !readHosts.isBlank();
+    if (hedgeEnabled && !hedge) {
+      LOGGER.warn("Valkey hedged reads need replicas (VALKEY_READ_HOSTS)"
+          + " outside cluster mode, so they're disabled");
+    }
+    // A read holds a connection, so more threads than pooled connections
+    // would only wait for one
+    return new HedgedReader(jedis, readJedis, hedge,
+        hedgeBudgetPercent, hedgeMinDelayMillis, poolSize);
+  }
+
+  /**
+   * Creates a pool of connections to a Valkey node.
+   *
+   * @param hostAndPort    Address of the node
+   * @param circuitBreaker Circuit breaker guarding the node
+   * @param role           The node's role, primary or replica
+   * @return Pool of connections to the node
+   */
+  private CircuitBreakingConnectionProvider connectionProvider(
+      final HostAndPort hostAndPort,
+      final CircuitBreaker circuitBreaker,
+      final String role) {
+    circuitBreaker.getEventPublisher().onStateTransition(event ->
+        LOGGER.warn("Valkey circuit breaker {}: {}",
+            circuitBreaker.getName(), event.getStateTransition()));
+
+    return new CircuitBreakingConnectionProvider(
+        hostAndPort, clientConfig(), poolConfig(), circuitBreaker, role);
+  }
+
+  /**
+   * Creates the configuration of a connection pool. In cluster mode, each
+   * node gets a pool of this size.
+   *
+   * @return Configuration of the connection pool
+   */
+  private GenericObjectPoolConfig<Connection> poolConfig() {
+    GenericObjectPoolConfig<Connection> poolConfig =
+        new GenericObjectPoolConfig<>();
+    poolConfig.setMaxTotal(poolSize);
+    poolConfig.setMaxIdle(poolSize);
+    poolConfig.setMaxWait(Duration.ofMillis(poolMaxWaitMillis));
+    return poolConfig;
+  }
+
+  /**
+   * Creates the timeouts and credentials for each connection.
+   *
+   * @return Configuration of the connections
+   */
+  private JedisClientConfig clientConfig() {
+    // Authenticate if a password is set
+    DefaultJedisClientConfig.Builder clientConfig =
+        DefaultJedisClientConfig.builder()
+            .connectionTimeoutMillis(connectTimeoutMillis)
+            .socketTimeoutMillis(commandTimeoutMillis);
+    if (!redisPassword.isEmpty()) {
+      clientConfig.password(redisPassword);
+    }
+    return clientConfig.build();
+  }
 }
@@ -26,6 +26,8 @@ import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -37,7 +39,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Builder;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.exceptions.JedisException;
 import redis.clients.jedis.resps.Tuple;
 
@@ -47,12 +53,33 @@ class DataControllerTest {
   @Mock
   private LeaderboardRepository leaderboardRepository;
   @Mock
-  private Jedis jedis;
+  private UnifiedJedis jedis;
+  @Mock
+  private Pipeline pipeline;
   private DataController dataController;
 
   @BeforeEach
   void setUp() {
-    dataController = new DataController(jedis, leaderboardRepository);
+    // Without read replicas, reads use the primary client
+    dataController = new DataController(
+        jedis, new HedgedReader(jedis, jedis, false, 0, 0, 1),
+        leaderboardRepository);
+    lenient().when(jedis.pipelined()).thenReturn(pipeline);
+  }
+
+  /**
+   * Creates a pipeline response that has already been synced with a value.
+   */
+  private static <T> Response<T> response(final Object value) {
+    Response<T> response = new Response<>(new Builder<T>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public T build(final Object data) {
+        return (T) data;
+      }
+    });
+    response.set(value);
+    return response;
   }
 
   @Nested
@@ -69,9 +96,8 @@ class DataControllerTest {
       mockEntries.add(new Tuple("user1", 100.0));
       mockEntries.add(new Tuple("user2", 90.0));
 
-      given(jedis.zcard(cacheKey)).willReturn(3L);
-      given(jedis.zrevrangeWithScores(cacheKey, position, position + pageSize - 1))
-          .willReturn(mockEntries);
+      given(pipeline.zcard(cacheKey)).willReturn(response(3L));
+      given(pipeline.zrevrangeWithScores(cacheKey, position, position + pageSize - 1)).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -86,6 +112,29 @@ class DataControllerTest {
       assertEquals(90.0, response.getEntries().get(1).getScore());
     }
 
+    @Test
+    @DisplayName("Should read pages with the read client")
+    void testGetLeaderboard_ReadClient() {
+      final UnifiedJedis readJedis = mock(UnifiedJedis.class);
+      final Pipeline readPipeline = mock(Pipeline.class);
+      final DataController controller =
+          new DataController(jedis,
+              new HedgedReader(jedis, readJedis, false, 0, 0, 1),
+              leaderboardRepository);
+      final String cacheKey = Global.LEADERBOARD_ENTRIES_KEY;
+
+      given(readJedis.pipelined()).willReturn(readPipeline);
+      given(readPipeline.zcard(cacheKey)).willReturn(response(1L));
+      given(readPipeline.zrevrangeWithScores(cacheKey, 0, 9))
+          .willReturn(response(List.of(new Tuple("user1", 100.0))));
+
+      final LeaderboardResponse response = controller.getLeaderboard(
+          0, OrderByType.HIGH_TO_LOW, 10, null);
+
+      assertEquals(1, response.getEntries().size());
+      verify(jedis, never()).pipelined();
+    }
+
     @Test
     @DisplayName("Should return paginated entries in ascending order")
     void testGetLeaderboard_AscendingOrder() {
@@ -96,9 +145,8 @@ class DataControllerTest {
       mockEntries.add(new Tuple("user3", 80.0));
       mockEntries.add(new Tuple("user2", 90.0));
 
-      given(jedis.zcard(cacheKey)).willReturn(3L);
-      given(jedis.zrangeWithScores(cacheKey, position, position + pageSize - 1))
-          .willReturn(mockEntries);
+      given(pipeline.zcard(cacheKey)).willReturn(response(3L));
+      given(pipeline.zrangeWithScores(cacheKey, position, position + pageSize - 1)).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -124,9 +172,9 @@ class DataControllerTest {
       mockEntries.add(new Tuple("user1", 100.0));
       mockEntries.add(new Tuple("user1_alt", 95.0));
 
-      given(jedis.zcard(cacheKey)).willReturn(3L);
-      given(jedis.zrevrangeWithScores(cacheKey, position, position + pageSize - 1))
-          .willReturn(mockEntries);
+      given(pipeline.zcard(cacheKey)).willReturn(response(3L));
+      given(pipeline.zrevrank(cacheKey, username)).willReturn(response(null));
+      given(pipeline.zrevrangeWithScores(cacheKey, position, position + pageSize - 1)).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -147,6 +195,7 @@ class DataControllerTest {
       dbEntries.add(new LeaderboardEntry("user1", 100.0));
       dbEntries.add(new LeaderboardEntry("user2", 90.0));
 
+      given(pipeline.zcard(cacheKey)).willReturn(response(0L));
       given(jedis.zcard(cacheKey)).willReturn(0L);
       given(leaderboardRepository.getEntries()).willReturn(dbEntries);
 
@@ -163,8 +212,8 @@ class DataControllerTest {
       final List<Tuple> mockEntries = new ArrayList<>();
       mockEntries.add(new Tuple("user1", 100.0));
 
-      given(jedis.zcard(cacheKey)).willReturn(1L);
-      given(jedis.zrevrangeWithScores(cacheKey, 0, 0)).willReturn(mockEntries);
+      given(pipeline.zcard(cacheKey)).willReturn(response(1L));
+      given(pipeline.zrevrangeWithScores(cacheKey, 0, 0)).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           0,
@@ -186,10 +235,9 @@ class DataControllerTest {
       mockEntries.add(new Tuple("user1", 100.0));
       mockEntries.add(new Tuple("user2", 90.0));
 
-      given(jedis.zrevrank(cacheKey, username)).willReturn(2L);
-      given(jedis.zcard(cacheKey)).willReturn(10L);
-      given(jedis.zrevrangeWithScores(anyString(), anyLong(), anyLong()))
-          .willReturn(mockEntries);
+      given(pipeline.zrevrank(cacheKey, username)).willReturn(response(2L));
+      given(pipeline.zcard(cacheKey)).willReturn(response(10L));
+      given(pipeline.zrevrangeWithScores(anyString(), anyLong(), anyLong())).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -202,7 +250,7 @@ class DataControllerTest {
           response.getEntries().size(),
           "Expected 2 entries in response, but got " + response.getEntries().size());
 
-      verify(jedis).zrevrangeWithScores(cacheKey, 2, 3);
+      verify(pipeline).zrevrangeWithScores(cacheKey, 2, 3);
     }
 
     @Test
@@ -216,10 +264,9 @@ class DataControllerTest {
       mockEntries.add(new Tuple("user3", 80.0));
       mockEntries.add(new Tuple("user4", 70.0));
 
-      given(jedis.zrevrank(cacheKey, username)).willReturn(2L);
-      given(jedis.zcard(cacheKey)).willReturn(10L);
-      given(jedis.zrevrangeWithScores(anyString(), anyLong(), anyLong()))
-          .willReturn(mockEntries);
+      given(pipeline.zrevrank(cacheKey, username)).willReturn(response(2L));
+      given(pipeline.zcard(cacheKey)).willReturn(response(10L));
+      given(pipeline.zrevrangeWithScores(anyString(), anyLong(), anyLong())).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -232,7 +279,7 @@ class DataControllerTest {
           response.getEntries().size(),
           "Expected 2 entries in response, but got " + response.getEntries().size());
 
-      verify(jedis).zrevrangeWithScores(cacheKey, 3, 4);
+      verify(pipeline).zrevrangeWithScores(cacheKey, 3, 4);
     }
 
     @Test
@@ -246,10 +293,9 @@ class DataControllerTest {
       mockEntries.add(new Tuple("user3", 120.0));
       mockEntries.add(new Tuple("user4", 130.0));
 
-      given(jedis.zrevrank(cacheKey, username)).willReturn(2L);
-      given(jedis.zcard(cacheKey)).willReturn(10L);
-      given(jedis.zrangeWithScores(anyString(), anyLong(), anyLong()))
-          .willReturn(mockEntries);
+      given(pipeline.zrevrank(cacheKey, username)).willReturn(response(2L));
+      given(pipeline.zcard(cacheKey)).willReturn(response(10L));
+      given(pipeline.zrangeWithScores(anyString(), anyLong(), anyLong())).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -262,8 +308,8 @@ class DataControllerTest {
           response.getEntries().size(),
           "Expected 2 entries in response, but got " + response.getEntries().size());
 
-      verify(jedis).zrangeWithScores(cacheKey, 7, 8);
-      verify(jedis, never()).zrevrangeWithScores(anyString(), anyLong(), anyLong());
+      verify(pipeline).zrangeWithScores(cacheKey, 7, 8);
+      verify(pipeline, never()).zrevrangeWithScores(anyString(), anyLong(), anyLong());
     }
 
     @Test
@@ -277,10 +323,9 @@ class DataControllerTest {
       mockEntries.add(new Tuple("user5", 140.0));
       mockEntries.add(new Tuple("user6", 150.0));
 
-      given(jedis.zrevrank(cacheKey, username)).willReturn(2L);
-      given(jedis.zcard(cacheKey)).willReturn(10L);
-      given(jedis.zrangeWithScores(anyString(), anyLong(), anyLong()))
-          .willReturn(mockEntries);
+      given(pipeline.zrevrank(cacheKey, username)).willReturn(response(2L));
+      given(pipeline.zcard(cacheKey)).willReturn(response(10L));
+      given(pipeline.zrangeWithScores(anyString(), anyLong(), anyLong())).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -293,8 +338,8 @@ class DataControllerTest {
           response.getEntries().size(),
           "Expected 2 entries in response, but got " + response.getEntries().size());
 
-      verify(jedis).zrangeWithScores(cacheKey, 8L, 9L);
-      verify(jedis, never()).zrevrangeWithScores(anyString(), anyLong(), anyLong());
+      verify(pipeline).zrangeWithScores(cacheKey, 8L, 9L);
+      verify(pipeline, never()).zrevrangeWithScores(anyString(), anyLong(), anyLong());
     }
 
     @Test
@@ -305,10 +350,10 @@ class DataControllerTest {
       final String cacheKey = Global.LEADERBOARD_ENTRIES_KEY;
 
       // Mock 200 entries in the leaderboard
-      given(jedis.zcard(cacheKey)).willReturn(200L);
+      given(pipeline.zcard(cacheKey)).willReturn(response(200L));
 
       // Mock that user14 is at position 13 (0-based index)
-      given(jedis.zrevrank(cacheKey, username)).willReturn(13L);
+      given(pipeline.zrevrank(cacheKey, username)).willReturn(response(13L));
 
       // First page (position 0) - should show users 14 through 5
       List<Tuple> firstPageEntries = new ArrayList<>();
@@ -327,8 +372,8 @@ class DataControllerTest {
       // - In ascending order, their position is 200 - 13 - 1 = 186
       // - First page starts at 186 + 0 = 186
       // - Second page starts at 186 + 1 = 187
-      lenient().doReturn(firstPageEntries).when(jedis).zrangeWithScores(cacheKey, 186L, 195L);
-      lenient().doReturn(secondPageEntries).when(jedis).zrangeWithScores(cacheKey, 187L, 196L);
+      lenient().doReturn(response(firstPageEntries)).when(pipeline).zrangeWithScores(cacheKey, 186L, 195L);
+      lenient().doReturn(response(secondPageEntries)).when(pipeline).zrangeWithScores(cacheKey, 187L, 196L);
 
       // Test first page
       LeaderboardResponse firstPageResponse = dataController.getLeaderboard(
@@ -359,8 +404,8 @@ class DataControllerTest {
       }
 
       // Verify Redis calls
-      verify(jedis).zrangeWithScores(cacheKey, 186L, 195L); // First page
-      verify(jedis).zrangeWithScores(cacheKey, 187L, 196L); // Second page
+      verify(pipeline).zrangeWithScores(cacheKey, 186L, 195L); // First page
+      verify(pipeline).zrangeWithScores(cacheKey, 187L, 196L); // Second page
     }
 
     @Test
@@ -369,6 +414,7 @@ class DataControllerTest {
       final String cacheKey = Global.LEADERBOARD_ENTRIES_KEY;
       final List<LeaderboardEntry> emptyList = new ArrayList<>();
 
+      given(pipeline.zcard(cacheKey)).willReturn(response(0L));
       given(jedis.zcard(cacheKey)).willReturn(0L);
       given(leaderboardRepository.getEntries()).willReturn(emptyList);
 
@@ -392,9 +438,8 @@ class DataControllerTest {
       mockEntries.add(new Tuple("user1", 100.0));
       mockEntries.add(new Tuple("user2", 90.0));
 
-      given(jedis.zcard(cacheKey)).willReturn(2L);
-      given(jedis.zrevrangeWithScores(cacheKey, position, position + pageSize - 1))
-          .willReturn(mockEntries);
+      given(pipeline.zcard(cacheKey)).willReturn(response(2L));
+      given(pipeline.zrevrangeWithScores(cacheKey, position, position + pageSize - 1)).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -403,7 +448,42 @@ class DataControllerTest {
           null);
 
       assertEquals(2, response.getEntries().size());
-      verify(jedis, never()).zrevrank(anyString(), anyString());
+      verify(pipeline, never()).zrevrank(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should read a page without a username in a single round trip")
+    void testGetLeaderboard_SingleRoundTrip() {
+      final String cacheKey = Global.LEADERBOARD_ENTRIES_KEY;
+      final List<Tuple> mockEntries = new ArrayList<>();
+      mockEntries.add(new Tuple("user1", 100.0));
+
+      given(pipeline.zcard(cacheKey)).willReturn(response(1L));
+      given(pipeline.zrevrangeWithScores(cacheKey, 0L, 9L)).willReturn(response(mockEntries));
+
+      dataController.getLeaderboard(0, OrderByType.HIGH_TO_LOW, 10, null);
+
+      verify(pipeline, times(1)).sync();
+      verify(pipeline).close();
+      verify(jedis, never()).zcard(anyString());
+    }
+
+    @Test
+    @DisplayName("Should read a page around a user in two round trips")
+    void testGetLeaderboard_UsernameRoundTrips() {
+      final String username = "user1";
+      final String cacheKey = Global.LEADERBOARD_ENTRIES_KEY;
+      final List<Tuple> mockEntries = new ArrayList<>();
+      mockEntries.add(new Tuple("user1", 100.0));
+
+      given(pipeline.zcard(cacheKey)).willReturn(response(10L));
+      given(pipeline.zrevrank(cacheKey, username)).willReturn(response(2L));
+      given(pipeline.zrevrangeWithScores(cacheKey, 2L, 9L)).willReturn(response(mockEntries));
+
+      dataController.getLeaderboard(0, OrderByType.HIGH_TO_LOW, 10, username);
+
+      verify(pipeline, times(2)).sync();
+      verify(pipeline).close();
     }
 
     @Test
@@ -418,7 +498,7 @@ class DataControllerTest {
 
       assertEquals("Invalid pagination parameters: position must be >= 0 and pageSize must be > 0",
           exception.getMessage());
-      verify(jedis, never()).zcard(anyString());
+      verify(jedis, never()).pipelined();
     }
 
     @Test
@@ -433,7 +513,7 @@ class DataControllerTest {
 
       assertEquals("Invalid pagination parameters: position must be >= 0 and pageSize must be > 0",
           exception.getMessage());
-      verify(jedis, never()).zcard(anyString());
+      verify(jedis, never()).pipelined();
     }
 
     @Test
@@ -447,10 +527,9 @@ class DataControllerTest {
       mockEntries.add(new Tuple("user1", 100.0));
       mockEntries.add(new Tuple("user2", 90.0));
 
-      given(jedis.zrevrank(cacheKey, username)).willReturn(null);
-      given(jedis.zcard(cacheKey)).willReturn(10L);
-      given(jedis.zrevrangeWithScores(cacheKey, position, position + pageSize - 1))
-          .willReturn(mockEntries);
+      given(pipeline.zrevrank(cacheKey, username)).willReturn(response(null));
+      given(pipeline.zcard(cacheKey)).willReturn(response(10L));
+      given(pipeline.zrevrangeWithScores(cacheKey, position, position + pageSize - 1)).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -461,8 +540,8 @@ class DataControllerTest {
       assertEquals(2, response.getEntries().size());
       assertEquals("user1", response.getEntries().get(0).getUsername());
       assertEquals("user2", response.getEntries().get(1).getUsername());
-      verify(jedis).zrevrank(cacheKey, username);
-      verify(jedis).zrevrangeWithScores(cacheKey, 0L, 1L);
+      verify(pipeline).zrevrank(cacheKey, username);
+      verify(pipeline).zrevrangeWithScores(cacheKey, 0L, 1L);
     }
 
     @Test
@@ -473,9 +552,8 @@ class DataControllerTest {
       final String cacheKey = Global.LEADERBOARD_ENTRIES_KEY;
       final List<Tuple> mockEntries = new ArrayList<>();
 
-      given(jedis.zcard(cacheKey)).willReturn(50L);
-      given(jedis.zrevrangeWithScores(cacheKey, position, position + pageSize - 1))
-          .willReturn(mockEntries);
+      given(pipeline.zcard(cacheKey)).willReturn(response(50L));
+      given(pipeline.zrevrangeWithScores(cacheKey, position, position + pageSize - 1)).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -484,7 +562,7 @@ class DataControllerTest {
           null);
 
       assertEquals(0, response.getEntries().size());
-      verify(jedis).zrevrangeWithScores(cacheKey, 100L, 109L);
+      verify(pipeline).zrevrangeWithScores(cacheKey, 100L, 109L);
     }
 
     @Test
@@ -495,9 +573,8 @@ class DataControllerTest {
       final String cacheKey = Global.LEADERBOARD_ENTRIES_KEY;
       final List<Tuple> mockEntries = new ArrayList<>();
 
-      given(jedis.zcard(cacheKey)).willReturn(5L);
-      given(jedis.zrevrangeWithScores(cacheKey, position, position + pageSize - 1))
-          .willReturn(mockEntries);
+      given(pipeline.zcard(cacheKey)).willReturn(response(5L));
+      given(pipeline.zrevrangeWithScores(cacheKey, position, position + pageSize - 1)).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -518,9 +595,8 @@ class DataControllerTest {
       final List<Tuple> mockEntries = new ArrayList<>();
       mockEntries.add(new Tuple("lowestScoreUser", 1.0));
 
-      given(jedis.zcard(cacheKey)).willReturn(100L);
-      given(jedis.zrangeWithScores(cacheKey, position, position + pageSize - 1))
-          .willReturn(mockEntries);
+      given(pipeline.zcard(cacheKey)).willReturn(response(100L));
+      given(pipeline.zrangeWithScores(cacheKey, position, position + pageSize - 1)).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -539,6 +615,7 @@ class DataControllerTest {
     void testGetLeaderboard_RedisFailure() {
       final String cacheKey = Global.LEADERBOARD_ENTRIES_KEY;
 
+      given(pipeline.zcard(cacheKey)).willReturn(response(0L));
       when(jedis.zcard(cacheKey)).thenThrow(new JedisException("Redis connection failed"));
 
       DataControllerException exception = assertThrows(
@@ -554,8 +631,9 @@ class DataControllerTest {
     void testGetLeaderboard_RedisFailureDuringRetrieval() {
       final String cacheKey = Global.LEADERBOARD_ENTRIES_KEY;
 
-      given(jedis.zcard(cacheKey)).willReturn(10L); // Cache is already initialized
-      when(jedis.zrevrangeWithScores(cacheKey, 0L, 9L)).thenThrow(new JedisException("Redis connection failed"));
+      given(pipeline.zcard(cacheKey)).willReturn(response(10L)); // Cache is already initialized
+      given(pipeline.zrevrangeWithScores(cacheKey, 0L, 9L))
+          .willReturn(response(new JedisDataException("Redis command failed")));
 
       DataControllerException exception = assertThrows(
           DataControllerException.class,
@@ -570,6 +648,7 @@ class DataControllerTest {
     void testGetLeaderboard_RepositoryFailure() {
       final String cacheKey = Global.LEADERBOARD_ENTRIES_KEY;
 
+      given(pipeline.zcard(cacheKey)).willReturn(response(0L));
       given(jedis.zcard(cacheKey)).willReturn(0L);
       when(leaderboardRepository.getEntries()).thenThrow(new RuntimeException("Database connection failed"));
 
@@ -592,9 +671,9 @@ class DataControllerTest {
       mockEntries.add(new Tuple("user6", 90.0));
 
       // User is at position 4 (0-based) in descending order
-      given(jedis.zrevrank(cacheKey, username)).willReturn(4L);
-      given(jedis.zcard(cacheKey)).willReturn(10L);
-      given(jedis.zrevrangeWithScores(cacheKey, 4L, 8L)).willReturn(mockEntries);
+      given(pipeline.zrevrank(cacheKey, username)).willReturn(response(4L));
+      given(pipeline.zcard(cacheKey)).willReturn(response(10L));
+      given(pipeline.zrevrangeWithScores(cacheKey, 4L, 8L)).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -620,9 +699,9 @@ class DataControllerTest {
 
       // User is at position 4 (0-based) in descending order
       // In ascending order, this becomes position 5 (10 - 4 - 1)
-      given(jedis.zrevrank(cacheKey, username)).willReturn(4L);
-      given(jedis.zcard(cacheKey)).willReturn(10L);
-      given(jedis.zrangeWithScores(cacheKey, 5L, 9L)).willReturn(mockEntries);
+      given(pipeline.zrevrank(cacheKey, username)).willReturn(response(4L));
+      given(pipeline.zcard(cacheKey)).willReturn(response(10L));
+      given(pipeline.zrangeWithScores(cacheKey, 5L, 9L)).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -644,8 +723,8 @@ class DataControllerTest {
       final String cacheKey = Global.LEADERBOARD_ENTRIES_KEY;
 
       // User is at position 4 (0-based) in descending order
-      given(jedis.zrevrank(cacheKey, username)).willReturn(4L);
-      given(jedis.zcard(cacheKey)).willReturn(10L);
+      given(pipeline.zrevrank(cacheKey, username)).willReturn(response(4L));
+      given(pipeline.zcard(cacheKey)).willReturn(response(10L));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -669,9 +748,9 @@ class DataControllerTest {
       mockEntries.add(new Tuple("user9", 10.0));
 
       // User is at position 9 (0-based) in descending order
-      given(jedis.zrevrank(cacheKey, username)).willReturn(9L);
-      given(jedis.zcard(cacheKey)).willReturn(10L);
-      given(jedis.zrevrangeWithScores(cacheKey, 9L, 9L)).willReturn(mockEntries);
+      given(pipeline.zrevrank(cacheKey, username)).willReturn(response(9L));
+      given(pipeline.zcard(cacheKey)).willReturn(response(10L));
+      given(pipeline.zrevrangeWithScores(cacheKey, 9L, 9L)).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
@@ -696,9 +775,9 @@ class DataControllerTest {
       mockEntries.add(new Tuple("user1", 90.0));
 
       // User is at position 0 (0-based) in descending order
-      given(jedis.zrevrank(cacheKey, username)).willReturn(0L);
-      given(jedis.zcard(cacheKey)).willReturn(10L);
-      given(jedis.zrevrangeWithScores(cacheKey, 0L, 4L)).willReturn(mockEntries);
+      given(pipeline.zrevrank(cacheKey, username)).willReturn(response(0L));
+      given(pipeline.zcard(cacheKey)).willReturn(response(10L));
+      given(pipeline.zrevrangeWithScores(cacheKey, 0L, 4L)).willReturn(response(mockEntries));
 
       final LeaderboardResponse response = dataController.getLeaderboard(
           position,
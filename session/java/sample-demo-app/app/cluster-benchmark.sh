@@ -0,0 +1,82 @@
+#!/usr/bin/env bash
+# Copyright 2025 Google LLC
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#      http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+# Local stand-in for a multi-node Valkey cluster, showing how throughput scales
+# as nodes are added. For each cluster size in SIZES, this starts that many
+# primaries in Docker, each limited to CPUS_PER_NODE so the nodes don't compete
+# for the same cores, joins them into a cluster and runs valkey-benchmark in
+# cluster mode. Compare the requests per second between sizes.
+#
+# With KEEP_RUNNING=1 the last cluster is left running, so the app can be
+# started against it with VALKEY_CLUSTER_ENABLED=true VALKEY_HOST=localhost
+# VALKEY_PORT=7000 and load tested with ./load-test.sh. Requires Docker with
+# host networking (Linux).
+#
+# Usage: ./cluster-benchmark.sh
+
+set -euo pipefail
+
+IMAGE="${IMAGE:-valkey/valkey:latest}"
+SIZES="${SIZES:-3 6 9}"
+BASE_PORT="${BASE_PORT:-7000}"
+CPUS_PER_NODE="${CPUS_PER_NODE:-1}"
+REQUESTS="${REQUESTS:-1000000}"
+CLIENTS="${CLIENTS:-200}"
+THREADS="${THREADS:-4}"
+TESTS="${TESTS:-get,set,hset}"
+KEEP_RUNNING="${KEEP_RUNNING:-0}"
+LABEL="valkey-cluster-benchmark"
+
+valkey() {
+  docker run --rm --network host "$IMAGE" "$@"
+}
+
+stop_nodes() {
+  docker ps -q --filter "label=$LABEL" | xargs -r docker rm -f > /dev/null
+}
+
+if [ "$KEEP_RUNNING" != "1" ]; then
+  trap stop_nodes EXIT
+fi
+
+for size in $SIZES; do
+  stop_nodes
+
+  # A cluster needs at least three primaries
+  nodes=()
+  for i in $(seq 0 $((size - 1))); do
+    port=$((BASE_PORT + i))
+    docker run -d --rm --label "$LABEL" --network host --cpus "$CPUS_PER_NODE" \
+      "$IMAGE" valkey-server --port "$port" --cluster-enabled yes \
+      --cluster-config-file "nodes-$port.conf" --save "" --appendonly no \
+      > /dev/null
+    nodes+=("127.0.0.1:$port")
+  done
+
+  for node in "${nodes[@]}"; do
+    until valkey valkey-cli -p "${node#*:}" PING > /dev/null 2>&1; do
+      sleep 0.2
+    done
+  done
+  valkey valkey-cli --cluster create "${nodes[@]}" --cluster-replicas 0 \
+    --cluster-yes > /dev/null
+  until valkey valkey-cli -p "$BASE_PORT" CLUSTER INFO | grep -q "cluster_state:ok"; do
+    sleep 0.5
+  done
+
+  echo "== $size nodes"
+  valkey valkey-benchmark -p "$BASE_PORT" --cluster -q -t "$TESTS" \
+    -n "$REQUESTS" -c "$CLIENTS" --threads "$THREADS" -r 1000000
+done
@@ -18,8 +18,9 @@
  * The Auth controller for the application.
  *
  * <p>The controller contains the following endpoints: - POST /auth/register - Registers a new user
- * - POST /auth/login - Logs in a user - POST /auth/logout - Logs out a user - POST /auth/verify -
- * Verifies a user's token
+ * - POST /auth/login - Logs in a user - POST /auth/logout - Logs out a user - POST
+ * /auth/logout-all - Logs out all sessions of a user - GET /auth/sessions - Lists a user's active
+ * sessions - POST /auth/verify - Verifies a user's token
  */
 
 package app;
@@ -27,6 +28,9 @@ package app;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -113,6 +117,46 @@ public class AuthController {
     return ResponseEntity.ok(Global.LOGGED_OUT);
   }
 
+  @PostMapping("/logout-all")
+  public ResponseEntity<String> logoutAll(HttpServletRequest request) {
+    String token = Utils.getTokenFromCookie(request.getCookies());
+    if (token == null) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Global.INVALID_TOKEN);
+    }
+
+    Session session = dataController.verify(token);
+    if (session == null) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Global.INVALID_TOKEN);
+    }
+
+    // Logout every session of the user
+    dataController.logoutAll(session.getUserId());
+
+    return ResponseEntity.ok(Global.LOGGED_OUT_EVERYWHERE);
+  }
+
+  @GetMapping("/sessions")
+  public ResponseEntity<String> sessions(HttpServletRequest request) {
+    String token = Utils.getTokenFromCookie(request.getCookies());
+    if (token == null) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Global.INVALID_TOKEN);
+    }
+
+    Session session = dataController.verify(token);
+    if (session == null) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Global.INVALID_TOKEN);
+    }
+
+    // Tokens are never returned, only whether a session is the current one
+    JSONArray sessions = new JSONArray();
+    for (Map.Entry<String, Session> entry :
+        dataController.getSessions(session.getUserId()).entrySet()) {
+      sessions.put(entry.getValue().toJson().put("current", entry.getKey().equals(token)));
+    }
+
+    return ResponseEntity.ok(new JSONObject().put("sessions", sessions).toString());
+  }
+
   @PostMapping("/verify")
   public ResponseEntity<String> verify(HttpServletRequest request, HttpServletResponse response) {
     String token = Utils.getTokenFromCookie(request.getCookies());
@@ -121,8 +165,8 @@ public class AuthController {
     }
 
     // Verify token and extend session
-    String username = dataController.verify(token);
-    if (username == null) {
+    Session session = dataController.verify(token);
+    if (session == null) {
       return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Global.INVALID_TOKEN);
     }
 
@@ -130,6 +174,8 @@ public class AuthController {
     Cookie cookie = Utils.createCookie(token);
     response.addCookie(cookie);
     return ResponseEntity.ok(
-        new VerifyResponse(username, cookie.getMaxAge()).toJson().toString());
+        new VerifyResponse(session.getUserId(), session.getUsername(), cookie.getMaxAge())
+            .toJson()
+            .toString());
   }
 }
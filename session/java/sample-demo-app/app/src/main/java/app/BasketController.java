@@ -19,36 +19,50 @@
  *
  * <p>The controller contains the following endpoints: - GET /api/basket - Get all items - POST
  * /api/basket/add - Add item with quantity - POST /api/basket/remove - Remove item quantity - POST
- * /api/basket/clear - Clear entire basket
+ * /api/basket/apply - Apply quantity changes to multiple items - POST /api/basket/clear - Clear
+ * entire basket
+ *
+ * <p>All endpoints require a session, which is resolved by the {@link SessionFilter}.
  */
 
 package app;
 
-import jakarta.servlet.http.HttpServletRequest;
 import java.util.Map;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import redis.clients.jedis.Jedis;
+import redis.clients.jedis.UnifiedJedis;
 
 @RestController
 @RequestMapping("/api/basket")
 public class BasketController {
 
-  private final Jedis jedis;
+  private final UnifiedJedis jedis;
+  private final UnifiedJedis readJedis;
+  private final BasketScript basketScript;
 
-  public BasketController(Jedis jedis) {
+  public BasketController(
+      UnifiedJedis jedis,
+      @Qualifier("readJedis") UnifiedJedis readJedis,
+      BasketScript basketScript) {
     this.jedis = jedis;
+    this.readJedis = readJedis;
+    this.basketScript = basketScript;
   }
 
-  // Get all items
+  // Get all items. The basket is read from a replica when there are any, so a change made a
+  // moment earlier may not show yet.
   @GetMapping
-  public ResponseEntity<Map<String, String>> getBasket(HttpServletRequest request) {
-    String basketKey = getBasketKey(request);
-    return ResponseEntity.ok(jedis.hgetAll(basketKey));
+  public ResponseEntity<Map<String, String>> getBasket(
+      @RequestAttribute(Global.SESSION_ATTRIBUTE) Session session) {
+    String basketKey = Utils.getBasketKey(session.getToken());
+    return ResponseEntity.ok(readJedis.hgetAll(basketKey));
   }
 
   // Add item with quantity
@@ -56,9 +70,9 @@ public class BasketController {
   public ResponseEntity<String> addItem(
       @RequestParam String itemId,
       @RequestParam(defaultValue = "1") int quantity,
-      HttpServletRequest request) {
-    String basketKey = getBasketKey(request);
-    long newQty = jedis.hincrBy(basketKey, itemId, quantity);
+      @RequestAttribute(Global.SESSION_ATTRIBUTE) Session session) {
+    String basketKey = Utils.getBasketKey(session.getToken());
+    long newQty = basketScript.apply(basketKey, Map.of(itemId, quantity)).get(itemId);
     return ResponseEntity.ok("Quantity updated: " + newQty);
   }
 
@@ -67,25 +81,35 @@ public class BasketController {
   public ResponseEntity<String> removeItem(
       @RequestParam String itemId,
       @RequestParam(defaultValue = "1") int quantity,
-      HttpServletRequest request) {
-    String basketKey = getBasketKey(request);
-    long newQty = jedis.hincrBy(basketKey, itemId, -quantity);
+      @RequestAttribute(Global.SESSION_ATTRIBUTE) Session session) {
+    String basketKey = Utils.getBasketKey(session.getToken());
+
+    // Decrement and remove the item atomically once it reaches zero
+    long newQty = basketScript.apply(basketKey, Map.of(itemId, -quantity)).get(itemId);
     if (newQty <= 0) {
-      jedis.hdel(basketKey, itemId);
       return ResponseEntity.ok("Item removed");
     }
     return ResponseEntity.ok("Quantity updated: " + newQty);
   }
 
+  // Apply quantity changes to multiple items in a single request
+  @PostMapping("/apply")
+  public ResponseEntity<Map<String, Long>> applyDelta(
+      @RequestBody Map<String, Integer> deltas,
+      @RequestAttribute(Global.SESSION_ATTRIBUTE) Session session) {
+    if (deltas.isEmpty()) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    String basketKey = Utils.getBasketKey(session.getToken());
+    return ResponseEntity.ok(basketScript.apply(basketKey, deltas));
+  }
+
   // Clear entire basket
   @PostMapping("/clear")
-  public ResponseEntity<String> clearBasket(HttpServletRequest request) {
-    jedis.del(getBasketKey(request));
+  public ResponseEntity<String> clearBasket(
+      @RequestAttribute(Global.SESSION_ATTRIBUTE) Session session) {
+    jedis.del(Utils.getBasketKey(session.getToken()));
     return ResponseEntity.ok("Basket cleared");
   }
-
-  private String getBasketKey(HttpServletRequest request) {
-    String token = Utils.getTokenFromCookie(request.getCookies());
-    return "basket:" + token;
-  }
 }
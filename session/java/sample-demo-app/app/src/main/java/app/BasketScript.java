@@ -0,0 +1,98 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Applies quantity changes to a basket atomically with a server-side script. Each item is
+ * incremented by its delta, and items that drop to zero or below are removed in the same step, so
+ * readers never see zero or negative quantities. The basket also gets the session's TTL.
+ *
+ * <p>The script is loaded once with SCRIPT LOAD and invoked by its SHA. If the server no longer
+ * has it (e.g. after a restart), it is loaded again.
+ */
+
+package app;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+@Component
+public class BasketScript {
+
+  // KEYS[1] is the basket key, ARGV[1] the TTL, followed by item id and delta pairs. Returns item
+  // id and new quantity pairs, where a quantity of 0 means the item was removed.
+  private static final String APPLY_DELTA_SCRIPT =
+      "local result = {} "
+          + "for i = 2, #ARGV, 2 do "
+          + "  local quantity = redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1]) "
+          + "  if quantity <= 0 then "
+          + "    redis.call('HDEL', KEYS[1], ARGV[i]) "
+          + "    quantity = 0 "
+          + "  end "
+          + "  result[#result + 1] = ARGV[i] "
+          + "  result[#result + 1] = quantity "
+          + "end "
+          + "if redis.call('EXISTS', KEYS[1]) == 1 then "
+          + "  redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+          + "end "
+          + "return result";
+
+  private final UnifiedJedis jedis;
+
+  private volatile String sha;
+
+  public BasketScript(UnifiedJedis jedis) {
+    this.jedis = jedis;
+  }
+
+  public Map<String, Long> apply(String basketKey, Map<String, Integer> deltas) {
+    List<String> args = new ArrayList<>();
+    args.add(Integer.toString(Global.TOKEN_EXPIRATION));
+    deltas.forEach(
+        (itemId, delta) -> {
+          args.add(itemId);
+          args.add(Integer.toString(delta));
+        });
+
+    Object result;
+    try {
+      result = jedis.evalsha(getSha(false, basketKey), List.of(basketKey), args);
+    } catch (JedisNoScriptException e) {
+      // The script cache was flushed, or in cluster mode the key's node hasn't loaded the script
+      // yet, so load it there
+      result = jedis.evalsha(getSha(true, basketKey), List.of(basketKey), args);
+    }
+
+    Map<String, Long> quantities = new LinkedHashMap<>();
+    List<?> pairs = (List<?>) result;
+    for (int i = 0; i + 1 < pairs.size(); i += 2) {
+      quantities.put(String.valueOf(pairs.get(i)), (Long) pairs.get(i + 1));
+    }
+    return quantities;
+  }
+
+  private String getSha(boolean reload, String basketKey) {
+    if (sha == null || reload) {
+      // Load the script on the node that owns the key
+      sha = jedis.scriptLoad(APPLY_DELTA_SCRIPT, basketKey);
+    }
+    return sha;
+  }
+}
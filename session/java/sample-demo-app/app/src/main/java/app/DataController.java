@@ -18,17 +18,67 @@
 
 package app;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
-import redis.clients.jedis.Jedis;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.AbstractTransaction;
+import redis.clients.jedis.PipeliningBase;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
 
 @Controller
 public class DataController {
 
+  // Refreshes the session and basket expiration and the last-seen time, then returns the session
+  // hash. Runs as a script so the lookup and the refresh are a single atomic round trip, and an
+  // expired session is never recreated by the HSET. If the user's session index could expire
+  // before the refreshed session, the new index expiry in ARGV[3] is recorded, which tells the
+  // caller to refresh the index.
+  private static final String VERIFY_SESSION_SCRIPT =
+      "if redis.call('EXISTS', KEYS[1]) == 0 then return nil end "
+          + "redis.call('HSET', KEYS[1], '" + Session.LAST_SEEN_FIELD + "', ARGV[2]) "
+          + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+          + "redis.call('EXPIRE', KEYS[2], ARGV[1]) "
+          + "local indexExpiresAt = "
+          + "    tonumber(redis.call('HGET', KEYS[1], '" + Session.INDEX_EXPIRES_AT_FIELD + "')) "
+          + "if not indexExpiresAt "
+          + "    or indexExpiresAt < tonumber(ARGV[2]) + tonumber(ARGV[1]) * 1000 then "
+          + "  redis.call('HSET', KEYS[1], '" + Session.INDEX_EXPIRES_AT_FIELD + "', ARGV[3]) "
+          + "end "
+          + "return redis.call('HGETALL', KEYS[1])";
+
+  // Adds a session to the user's index and gives the index the session TTL, then removes the
+  // oldest sessions beyond the limit, never the new one, and returns their tokens. Runs as a script
+  // so the limit check and the eviction are atomic, and concurrent logins can't both see room for
+  // one more session.
+  private static final String ADD_SESSION_SCRIPT =
+      "redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2]) "
+          + "redis.call('EXPIRE', KEYS[1], ARGV[4]) "
+          + "local excess = redis.call('ZCARD', KEYS[1]) - tonumber(ARGV[3]) "
+          + "local evicted = {} "
+          + "if excess <= 0 then return evicted end "
+          + "for _, token in ipairs(redis.call('ZRANGE', KEYS[1], 0, excess)) do "
+          + "  if #evicted < excess and token ~= ARGV[2] then evicted[#evicted + 1] = token end "
+          + "end "
+          + "redis.call('ZREM', KEYS[1], unpack(evicted)) "
+          + "return evicted";
+
   private final AccountRepository accountRepository;
-  private final Jedis jedis;
+  private final UnifiedJedis jedis;
+
+  // In cluster mode, a transaction can't span slots
+  @Value("${VALKEY_CLUSTER_ENABLED:false}")
+  private boolean clusterEnabled;
 
-  public DataController(AccountRepository accountRepository, Jedis jedis) {
+  public DataController(AccountRepository accountRepository, UnifiedJedis jedis) {
     this.accountRepository = accountRepository;
     this.jedis = jedis;
   }
@@ -49,29 +99,188 @@ public class DataController {
     // Generate token for the user
     String token = Utils.generateToken(Global.TOKEN_BYTE_LENGTH);
 
-    // Store token in Valkey
-    jedis.setex(token, Global.TOKEN_EXPIRATION, username);
+    long now = System.currentTimeMillis();
+    Session session = new Session(userId.get(), username, now, now);
+    String sessionKey = Utils.getSessionKey(token);
+    String userSessionsKey = Utils.getUserSessionsKey(userId.get());
+
+    // Prune expired sessions from the index, so only active ones count toward the limit
+    getSessions(userId.get());
+
+    // Store the session hash and set its expiration atomically. The hash records when the index,
+    // which the script below expires, is due to expire.
+    Map<String, String> sessionFields = new HashMap<>(session.toMap());
+    sessionFields.put(Session.INDEX_EXPIRES_AT_FIELD, Long.toString(indexExpiresAt(now)));
+    execute(
+        transaction -> {
+          transaction.hset(sessionKey, sessionFields);
+          transaction.expire(sessionKey, Global.TOKEN_EXPIRATION);
+        });
+
+    // Add the session to the user's index, evicting the oldest if the user is at the concurrent
+    // session limit
+    Object evicted =
+        jedis.eval(
+            ADD_SESSION_SCRIPT,
+            List.of(userSessionsKey),
+            List.of(
+                Long.toString(now),
+                token,
+                Integer.toString(Global.MAX_SESSIONS_PER_USER),
+                Integer.toString(Global.USER_SESSIONS_EXPIRATION)));
+
+    // Remove the evicted sessions and their baskets
+    if (evicted instanceof List<?> evictedTokens && !evictedTokens.isEmpty()) {
+      execute(
+          transaction -> {
+            for (Object evictedToken : evictedTokens) {
+              transaction.unlink(
+                  Utils.getSessionKey(evictedToken.toString()),
+                  Utils.getBasketKey(evictedToken.toString()));
+            }
+          });
+    }
 
     return token;
   }
 
   public void logout(String token) {
-    jedis.del(token);
+    String sessionKey = Utils.getSessionKey(token);
+
+    // Look up the owner so the token can also be removed from their session index
+    String userId = jedis.hget(sessionKey, Session.USER_ID_FIELD);
+
+    // Remove the session and its basket together
+    execute(
+        transaction -> {
+          transaction.unlink(sessionKey, Utils.getBasketKey(token));
+          if (userId != null) {
+            transaction.zrem(Utils.getUserSessionsKey(Integer.parseInt(userId)), token);
+          }
+        });
+  }
+
+  public void logoutAll(int userId) {
+    String userSessionsKey = Utils.getUserSessionsKey(userId);
+
+    // Only the user's own sessions are touched, so no keyspace scan is needed
+    List<String> tokens = jedis.zrange(userSessionsKey, 0, -1);
+
+    execute(
+        transaction -> {
+          for (String token : tokens) {
+            transaction.unlink(Utils.getSessionKey(token), Utils.getBasketKey(token));
+          }
+          transaction.unlink(userSessionsKey);
+        });
   }
 
-  public String verify(String token) {
-    // Retrieve username from Valkey
-    String username = jedis.get(token);
+  /**
+   * Returns the active sessions of a user keyed by token, oldest first. Sessions expire on their
+   * own, so tokens whose session no longer exists are pruned from the index here.
+   */
+  public Map<String, Session> getSessions(int userId) {
+    String userSessionsKey = Utils.getUserSessionsKey(userId);
+    List<String> tokens = jedis.zrange(userSessionsKey, 0, -1);
+
+    Map<String, Session> sessions = new LinkedHashMap<>();
+    if (tokens == null || tokens.isEmpty()) {
+      return sessions;
+    }
+
+    // Fetch every session in a single round trip
+    Map<String, Response<Map<String, String>>> responses = new LinkedHashMap<>();
+    try (AbstractPipeline pipeline = jedis.pipelined()) {
+      for (String token : tokens) {
+        responses.put(token, pipeline.hgetAll(Utils.getSessionKey(token)));
+      }
+      pipeline.sync();
+    }
 
-    // No username found for the token
-    if (username == null) {
+    List<String> expiredTokens = new ArrayList<>();
+    responses.forEach(
+        (token, response) -> {
+          Session session = Session.fromMap(response.get());
+          if (session == null) {
+            expiredTokens.add(token);
+          } else {
+            sessions.put(token, session);
+          }
+        });
+
+    // Lazily prune expired sessions from the index
+    if (!expiredTokens.isEmpty()) {
+      jedis.zrem(userSessionsKey, expiredTokens.toArray(new String[0]));
+    }
+
+    return sessions;
+  }
+
+  public Session verify(String token) {
+    // Retrieve the session and extend its and the basket's expiration in a single call
+    long now = System.currentTimeMillis();
+    String indexExpiresAt = Long.toString(indexExpiresAt(now));
+    Object result =
+        jedis.eval(
+            VERIFY_SESSION_SCRIPT,
+            List.of(Utils.getSessionKey(token), Utils.getBasketKey(token)),
+            List.of(Integer.toString(Global.TOKEN_EXPIRATION), Long.toString(now), indexExpiresAt));
+
+    // No session found for the token
+    if (!(result instanceof List<?> fields)) {
       return null;
     }
 
-    // Extend token expiration
-    jedis.expire(token, Global.TOKEN_EXPIRATION);
+    Session session = Session.fromFieldList(fields);
+    if (session != null) {
+      session.setToken(token);
+
+      // Keep the user's session index alive as long as their sessions, so it isn't left behind
+      // once they have all expired. The index is in another slot, so the script can't refresh it,
+      // but it only asks for a refresh once per TOKEN_EXPIRATION of activity, so other requests
+      // still take a single round trip.
+      if (hasField(fields, Session.INDEX_EXPIRES_AT_FIELD, indexExpiresAt)) {
+        jedis.expire(
+            Utils.getUserSessionsKey(session.getUserId()), Global.USER_SESSIONS_EXPIRATION);
+      }
+    }
+    return session;
+  }
 
-    return username;
+  private static long indexExpiresAt(long now) {
+    return now + TimeUnit.SECONDS.toMillis(Global.USER_SESSIONS_EXPIRATION);
+  }
+
+  private static boolean hasField(List<?> fields, String field, String value) {
+    // HGETALL replies from scripts are a flat list of field, value pairs
+    for (int i = 0; i + 1 < fields.size(); i += 2) {
+      if (field.equals(String.valueOf(fields.get(i)))
+          && value.equals(String.valueOf(fields.get(i + 1)))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Runs the commands in a transaction, which holds a pooled connection until it is closed. A
+   * cluster can't run a transaction across slots, so there the commands are pipelined to each node
+   * instead. A session and its basket share a slot and are still unlinked together, but the user's
+   * session index is updated separately, and getSessions prunes any tokens it outlives.
+   */
+  private void execute(Consumer<PipeliningBase> commands) {
+    if (clusterEnabled) {
+      try (AbstractPipeline pipeline = jedis.pipelined()) {
+        commands.accept(pipeline);
+        pipeline.sync();
+      }
+      return;
+    }
+
+    try (AbstractTransaction transaction = jedis.multi()) {
+      commands.accept(transaction);
+      transaction.exec();
+    }
   }
 
   public boolean checkIfEmailExists(String email) {
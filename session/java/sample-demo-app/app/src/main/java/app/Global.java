@@ -32,9 +32,19 @@ public class Global {
   public static final String PASSWORD_LENGTH = "Password must be between 8 and 255 characters";
   public static final String LOGGED_IN = "Logged in";
   public static final String LOGGED_OUT = "Logged out";
+  public static final String LOGGED_OUT_EVERYWHERE = "Logged out of all sessions";
 
   public static final Integer TOKEN_BYTE_LENGTH = 128;
   public static final Integer TOKEN_EXPIRATION =
       1800; // Token expiration time in seconds (30 minutes)
   public static final String TOKEN_COOKIE_NAME = "token";
+  public static final String SESSION_ATTRIBUTE = "session";
+  public static final String SESSION_KEY_PREFIX = "session:";
+  public static final String BASKET_KEY_PREFIX = "basket:";
+  public static final String USER_SESSIONS_KEY_PREFIX = "user:";
+  public static final String USER_SESSIONS_KEY_SUFFIX = ":sessions";
+  public static final Integer MAX_SESSIONS_PER_USER = 5;
+  // The user's session index lives twice as long as a session, so it only needs refreshing once
+  // per TOKEN_EXPIRATION of activity to outlive every session in it
+  public static final Integer USER_SESSIONS_EXPIRATION = 2 * TOKEN_EXPIRATION;
 }
@@ -14,16 +14,18 @@
  * limitations under the License.
  */
 
-/** Configuration for the JDBC DataSource to connect to the PostgreSQL server. */
+/**
+ * Configuration for the JDBC DataSource to connect to the PostgreSQL server. Connections are
+ * pooled, so the pool size bounds how many queries can run at once.
+ */
 
 package app;
 
+import com.zaxxer.hikari.HikariDataSource;
 import javax.sql.DataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
-
 
 @Configuration
 public class JdbcConfig {
@@ -38,7 +40,14 @@ public class JdbcConfig {
   @Value("${DB_PASSWORD:}")
   private String password;
 
-  @Bean
+  // Connection pool configuration properties
+  @Value("${DB_POOL_SIZE:10}") // Maximum number of pooled connections
+  private int poolSize;
+
+  @Value("${DB_POOL_MAX_WAIT_MS:2000}") // How long a request waits for a free connection
+  private long poolMaxWaitMillis;
+
+  @Bean(destroyMethod = "close")
   public DataSource dataSource() {
     // Validate mandatory properties
     if (url == null || url.isEmpty()) {
@@ -47,13 +56,18 @@ public class JdbcConfig {
     if (username == null || username.isEmpty()) {
       throw new IllegalArgumentException("Database username (DB_USERNAME) is not configured");
     }
+    if (poolSize <= 0) {
+      throw new IllegalArgumentException("Database pool size (DB_POOL_SIZE) is invalid");
+    }
 
     // Set up the DataSource
-    DriverManagerDataSource dataSource = new DriverManagerDataSource();
+    HikariDataSource dataSource = new HikariDataSource();
     dataSource.setDriverClassName("org.postgresql.Driver");
-    dataSource.setUrl(url);
+    dataSource.setJdbcUrl(url);
     dataSource.setUsername(username);
     dataSource.setPassword(password);
+    dataSource.setMaximumPoolSize(poolSize);
+    dataSource.setConnectionTimeout(poolMaxWaitMillis);
 
     return dataSource;
   }
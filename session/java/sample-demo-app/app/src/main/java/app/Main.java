@@ -22,6 +22,7 @@ package app;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class Main {
@@ -32,7 +33,16 @@ public class Main {
    * @param args Command line arguments
    */
   public static void main(final String[] args) {
-    SpringApplication.run(Main.class, args);
+    ConfigurableApplicationContext context = SpringApplication.run(Main.class, args);
+
+    // Spring Boot ignores spring.threads.virtual.enabled without a warning before Java 21
+    boolean virtualThreads =
+        context
+            .getEnvironment()
+            .getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+    if (virtualThreads && Runtime.version().feature() < 21) {
+      System.err.println("Virtual threads need Java 21, so requests run on the Tomcat pool");
+    }
   }
 
   /** Dummy method to trick Checkstyle. */
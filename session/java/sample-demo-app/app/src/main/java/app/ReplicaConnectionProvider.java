@@ -0,0 +1,164 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Spreads reads across Valkey read replicas. Each call borrows a connection from the next replica
+ * in turn, skipping replicas that are staler than the tolerance or unreachable, and falls back to
+ * the primary when none is left.
+ *
+ * <p>Staleness is measured with a heartbeat key that is set to the current time on the primary at
+ * every check. A replica's copy of it is an upper bound on how far behind the primary the replica
+ * is, at most one check interval above its real lag. It is published as valkey.replica.staleness.
+ *
+ * <p>The primary's pool belongs to the primary client and isn't closed here.
+ */
+
+package app;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.CommandObjects;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.providers.ConnectionProvider;
+
+final class ReplicaConnectionProvider implements ConnectionProvider {
+
+  static final String HEARTBEAT_KEY = "valkey:replica:heartbeat";
+  private static final long HEARTBEAT_TTL = 60L;
+  private static final long UNKNOWN = -1L;
+
+  private final CommandObjects commandObjects = new CommandObjects();
+  private final ConnectionProvider primary;
+  private final List<CircuitBreakingConnectionProvider> replicas;
+  private final long maxStalenessMillis;
+  private final Map<CircuitBreakingConnectionProvider, AtomicLong> staleness = new HashMap<>();
+  private final AtomicInteger nextReplica = new AtomicInteger();
+  private final ScheduledExecutorService checker;
+
+  // Replicas within the staleness tolerance as of the last check. Until the first check, reads go
+  // to the primary.
+  private volatile List<CircuitBreakingConnectionProvider> freshReplicas = List.of();
+
+  ReplicaConnectionProvider(
+      ConnectionProvider primary,
+      List<CircuitBreakingConnectionProvider> replicas,
+      long maxStalenessMillis,
+      long checkIntervalMillis) {
+    this.primary = primary;
+    this.replicas = List.copyOf(replicas);
+    this.maxStalenessMillis = maxStalenessMillis;
+
+    for (CircuitBreakingConnectionProvider replica : this.replicas) {
+      AtomicLong replicaStaleness = new AtomicLong(UNKNOWN);
+      staleness.put(replica, replicaStaleness);
+      Gauge.builder(
+              "valkey.replica.staleness",
+              replicaStaleness,
+              value -> value.get() == UNKNOWN ? Double.NaN : value.get())
+          .description("Upper bound on how far a replica lags the primary")
+          .baseUnit("milliseconds")
+          .tag("node", replica.getNode())
+          .register(Metrics.globalRegistry);
+    }
+
+    if (this.replicas.isEmpty()) {
+      checker = null;
+    } else {
+      checker =
+          Executors.newSingleThreadScheduledExecutor(
+              runnable -> {
+                Thread thread = new Thread(runnable, "valkey-replica-check");
+                thread.setDaemon(true);
+                return thread;
+              });
+      checker.scheduleWithFixedDelay(
+          this::checkStaleness, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public Connection getConnection() {
+    List<CircuitBreakingConnectionProvider> candidates = freshReplicas;
+    int first = nextReplica.getAndIncrement();
+    for (int i = 0; i < candidates.size(); i++) {
+      int index = Math.floorMod(first + i, candidates.size());
+      try {
+        return candidates.get(index).getConnection();
+      } catch (JedisException e) {
+        // The replica's breaker is open or it's unreachable, try the next one
+      }
+    }
+    return primary.getConnection();
+  }
+
+  @Override
+  public Connection getConnection(CommandArguments args) {
+    return getConnection();
+  }
+
+  // Reads each replica's heartbeat, then writes a new one to the primary
+  void checkStaleness() {
+    long now = System.currentTimeMillis();
+    List<CircuitBreakingConnectionProvider> fresh = new ArrayList<>();
+    for (CircuitBreakingConnectionProvider replica : replicas) {
+      long replicaStaleness = UNKNOWN;
+      try (Connection connection = replica.getConnection()) {
+        String heartbeat = connection.executeCommand(commandObjects.get(HEARTBEAT_KEY));
+        if (heartbeat != null) {
+          replicaStaleness = Math.max(0L, now - Long.parseLong(heartbeat));
+        }
+      } catch (Exception e) {
+        System.err.println("Error checking replica " + replica.getNode() + ": " + e.getMessage());
+      }
+
+      staleness.get(replica).set(replicaStaleness);
+      if (replicaStaleness != UNKNOWN && replicaStaleness <= maxStalenessMillis) {
+        fresh.add(replica);
+      }
+    }
+    freshReplicas = List.copyOf(fresh);
+
+    try (Connection connection = primary.getConnection()) {
+      connection.executeCommand(
+          commandObjects.set(
+              HEARTBEAT_KEY, Long.toString(now), SetParams.setParams().ex(HEARTBEAT_TTL)));
+    } catch (Exception e) {
+      System.err.println("Error writing replica heartbeat: " + e.getMessage());
+    }
+  }
+
+  @Override
+  public void close() {
+    if (checker != null) {
+      checker.shutdownNow();
+    }
+    for (CircuitBreakingConnectionProvider replica : replicas) {
+      replica.close();
+    }
+  }
+}
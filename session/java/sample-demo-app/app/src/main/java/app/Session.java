@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Data class for a user session. A session is stored in Valkey as a hash under the session key,
+ * so authenticated requests can read the user id and profile without querying the account table.
+ */
+
+package app;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONObject;
+
+public class Session {
+
+  public static final String USER_ID_FIELD = "userId";
+  public static final String USERNAME_FIELD = "username";
+  public static final String CREATED_AT_FIELD = "createdAt";
+  public static final String LAST_SEEN_FIELD = "lastSeen";
+  // When the user's session index expires at the earliest, in milliseconds. Only used by
+  // DataController to decide when to refresh the index.
+  public static final String INDEX_EXPIRES_AT_FIELD = "indexExpiresAt";
+
+  private final int userId;
+  private final String username;
+  private final long createdAt;
+  private final long lastSeen;
+  private String token;
+
+  public Session(int userId, String username, long createdAt, long lastSeen) {
+    this.userId = userId;
+    this.username = username;
+    this.createdAt = createdAt;
+    this.lastSeen = lastSeen;
+  }
+
+  public int getUserId() {
+    return userId;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public long getLastSeen() {
+    return lastSeen;
+  }
+
+  public String getToken() {
+    return token;
+  }
+
+  public void setToken(String token) {
+    this.token = token;
+  }
+
+  public Map<String, String> toMap() {
+    Map<String, String> map = new HashMap<>();
+    map.put(USER_ID_FIELD, Integer.toString(userId));
+    map.put(USERNAME_FIELD, username);
+    map.put(CREATED_AT_FIELD, Long.toString(createdAt));
+    map.put(LAST_SEEN_FIELD, Long.toString(lastSeen));
+    return map;
+  }
+
+  public JSONObject toJson() {
+    JSONObject json = new JSONObject();
+    json.put(USER_ID_FIELD, userId);
+    json.put(USERNAME_FIELD, username);
+    json.put(CREATED_AT_FIELD, createdAt);
+    json.put(LAST_SEEN_FIELD, lastSeen);
+    return json;
+  }
+
+  public static Session fromMap(Map<String, String> map) {
+    // An empty hash means the session does not exist (or has expired)
+    if (map == null || map.isEmpty()) {
+      return null;
+    }
+
+    return new Session(
+        Integer.parseInt(map.get(USER_ID_FIELD)),
+        map.get(USERNAME_FIELD),
+        Long.parseLong(map.get(CREATED_AT_FIELD)),
+        Long.parseLong(map.get(LAST_SEEN_FIELD)));
+  }
+
+  public static Session fromFieldList(List<?> fields) {
+    // HGETALL replies from scripts are a flat list of field, value pairs
+    if (fields == null) {
+      return null;
+    }
+
+    Map<String, String> map = new HashMap<>();
+    for (int i = 0; i + 1 < fields.size(); i += 2) {
+      map.put(String.valueOf(fields.get(i)), String.valueOf(fields.get(i + 1)));
+    }
+    return fromMap(map);
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Resolves the session of a request from the token cookie and stores it in a request attribute,
+ * so it is only looked up once per request. Requests without a valid session are rejected before
+ * any handler touches Valkey.
+ */
+
+package app;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+public class SessionFilter extends OncePerRequestFilter {
+
+  private final DataController dataController;
+
+  public SessionFilter(DataController dataController) {
+    this.dataController = dataController;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    // CORS preflight requests carry no cookies
+    if (HttpMethod.OPTIONS.matches(request.getMethod())) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    if (request.getAttribute(Global.SESSION_ATTRIBUTE) == null) {
+      String token = Utils.getTokenFromCookie(request.getCookies());
+      Session session = token == null ? null : dataController.verify(token);
+
+      // Reject unauthenticated requests
+      if (session == null) {
+        response.sendError(HttpServletResponse.SC_UNAUTHORIZED, Global.INVALID_TOKEN);
+        return;
+      }
+
+      request.setAttribute(Global.SESSION_ATTRIBUTE, session);
+    }
+
+    filterChain.doFilter(request, response);
+  }
+}
@@ -47,6 +47,20 @@ public class Utils {
     return null;
   }
 
+  // The token is a hash tag, so a session and its basket are in the same cluster slot and can be
+  // used together in one command or script
+  public static String getSessionKey(String token) {
+    return Global.SESSION_KEY_PREFIX + "{" + token + "}";
+  }
+
+  public static String getBasketKey(String token) {
+    return Global.BASKET_KEY_PREFIX + "{" + token + "}";
+  }
+
+  public static String getUserSessionsKey(int userId) {
+    return Global.USER_SESSIONS_KEY_PREFIX + userId + Global.USER_SESSIONS_KEY_SUFFIX;
+  }
+
   public static Cookie createCookie(String token) {
     Cookie cookie = new Cookie(Global.TOKEN_COOKIE_NAME, token);
     cookie.setPath("/"); // Available across the app
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Publishes Valkey memory usage as a metric, so memory growth from sessions and baskets is visible
+ * during long-running tests at /actuator/metrics/valkey.memory.used.
+ */
+
+package app;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.util.SafeEncoder;
+
+@Component
+public class ValkeyMetrics implements MeterBinder {
+
+  private static final String USED_MEMORY_FIELD = "used_memory:";
+
+  private final UnifiedJedis jedis;
+
+  public ValkeyMetrics(UnifiedJedis jedis) {
+    this.jedis = jedis;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("valkey.memory.used", this, ValkeyMetrics::getUsedMemory)
+        .description("Memory used by the Valkey server")
+        .baseUnit("bytes")
+        .register(registry);
+  }
+
+  public double getUsedMemory() {
+    try {
+      // INFO memory returns "field:value" lines
+      Object reply = jedis.sendCommand(Protocol.Command.INFO, "memory");
+      String info = SafeEncoder.encode((byte[]) reply);
+      for (String line : info.split("\r?\n")) {
+        if (line.startsWith(USED_MEMORY_FIELD)) {
+          return Double.parseDouble(line.substring(USED_MEMORY_FIELD.length()).trim());
+        }
+      }
+    } catch (Exception e) {
+      // If there's an error with the cache, log the error and continue
+      System.err.println("Error reading Valkey memory usage: " + e.getMessage());
+    }
+    return Double.NaN;
+  }
+}
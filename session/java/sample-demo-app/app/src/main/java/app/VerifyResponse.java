@@ -15,8 +15,8 @@
  */
 
 /**
- * This class is used to create a response object for the verify endpoint. It contains the username
- * and expiration timestamp of the token.
+ * This class is used to create a response object for the verify endpoint. It contains the user id,
+ * username and expiration timestamp of the token.
  */
 
 package app;
@@ -25,16 +25,19 @@ import org.json.JSONObject;
 
 public class VerifyResponse {
 
+  private int userId;
   private String username;
   private int expirationSecs;
 
-  public VerifyResponse(String username, int expiration) {
+  public VerifyResponse(int userId, String username, int expiration) {
+    this.userId = userId;
     this.username = username;
     this.expirationSecs = expiration;
   }
 
   public JSONObject toJson() {
     JSONObject json = new JSONObject();
+    json.put("userId", userId);
     json.put("username", username);
     json.put("expirationSecs", expirationSecs);
     return json;
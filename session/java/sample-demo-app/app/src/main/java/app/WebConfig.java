@@ -21,6 +21,7 @@
 package app;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
@@ -54,4 +55,13 @@ public class WebConfig {
       }
     };
   }
+
+  // Resolve the session once per request for the basket endpoints
+  @Bean
+  public FilterRegistrationBean<SessionFilter> sessionFilter(DataController dataController) {
+    FilterRegistrationBean<SessionFilter> registration =
+        new FilterRegistrationBean<>(new SessionFilter(dataController));
+    registration.addUrlPatterns("/api/basket", "/api/basket/*");
+    return registration;
+  }
 }
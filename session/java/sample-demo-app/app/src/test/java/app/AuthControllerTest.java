@@ -157,6 +157,39 @@ class AuthControllerTest {
     }
   }
 
+  @Nested
+  @DisplayName("Testing logoutAll() method")
+  class LogoutAllTests {
+
+    @Test
+    @DisplayName("Should return 401 if token is invalid")
+    void testLogoutAll_InvalidToken() {
+      Cookie tokenCookie = new Cookie("token", "invalidToken");
+      given(request.getCookies()).willReturn(new Cookie[] { tokenCookie });
+      given(dataController.verify("invalidToken")).willReturn(null);
+
+      ResponseEntity<String> responseEntity = authController.logoutAll(request);
+
+      assertEquals(HttpStatus.UNAUTHORIZED, responseEntity.getStatusCode());
+      assertEquals(Global.INVALID_TOKEN, responseEntity.getBody());
+    }
+
+    @Test
+    @DisplayName("Should return 200 and logout every session of the user")
+    void testLogoutAll_ValidToken() {
+      Cookie tokenCookie = new Cookie("token", "validToken");
+      given(request.getCookies()).willReturn(new Cookie[] { tokenCookie });
+      given(dataController.verify("validToken"))
+          .willReturn(new Session(1, "username", 1000L, 2000L));
+
+      ResponseEntity<String> responseEntity = authController.logoutAll(request);
+
+      assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+      assertEquals(Global.LOGGED_OUT_EVERYWHERE, responseEntity.getBody());
+      verify(dataController).logoutAll(1);
+    }
+  }
+
   @Nested
   @DisplayName("Testing verify() method")
   class VerifyTests {
@@ -173,11 +206,12 @@ class AuthControllerTest {
     }
 
     @Test
-    @DisplayName("Should return 200 and username if token is valid")
+    @DisplayName("Should return 200 and session if token is valid")
     void testVerify_ValidToken() {
       Cookie tokenCookie = new Cookie("token", "validToken");
       given(request.getCookies()).willReturn(new Cookie[] { tokenCookie });
-      given(dataController.verify("validToken")).willReturn("username");
+      given(dataController.verify("validToken"))
+          .willReturn(new Session(1, "username", 1000L, 2000L));
 
       ResponseEntity<String> responseEntity = authController.verify(request, response);
 
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+@ExtendWith(MockitoExtension.class)
+class BasketScriptTest {
+
+  private static final String BASKET_KEY = Utils.getBasketKey("token");
+
+  @Mock private UnifiedJedis jedis;
+
+  private BasketScript basketScript;
+
+  @BeforeEach
+  void setUp() {
+    basketScript = new BasketScript(jedis);
+  }
+
+  @Test
+  @DisplayName("Should load the script once and apply all deltas in one call")
+  void testApply() {
+    Map<String, Integer> deltas = new LinkedHashMap<>();
+    deltas.put("1", 2);
+    deltas.put("2", -1);
+    List<String> args = List.of(Integer.toString(Global.TOKEN_EXPIRATION), "1", "2", "2", "-1");
+
+    given(jedis.scriptLoad(anyString(), eq(BASKET_KEY))).willReturn("sha");
+    given(jedis.evalsha("sha", List.of(BASKET_KEY), args)).willReturn(List.of("1", 3L, "2", 0L));
+
+    Map<String, Long> result = basketScript.apply(BASKET_KEY, deltas);
+    basketScript.apply(BASKET_KEY, deltas);
+
+    assertEquals(3L, result.get("1"));
+    assertEquals(0L, result.get("2"));
+    verify(jedis, times(1)).scriptLoad(anyString(), eq(BASKET_KEY));
+  }
+
+  @Test
+  @DisplayName("Should reload the script if the server no longer has it")
+  void testApply_NoScript() {
+    List<String> args = List.of(Integer.toString(Global.TOKEN_EXPIRATION), "1", "-1");
+
+    given(jedis.scriptLoad(anyString(), eq(BASKET_KEY))).willReturn("sha");
+    given(jedis.evalsha("sha", List.of(BASKET_KEY), args))
+        .willThrow(new JedisNoScriptException("NOSCRIPT"))
+        .willReturn(List.of("1", 0L));
+
+    Map<String, Long> result = basketScript.apply(BASKET_KEY, Map.of("1", -1));
+
+    assertEquals(0L, result.get("1"));
+    verify(jedis, times(2)).scriptLoad(anyString(), eq(BASKET_KEY));
+  }
+}
@@ -21,10 +21,19 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.doThrow;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.verify;
+import static org.mockito.Mockito.never;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -35,14 +44,20 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import redis.clients.jedis.Jedis;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.AbstractTransaction;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
 
 @ExtendWith(MockitoExtension.class)
 class DataControllerTest {
 
   @Mock private AccountRepository accountRepository;
 
-  @Mock private Jedis jedis;
+  @Mock private UnifiedJedis jedis;
+
+  @Mock private AbstractTransaction transaction;
 
   private DataController dataController;
 
@@ -75,18 +90,22 @@ class DataControllerTest {
   class LoginTests {
 
     @Test
-    @DisplayName("Should return token for valid credentials")
+    @DisplayName("Should store session hash with expiration for valid credentials")
     void testLogin_ValidCredentials() {
       String username = "testUser";
       String password = "securePassword";
       String token = "generatedToken";
+      String sessionKey = Utils.getSessionKey(token);
+      String userSessionsKey = Utils.getUserSessionsKey(1);
 
       // Given
       given(accountRepository.authenticateUser(username, password))
           .willReturn(Optional.of(1)); // pretend userId = 1
+      given(jedis.multi()).willReturn(transaction);
 
       // Mock static Utils.generateToken(...)
-      try (MockedStatic<Utils> mockedUtils = Mockito.mockStatic(Utils.class)) {
+      try (MockedStatic<Utils> mockedUtils =
+          Mockito.mockStatic(Utils.class, Mockito.CALLS_REAL_METHODS)) {
         mockedUtils
             .when(() -> Utils.generateToken(Global.TOKEN_BYTE_LENGTH))
             .thenReturn(token);
@@ -96,11 +115,61 @@ class DataControllerTest {
 
         // Assert & Verify
         assertEquals(token, result);
-        verify(jedis).set(token, username);
-        verify(jedis).expire(token, Global.TOKEN_EXPIRATION);
+        verify(transaction)
+            .hset(
+                eq(sessionKey),
+                argThat(
+                    (Map<String, String> map) ->
+                        "1".equals(map.get(Session.USER_ID_FIELD))
+                            && username.equals(map.get(Session.USERNAME_FIELD))
+                            && map.containsKey(Session.CREATED_AT_FIELD)
+                            && map.containsKey(Session.LAST_SEEN_FIELD)
+                            && map.containsKey(Session.INDEX_EXPIRES_AT_FIELD)));
+        verify(transaction).expire(sessionKey, Global.TOKEN_EXPIRATION);
+        verify(transaction).exec();
+        verify(jedis)
+            .eval(
+                anyString(),
+                eq(List.of(userSessionsKey)),
+                argThat(
+                    (List<String> args) ->
+                        args.get(1).equals(token)
+                            && args.get(2)
+                                .equals(Integer.toString(Global.MAX_SESSIONS_PER_USER))
+                            && args.get(3)
+                                .equals(Integer.toString(Global.USER_SESSIONS_EXPIRATION))));
       }
     }
 
+    @Test
+    @DisplayName("Should evict the oldest session when the session limit is reached")
+    void testLogin_EvictsOldestSession() {
+      String username = "testUser";
+      String password = "securePassword";
+      String userSessionsKey = Utils.getUserSessionsKey(1);
+      Map<String, Session> activeSessions = new LinkedHashMap<>();
+      for (int i = 0; i < Global.MAX_SESSIONS_PER_USER; i++) {
+        activeSessions.put("token" + i, new Session(1, username, i, i));
+      }
+
+      given(accountRepository.authenticateUser(username, password)).willReturn(Optional.of(1));
+      given(jedis.multi()).willReturn(transaction);
+
+      // The script trims the index to the limit and returns the evicted tokens
+      given(jedis.eval(anyString(), eq(List.of(userSessionsKey)), anyList()))
+          .willReturn(List.of("token0"));
+
+      DataController spyController = Mockito.spy(dataController);
+      Mockito.doReturn(activeSessions).when(spyController).getSessions(1);
+
+      spyController.login(username, password);
+
+      verify(transaction)
+          .unlink(Utils.getSessionKey("token0"), Utils.getBasketKey("token0"));
+      verify(transaction, never())
+          .unlink(Utils.getSessionKey("token1"), Utils.getBasketKey("token1"));
+    }
+
     @Test
     @DisplayName("Should return null for invalid credentials")
     void testLogin_InvalidCredentials() {
@@ -125,13 +194,14 @@ class DataControllerTest {
       given(accountRepository.authenticateUser(username, password))
           .willReturn(Optional.of(1));
 
-      try (MockedStatic<Utils> mockedUtils = Mockito.mockStatic(Utils.class)) {
+      try (MockedStatic<Utils> mockedUtils =
+          Mockito.mockStatic(Utils.class, Mockito.CALLS_REAL_METHODS)) {
         mockedUtils
             .when(() -> Utils.generateToken(Global.TOKEN_BYTE_LENGTH))
             .thenReturn(token);
 
-        // Force an error in Jedis.set(...)
-        doThrow(new RuntimeException("Jedis error")).when(jedis).set(token, username);
+        // Force an error in Jedis.multi()
+        doThrow(new RuntimeException("Jedis error")).when(jedis).multi();
 
         // Should throw RuntimeException because Jedis fails
         assertThrows(
@@ -145,14 +215,39 @@ class DataControllerTest {
   class LogoutTests {
 
     @Test
-    @DisplayName("Should delete token from Jedis")
+    @DisplayName("Should unlink session and basket and remove it from the user's session index")
     void testLogout() {
       String token = "testToken";
+      String sessionKey = Utils.getSessionKey(token);
+
+      given(jedis.hget(sessionKey, Session.USER_ID_FIELD)).willReturn("1");
+      given(jedis.multi()).willReturn(transaction);
 
       dataController.logout(token);
 
       // Verify it deletes from Jedis
-      verify(jedis).del(token);
+      verify(transaction).unlink(sessionKey, Utils.getBasketKey(token));
+      verify(transaction).zrem(Utils.getUserSessionsKey(1), token);
+      verify(transaction).exec();
+    }
+
+    @Test
+    @DisplayName("Should pipeline the removal instead of using a transaction in cluster mode")
+    void testLogout_Cluster() {
+      ReflectionTestUtils.setField(dataController, "clusterEnabled", true);
+      Pipeline pipeline = Mockito.mock(Pipeline.class);
+      String token = "testToken";
+      String sessionKey = Utils.getSessionKey(token);
+
+      given(jedis.hget(sessionKey, Session.USER_ID_FIELD)).willReturn("1");
+      given(jedis.pipelined()).willReturn(pipeline);
+
+      dataController.logout(token);
+
+      verify(pipeline).unlink(sessionKey, Utils.getBasketKey(token));
+      verify(pipeline).zrem(Utils.getUserSessionsKey(1), token);
+      verify(pipeline).sync();
+      verify(jedis, never()).multi();
     }
 
     @Test
@@ -160,29 +255,140 @@ class DataControllerTest {
     void testLogout_JedisFailure() {
       String token = "testToken";
 
-      // Force an error in Jedis.del(...)
-      doThrow(new RuntimeException("Jedis error")).when(jedis).del(token);
+      // Force an error in Jedis.hget(...)
+      doThrow(new RuntimeException("Jedis error"))
+          .when(jedis)
+          .hget(Utils.getSessionKey(token), Session.USER_ID_FIELD);
 
       assertThrows(RuntimeException.class, () -> dataController.logout(token));
     }
   }
 
+  @Nested
+  @DisplayName("Testing logoutAll() method")
+  class LogoutAllTests {
+
+    @Test
+    @DisplayName("Should unlink every session and basket in the user's session index")
+    void testLogoutAll() {
+      String userSessionsKey = Utils.getUserSessionsKey(1);
+
+      given(jedis.zrange(userSessionsKey, 0, -1)).willReturn(List.of("token1", "token2"));
+      given(jedis.multi()).willReturn(transaction);
+
+      dataController.logoutAll(1);
+
+      verify(transaction)
+          .unlink(Utils.getSessionKey("token1"), Utils.getBasketKey("token1"));
+      verify(transaction)
+          .unlink(Utils.getSessionKey("token2"), Utils.getBasketKey("token2"));
+      verify(transaction).unlink(userSessionsKey);
+      verify(transaction).exec();
+    }
+  }
+
+  @Nested
+  @DisplayName("Testing getSessions() method")
+  class GetSessionsTests {
+
+    @Mock private Pipeline pipeline;
+
+    @Mock private Response<Map<String, String>> activeResponse;
+
+    @Mock private Response<Map<String, String>> expiredResponse;
+
+    @Test
+    @DisplayName("Should return active sessions and prune expired ones from the index")
+    void testGetSessions_PrunesExpired() {
+      String userSessionsKey = Utils.getUserSessionsKey(1);
+      Session active = new Session(1, "testUser", 1000L, 2000L);
+
+      given(jedis.zrange(userSessionsKey, 0, -1)).willReturn(List.of("expired", "active"));
+      given(jedis.pipelined()).willReturn(pipeline);
+      given(pipeline.hgetAll(Utils.getSessionKey("expired"))).willReturn(expiredResponse);
+      given(pipeline.hgetAll(Utils.getSessionKey("active"))).willReturn(activeResponse);
+      given(expiredResponse.get()).willReturn(Map.of());
+      given(activeResponse.get()).willReturn(active.toMap());
+
+      Map<String, Session> result = dataController.getSessions(1);
+
+      assertEquals(1, result.size());
+      assertEquals("testUser", result.get("active").getUsername());
+      verify(jedis).zrem(userSessionsKey, "expired");
+    }
+
+    @Test
+    @DisplayName("Should return an empty map if the user has no sessions")
+    void testGetSessions_Empty() {
+      given(jedis.zrange(Utils.getUserSessionsKey(1), 0, -1)).willReturn(List.of());
+
+      assertTrue(dataController.getSessions(1).isEmpty());
+      verify(jedis, never()).pipelined();
+    }
+  }
+
   @Nested
   @DisplayName("Testing verify() method")
   class VerifyTests {
 
     @Test
-    @DisplayName("Should return username and extend token expiration if valid")
+    @DisplayName("Should return session and extend token expiration if valid")
     void testVerify_ValidToken() {
       String token = "testToken";
-      String username = "testUser";
-
-      given(jedis.get(token)).willReturn(username);
-
-      String result = dataController.verify(token);
+      String sessionKey = Utils.getSessionKey(token);
+      String basketKey = Utils.getBasketKey(token);
+
+      // The index outlives the refreshed session, so the script leaves its expiry alone
+      given(jedis.eval(anyString(), eq(List.of(sessionKey, basketKey)), anyList()))
+          .willReturn(
+              List.of(
+                  Session.USER_ID_FIELD, "1",
+                  Session.USERNAME_FIELD, "testUser",
+                  Session.CREATED_AT_FIELD, "1000",
+                  Session.LAST_SEEN_FIELD, "2000",
+                  Session.INDEX_EXPIRES_AT_FIELD, "3000"));
+
+      Session result = dataController.verify(token);
+
+      assertEquals(1, result.getUserId());
+      assertEquals("testUser", result.getUsername());
+      assertEquals(1000L, result.getCreatedAt());
+      assertEquals(2000L, result.getLastSeen());
+      verify(jedis, never()).expire(anyString(), anyLong());
+      verify(jedis)
+          .eval(
+              anyString(),
+              eq(List.of(sessionKey, basketKey)),
+              argThat(
+                  (List<String> args) ->
+                      args.get(0).equals(Integer.toString(Global.TOKEN_EXPIRATION))));
+    }
 
-      assertEquals(username, result);
-      verify(jedis).expire(token, Global.TOKEN_EXPIRATION);
+    @Test
+    @DisplayName("Should refresh the session index when the session could outlive it")
+    void testVerify_RefreshesIndex() {
+      String token = "testToken";
+      String sessionKey = Utils.getSessionKey(token);
+      String basketKey = Utils.getBasketKey(token);
+      String userSessionsKey = Utils.getUserSessionsKey(1);
+
+      // The script records the new index expiry it was given
+      given(jedis.eval(anyString(), eq(List.of(sessionKey, basketKey)), anyList()))
+          .willAnswer(
+              invocation -> {
+                List<String> args = invocation.getArgument(2);
+                return List.of(
+                    Session.USER_ID_FIELD, "1",
+                    Session.USERNAME_FIELD, "testUser",
+                    Session.CREATED_AT_FIELD, "1000",
+                    Session.LAST_SEEN_FIELD, args.get(1),
+                    Session.INDEX_EXPIRES_AT_FIELD, args.get(2));
+              });
+
+      Session result = dataController.verify(token);
+
+      assertEquals(1, result.getUserId());
+      verify(jedis).expire(userSessionsKey, Global.USER_SESSIONS_EXPIRATION);
     }
 
     @Test
@@ -190,9 +396,9 @@ class DataControllerTest {
     void testVerify_InvalidToken() {
       String token = "invalidToken";
 
-      given(jedis.get(token)).willReturn(null);
+      given(jedis.eval(anyString(), anyList(), anyList())).willReturn(null);
 
-      String result = dataController.verify(token);
+      Session result = dataController.verify(token);
 
       assertNull(result);
     }
@@ -202,7 +408,9 @@ class DataControllerTest {
     void testVerify_JedisFailure() {
       String token = "testToken";
 
-      doThrow(new RuntimeException("Jedis error")).when(jedis).get(token);
+      doThrow(new RuntimeException("Jedis error"))
+          .when(jedis)
+          .eval(anyString(), anyList(), anyList());
 
       assertThrows(RuntimeException.class, () -> dataController.verify(token));
     }
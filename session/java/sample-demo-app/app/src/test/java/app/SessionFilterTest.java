@@ -0,0 +1,97 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class SessionFilterTest {
+
+  private DataController dataController;
+
+  private SessionFilter sessionFilter;
+
+  @BeforeEach
+  void setUp() {
+    dataController = Mockito.mock(DataController.class);
+    sessionFilter = new SessionFilter(dataController);
+  }
+
+  @Test
+  @DisplayName("Should return 401 without touching Valkey if token is missing")
+  void testFilter_NoToken() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/basket");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain filterChain = new MockFilterChain();
+
+    sessionFilter.doFilter(request, response, filterChain);
+
+    assertEquals(HttpServletResponse.SC_UNAUTHORIZED, response.getStatus());
+    assertNull(filterChain.getRequest());
+    verify(dataController, never()).verify(anyString());
+  }
+
+  @Test
+  @DisplayName("Should return 401 if token is invalid")
+  void testFilter_InvalidToken() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/basket");
+    request.setCookies(new Cookie(Global.TOKEN_COOKIE_NAME, "invalidToken"));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain filterChain = new MockFilterChain();
+
+    given(dataController.verify("invalidToken")).willReturn(null);
+
+    sessionFilter.doFilter(request, response, filterChain);
+
+    assertEquals(HttpServletResponse.SC_UNAUTHORIZED, response.getStatus());
+    assertNull(filterChain.getRequest());
+  }
+
+  @Test
+  @DisplayName("Should store the resolved session in a request attribute")
+  void testFilter_ValidToken() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/basket");
+    request.setCookies(new Cookie(Global.TOKEN_COOKIE_NAME, "validToken"));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain filterChain = new MockFilterChain();
+    Session session = new Session(1, "username", 1000L, 2000L);
+    session.setToken("validToken");
+
+    given(dataController.verify("validToken")).willReturn(session);
+
+    sessionFilter.doFilter(request, response, filterChain);
+
+    assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+    assertSame(session, request.getAttribute(Global.SESSION_ATTRIBUTE));
+    assertSame(request, filterChain.getRequest());
+  }
+}